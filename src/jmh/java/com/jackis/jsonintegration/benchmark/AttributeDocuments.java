@@ -0,0 +1,69 @@
+package com.jackis.jsonintegration.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import java.util.Random;
+
+/**
+ * Creates product attribute documents shaped like the ones used in the integration test, padded
+ * with additional keys until the requested number of top level keys is reached.
+ */
+public final class AttributeDocuments {
+
+  private static final ObjectMapper MAPPER = new ObjectMapper();
+
+  private static final String[] COLORS = {"green", "black", "blue", "red", "white"};
+
+  private AttributeDocuments() {
+  }
+
+  public static ObjectNode create(final int keyCount) {
+    return create(keyCount, keyCount);
+  }
+
+  /**
+   * Creates a document whose values are chosen by {@code seed}, documents of different seeds
+   * differ like those of different products.
+   */
+  public static ObjectNode create(final int keyCount, final long seed) {
+    final Random random = new Random(seed);
+
+    final ObjectNode document = MAPPER.createObjectNode();
+    document.set("colors", MAPPER.createArrayNode()
+        .add(COLORS[random.nextInt(COLORS.length)])
+        .add(COLORS[random.nextInt(COLORS.length)]));
+    document.set("weight",
+        MAPPER.createObjectNode().put("unit", "g").put("value", random.nextInt(1000)));
+    document.set("measures",
+        MAPPER.createObjectNode().put("unit", "mm").put("height", random.nextInt(1000))
+            .put("width", random.nextInt(1000)).put("depth", random.nextInt(1000)));
+
+    for (int idx = document.size(); idx < keyCount; idx++) {
+      final String key = "attribute" + idx;
+      switch (idx % 3) {
+        case 0:
+          document.put(key, COLORS[random.nextInt(COLORS.length)]);
+          break;
+        case 1:
+          document.put(key, random.nextInt(100_000));
+          break;
+        default:
+          document.set(key, MAPPER.createObjectNode().put("unit", "mm")
+              .put("value", random.nextInt(1000)));
+      }
+    }
+    return document;
+  }
+
+  public static String createAsString(final int keyCount) {
+    return createAsString(keyCount, keyCount);
+  }
+
+  public static String createAsString(final int keyCount, final long seed) {
+    try {
+      return MAPPER.writeValueAsString(create(keyCount, seed));
+    } catch (final Exception ex) {
+      throw new IllegalStateException(ex);
+    }
+  }
+}
@@ -0,0 +1,54 @@
+package com.jackis.jsonintegration.benchmark;
+
+import java.util.Map;
+import org.testcontainers.containers.PostgreSQLContainer;
+
+/**
+ * Database for benchmarks that need one. A Postgres container is started unless an existing
+ * database is given with the system properties {@code benchmark.jdbc.url},
+ * {@code benchmark.jdbc.username} and {@code benchmark.jdbc.password}.
+ */
+public final class BenchmarkDatabase implements AutoCloseable {
+
+  private final PostgreSQLContainer<?> container;
+  private final String url;
+  private final String username;
+  private final String password;
+
+  private BenchmarkDatabase(PostgreSQLContainer<?> container, String url, String username,
+      String password) {
+    this.container = container;
+    this.url = url;
+    this.username = username;
+    this.password = password;
+  }
+
+  public static BenchmarkDatabase start() {
+    final String url = System.getProperty("benchmark.jdbc.url");
+    if (url != null) {
+      return new BenchmarkDatabase(null, url, System.getProperty("benchmark.jdbc.username"),
+          System.getProperty("benchmark.jdbc.password", ""));
+    }
+    final PostgreSQLContainer<?> container = new PostgreSQLContainer<>("postgres:10.11");
+    container.start();
+    return new BenchmarkDatabase(container, container.getJdbcUrl(), container.getUsername(),
+        container.getPassword());
+  }
+
+  /**
+   * Returns the Spring Boot properties connecting the application to this database.
+   */
+  public Map<String, Object> springProperties() {
+    return Map.of(
+        "spring.datasource.url", url,
+        "spring.datasource.username", username,
+        "spring.datasource.password", password);
+  }
+
+  @Override
+  public void close() {
+    if (container != null) {
+      container.stop();
+    }
+  }
+}
@@ -0,0 +1,51 @@
+package com.jackis.jsonintegration.benchmark;
+
+import java.lang.reflect.Proxy;
+import java.nio.charset.StandardCharsets;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.util.function.Consumer;
+
+/**
+ * Minimal JDBC stand-ins so user types can be benchmarked without a database. Only the methods
+ * the JSONB codec calls are answered, everything else returns {@code null}.
+ */
+public final class JdbcStubs {
+
+  private JdbcStubs() {
+  }
+
+  /**
+   * Returns a {@link ResultSet} answering every column read with {@code columnValue}, as its UTF-8
+   * encoding for {@code getBytes}.
+   */
+  public static ResultSet resultSet(final String columnValue) {
+    return (ResultSet) Proxy.newProxyInstance(JdbcStubs.class.getClassLoader(),
+        new Class<?>[]{ResultSet.class}, (proxy, method, args) -> {
+          switch (method.getName()) {
+            case "getBytes":
+              return columnValue == null ? null : columnValue.getBytes(StandardCharsets.UTF_8);
+            case "getString":
+            case "getObject":
+              return columnValue;
+            case "wasNull":
+              return columnValue == null;
+            default:
+              return null;
+          }
+        });
+  }
+
+  /**
+   * Returns a {@link PreparedStatement} handing every bound value to {@code boundValues}.
+   */
+  public static PreparedStatement preparedStatement(final Consumer<Object> boundValues) {
+    return (PreparedStatement) Proxy.newProxyInstance(JdbcStubs.class.getClassLoader(),
+        new Class<?>[]{PreparedStatement.class}, (proxy, method, args) -> {
+          if (method.getName().startsWith("set") && args != null && args.length > 1) {
+            boundValues.accept(args[1]);
+          }
+          return null;
+        });
+  }
+}
@@ -0,0 +1,114 @@
+package com.jackis.jsonintegration.hibernate;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.jackis.jsonintegration.benchmark.AttributeDocuments;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jol.info.GraphLayout;
+
+/**
+ * Loads the attributes of 10.000 products, each with its own values, with and without
+ * {@link DeduplicatingJsonNodeFactory} and with and without the canonical field names of the
+ * parser, which are all the sharing field names get. The benchmark measures the time it takes,
+ * {@link #main} prints the heap the loaded documents retain:
+ *
+ * <pre>
+ * mvn -P benchmark test-compile exec:java \
+ *     -Dexec.mainClass=com.jackis.jsonintegration.hibernate.JsonNodeFootprintBenchmark
+ * </pre>
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class JsonNodeFootprintBenchmark {
+
+  private static final int PRODUCT_COUNT = 10_000;
+
+  private static final int[] KEY_COUNTS = {20, 100};
+
+  @Param({"20", "100"})
+  private int keyCount;
+
+  @Param({"false", "true"})
+  private boolean deduplicate;
+
+  @Param({"true", "false"})
+  private boolean canonicalizeFieldNames;
+
+  private JsonNodeCodec codec;
+
+  private List<byte[]> documents;
+
+  @Setup
+  public void setUp() {
+    codec = codec(deduplicate, canonicalizeFieldNames);
+    documents = documents(keyCount);
+  }
+
+  @Benchmark
+  public List<JsonNode> loadProducts() throws Exception {
+    return load(codec, documents);
+  }
+
+  public static void main(final String[] args) throws Exception {
+    System.out.printf("%8s %16s %20s %24s%n", "keyCount", "plain (KiB)", "deduplicated (KiB)",
+        "no canonical names (KiB)");
+    for (final int keyCount : KEY_COUNTS) {
+      final List<byte[]> documents = documents(keyCount);
+      System.out.printf("%8d %16d %20d %24d%n", keyCount,
+          retainedKibibytes(load(codec(false, true), documents)),
+          retainedKibibytes(load(codec(true, true), documents)),
+          retainedKibibytes(load(codec(false, false), documents)));
+    }
+  }
+
+  private static JsonNodeCodec codec(final boolean deduplicate,
+      final boolean canonicalizeFieldNames) {
+    final ObjectMapper mapper = new ObjectMapper(JsonFactory.builder()
+        .configure(JsonFactory.Feature.CANONICALIZE_FIELD_NAMES, canonicalizeFieldNames)
+        .build());
+    // same settings as the products.jsonb.deduplication defaults
+    return deduplicate ? new JsonNodeCodec(mapper, new DeduplicatingJsonNodeFactory(32, 4096))
+        : new JsonNodeCodec(mapper);
+  }
+
+  private static List<byte[]> documents(final int keyCount) {
+    final List<byte[]> documents = new ArrayList<>(PRODUCT_COUNT);
+    for (int idx = 0; idx < PRODUCT_COUNT; idx++) {
+      documents.add(
+          AttributeDocuments.createAsString(keyCount, idx).getBytes(StandardCharsets.UTF_8));
+    }
+    return documents;
+  }
+
+  private static List<JsonNode> load(final JsonNodeCodec codec, final List<byte[]> documents)
+      throws Exception {
+    final List<JsonNode> loaded = new ArrayList<>(documents.size());
+    for (final byte[] document : documents) {
+      loaded.add(codec.read(document));
+    }
+    return loaded;
+  }
+
+  private static long retainedKibibytes(final List<JsonNode> loaded) {
+    return GraphLayout.parseInstance(loaded).totalSize() / 1024;
+  }
+}
@@ -0,0 +1,84 @@
+package com.jackis.jsonintegration.hibernate;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.jackis.jsonintegration.benchmark.AttributeDocuments;
+import com.jackis.jsonintegration.benchmark.JdbcStubs;
+import java.io.Serializable;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the JSONB codec Hibernate runs for every {@code attributes} column it reads, writes or
+ * snapshots. Run with the GC profiler (the {@code benchmark} profile does this by default) to see
+ * the allocation rate next to the throughput.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class JsonNodeTypeBenchmark {
+
+  private static final String[] COLUMN_NAMES = {"attributes"};
+
+  @Param({"3", "100", "1000", "10000"})
+  private int keyCount;
+
+  private JsonNodeType jsonNodeType;
+
+  private JsonNode document;
+
+  private ResultSet resultSet;
+
+  private PreparedStatement preparedStatement;
+
+  private Object boundValue;
+
+  @Setup
+  public void setUp() {
+    jsonNodeType = new JsonNodeType();
+    document = AttributeDocuments.create(keyCount);
+    resultSet = JdbcStubs.resultSet(AttributeDocuments.createAsString(keyCount));
+    preparedStatement = JdbcStubs.preparedStatement(value -> boundValue = value);
+  }
+
+  @Benchmark
+  public Object nullSafeGet() throws SQLException {
+    return jsonNodeType.nullSafeGet(resultSet, COLUMN_NAMES, null, null);
+  }
+
+  @Benchmark
+  public Object nullSafeSet() throws SQLException {
+    jsonNodeType.nullSafeSet(preparedStatement, document, 1, null);
+    return boundValue;
+  }
+
+  @Benchmark
+  public Object deepCopy() {
+    return jsonNodeType.deepCopy(document);
+  }
+
+  @Benchmark
+  public Serializable disassemble() {
+    return jsonNodeType.disassemble(document);
+  }
+
+  @Benchmark
+  public Object disassembleAssemble() {
+    return jsonNodeType.assemble(jsonNodeType.disassemble(document), null);
+  }
+}
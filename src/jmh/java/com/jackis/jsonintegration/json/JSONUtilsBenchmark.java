@@ -0,0 +1,72 @@
+package com.jackis.jsonintegration.json;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.jackis.jsonintegration.benchmark.AttributeDocuments;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.test.util.ReflectionTestUtils;
+
+/**
+ * Measures the parsing and validation every {@code GET /products} request runs on its search
+ * document.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class JSONUtilsBenchmark {
+
+  private static final JsonLimits UNLIMITED = new JsonLimits() {
+    @Override
+    public int getMaxLength() {
+      return Integer.MAX_VALUE;
+    }
+
+    @Override
+    public int getMaxDepth() {
+      return Integer.MAX_VALUE;
+    }
+
+    @Override
+    public int getMaxKeys() {
+      return Integer.MAX_VALUE;
+    }
+  };
+
+  @Param({"3", "100", "1000", "10000"})
+  private int keyCount;
+
+  private JSONUtils jsonUtils;
+
+  private String searchDocument;
+
+  @Setup
+  public void setUp() {
+    jsonUtils = new JSONUtils();
+    ReflectionTestUtils.setField(jsonUtils, "mapper", new ObjectMapper());
+    searchDocument = AttributeDocuments.createAsString(keyCount);
+  }
+
+  @Benchmark
+  public boolean isJSONValid() {
+    return jsonUtils.isJSONValid(searchDocument);
+  }
+
+  @Benchmark
+  public JsonNode readObject() {
+    return jsonUtils.readObject(searchDocument, UNLIMITED);
+  }
+}
@@ -0,0 +1,131 @@
+package com.jackis.jsonintegration.product.persistence;
+
+import static org.hibernate.jpa.QueryHints.HINT_READONLY;
+
+import com.jackis.jsonintegration.JsonIntegrationApplication;
+import com.jackis.jsonintegration.benchmark.AttributeDocuments;
+import com.jackis.jsonintegration.benchmark.BenchmarkDatabase;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import javax.persistence.Query;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+/**
+ * Measures one search transaction against a real database: reading managed entities, which
+ * Hibernate snapshots and dirty checks at commit, reading them as read only entities, and reading
+ * the {@link ProductRow} projection the search path uses. Run with the GC profiler to compare the
+ * allocation per search next to the throughput.
+ *
+ * <p>Starts a Postgres container, see {@link BenchmarkDatabase} for using an existing database.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ProductSearchBenchmark {
+
+  private static final int PRODUCT_COUNT = 5_000;
+
+  private static final String WHERE =
+      " FROM product WHERE CAST((attributes #> '{weight}' ->> 'value') AS INTEGER) >= 0"
+          + " ORDER BY id LIMIT :limit";
+
+  private static final String SEARCH = "SELECT *" + WHERE;
+
+  private static final String SEARCH_ROWS = "SELECT id, name, sku, price, currency, "
+      + "CAST(attributes AS TEXT) AS attributes" + WHERE;
+
+  @Param({"100", "1000"})
+  private int resultSize;
+
+  @Param({"100"})
+  private int keyCount;
+
+  private BenchmarkDatabase database;
+
+  private ConfigurableApplicationContext context;
+
+  private EntityManagerFactory entityManagerFactory;
+
+  @Setup
+  public void setUp() {
+    database = BenchmarkDatabase.start();
+    context = new SpringApplicationBuilder(JsonIntegrationApplication.class)
+        .web(WebApplicationType.NONE)
+        .properties(database.springProperties())
+        .properties(Map.of("spring.main.banner-mode", "off", "logging.level.root", "WARN"))
+        .run();
+    entityManagerFactory = context.getBean(EntityManagerFactory.class);
+
+    final JdbcTemplate jdbcTemplate = context.getBean(JdbcTemplate.class);
+    jdbcTemplate.update("TRUNCATE TABLE product");
+    final String attributes = AttributeDocuments.createAsString(keyCount);
+    jdbcTemplate.batchUpdate("INSERT INTO product (id, name, sku, price, currency, attributes) "
+            + "VALUES (?, ?, ?, 9.99, 'EUR', CAST(? AS JSONB))",
+        IntStream.rangeClosed(1, PRODUCT_COUNT)
+            .mapToObj(id -> new Object[]{id, "Toast " + id, "sku-" + id, attributes})
+            .collect(Collectors.toList()));
+    jdbcTemplate.update("ANALYZE product");
+  }
+
+  @TearDown
+  public void tearDown() {
+    context.close();
+    database.close();
+  }
+
+  @Benchmark
+  public List<?> managedEntities() {
+    return search(entityManager -> entityManager.createNativeQuery(SEARCH, ProductEntity.class));
+  }
+
+  @Benchmark
+  public List<?> readOnlyEntities() {
+    return search(entityManager -> entityManager.createNativeQuery(SEARCH, ProductEntity.class)
+        .setHint(HINT_READONLY, true));
+  }
+
+  @Benchmark
+  public List<?> rowProjection() {
+    return search(entityManager ->
+        entityManager.createNativeQuery(SEARCH_ROWS, ProductEntity.ROW_MAPPING));
+  }
+
+  private List<?> search(final Function<EntityManager, Query> queryFactory) {
+    final EntityManager entityManager = entityManagerFactory.createEntityManager();
+    try {
+      entityManager.getTransaction().begin();
+      final List<?> results = queryFactory.apply(entityManager)
+          .setParameter("limit", resultSize)
+          .getResultList();
+      // flushes, which dirty checks every managed entity
+      entityManager.getTransaction().commit();
+      return results;
+    } finally {
+      entityManager.close();
+    }
+  }
+}
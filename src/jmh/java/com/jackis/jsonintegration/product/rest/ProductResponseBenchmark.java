@@ -0,0 +1,82 @@
+package com.jackis.jsonintegration.product.rest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.jackis.jsonintegration.benchmark.AttributeDocuments;
+import com.jackis.jsonintegration.benchmark.JdbcStubs;
+import com.jackis.jsonintegration.hibernate.JsonNodeType;
+import com.jackis.jsonintegration.product.persistence.PriceEntity;
+import com.jackis.jsonintegration.product.persistence.ProductEntity;
+import com.jackis.jsonintegration.product.persistence.ProductRow;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures turning the attributes column of a search result into response JSON, once parsed into
+ * a tree by {@link JsonNodeType} and once passed on as raw JSON text.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ProductResponseBenchmark {
+
+  private static final String[] COLUMN_NAMES = {"attributes"};
+
+  @Param({"3", "100", "1000"})
+  private int keyCount;
+
+  private final JsonNodeType jsonNodeType = new JsonNodeType();
+
+  private ObjectWriter writer;
+
+  private ResultSet resultSet;
+
+  private String attributes;
+
+  @Setup
+  public void setUp() {
+    writer = new ObjectMapper().writerFor(Product.class);
+    attributes = AttributeDocuments.createAsString(keyCount);
+    resultSet = JdbcStubs.resultSet(attributes);
+  }
+
+  @Benchmark
+  public byte[] parsedAttributes() throws SQLException, IOException {
+    final PriceEntity priceEntity = new PriceEntity();
+    priceEntity.setValue(BigDecimal.TEN);
+    priceEntity.setCurrency("EUR");
+
+    final ProductEntity productEntity = new ProductEntity();
+    productEntity.setName("Brown Toast 4000");
+    productEntity.setSku("sku");
+    productEntity.setPriceEntity(priceEntity);
+    productEntity.setAttributes(
+        (JsonNode) jsonNodeType.nullSafeGet(resultSet, COLUMN_NAMES, null, null));
+    return writer.writeValueAsBytes(ProductMapper.toProduct(productEntity));
+  }
+
+  @Benchmark
+  public byte[] rawAttributes() throws SQLException, IOException {
+    final ProductRow productRow = new ProductRow(1L, "Brown Toast 4000", "sku", BigDecimal.TEN,
+        "EUR", resultSet.getString(COLUMN_NAMES[0]));
+    return writer.writeValueAsBytes(ProductMapper.toProduct(productRow));
+  }
+}
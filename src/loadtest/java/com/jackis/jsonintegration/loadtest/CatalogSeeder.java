@@ -0,0 +1,63 @@
+package com.jackis.jsonintegration.loadtest;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+/**
+ * Seeds the catalog with products {@code load-1} up to {@code load-<products>}, generated by the
+ * database in chunks. Products seeded by an earlier run are kept, so a large catalog is only
+ * built once per database.
+ */
+final class CatalogSeeder {
+
+  static final String SKU_PREFIX = "load-";
+
+  static final String[] COLORS = {"green", "black", "blue", "red", "white"};
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(CatalogSeeder.class);
+
+  private static final int CHUNK_SIZE = 100_000;
+
+  private static final String PALETTE = "(ARRAY['" + String.join("', '", COLORS) + "'])";
+
+  // ids come from the sequence, blocks of it are handed out as the application's pooled
+  // optimizer expects
+  private static final String INSERT_PRODUCTS = "INSERT INTO product "
+      + "(id, name, sku, price, currency, attributes) "
+      + "SELECT nextval('product_id_seq'), 'Load Toast ' || i, '" + SKU_PREFIX + "' || i, "
+      + "(i % 10000) / 100.0 + 0.01, 'EUR', jsonb_build_object("
+      + "'colors', jsonb_build_array(" + PALETTE + "[i % 5 + 1], "
+      + PALETTE + "[i / 5 % 5 + 1]), "
+      + "'weight', jsonb_build_object('unit', 'g', 'value', i % 1000), "
+      + "'measures', jsonb_build_object('unit', 'mm', 'height', i % 997, 'width', i % 991, "
+      + "'depth', i % 983)) "
+      + "|| CASE WHEN i % 100 = 0 THEN '{\"promotion\": true}' ELSE '{}' END :: JSONB "
+      + "FROM generate_series(?, ?) AS i "
+      + "ON CONFLICT DO NOTHING";
+
+  private final JdbcTemplate jdbcTemplate;
+
+  CatalogSeeder(JdbcTemplate jdbcTemplate) {
+    this.jdbcTemplate = jdbcTemplate;
+  }
+
+  void seed(final int products) {
+    final Integer existing = jdbcTemplate.queryForObject(
+        "SELECT count(*) FROM product WHERE sku LIKE '" + SKU_PREFIX + "%'", Integer.class);
+    if (existing >= products) {
+      LOGGER.info("Catalog holds {} products already", existing);
+      return;
+    }
+
+    final long start = System.nanoTime();
+    for (int from = existing + 1; from <= products; from += CHUNK_SIZE) {
+      final int to = Math.min(from + CHUNK_SIZE - 1, products);
+      jdbcTemplate.update(INSERT_PRODUCTS, from, to);
+      LOGGER.info("Seeded products up to {} of {}", to, products);
+    }
+    jdbcTemplate.execute("ANALYZE product");
+    LOGGER.info("Seeded {} products in {} s", products - existing,
+        (System.nanoTime() - start) / 1_000_000_000);
+  }
+}
@@ -0,0 +1,180 @@
+package com.jackis.jsonintegration.loadtest;
+
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import java.io.IOException;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.net.http.HttpResponse.BodyHandlers;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+
+/**
+ * Sends a mix of {@link Operation}s from a fixed number of clients.
+ *
+ * <p>With a target rate every client sends on a fixed schedule and latencies are taken from the
+ * time a request was due, not from when it could be sent. A client stuck behind a slow response
+ * therefore records the delay of the requests it could not send, instead of hiding it by sending
+ * fewer of them (coordinated omission). Without a rate every client sends its next request as
+ * soon as it got a response, which measures the throughput limit.
+ *
+ * <p>An overloaded application falls further and further behind the schedule. Requests still due
+ * {@link #REQUEST_TIMEOUT} after the end of a step are not sent any more, they are reported as
+ * dropped.
+ */
+final class LoadGenerator {
+
+  private static final Duration REQUEST_TIMEOUT = Duration.ofSeconds(10);
+
+  private static final double[] PERCENTILES = {50, 90, 99, 99.9};
+
+  private static final String[] PERCENTILE_NAMES = {"p50Ms", "p90Ms", "p99Ms", "p999Ms"};
+
+  private final HttpClient client = HttpClient.newBuilder()
+      .version(HttpClient.Version.HTTP_1_1)
+      .connectTimeout(REQUEST_TIMEOUT)
+      .build();
+
+  private final String baseUrl;
+  private final int products;
+  private final int concurrency;
+  private final Duration warmup;
+  private final Duration duration;
+  private final List<Operation> schedule = new ArrayList<>();
+
+  LoadGenerator(String baseUrl, LoadTestSettings settings) {
+    this.baseUrl = baseUrl;
+    this.products = settings.getProducts();
+    this.concurrency = settings.getConcurrency();
+    this.warmup = settings.getWarmup();
+    this.duration = settings.getDuration();
+    settings.getMix().forEach((operation, weight) -> {
+      for (int idx = 0; idx < weight; idx++) {
+        schedule.add(operation);
+      }
+    });
+  }
+
+  /**
+   * Runs one step of the load test and returns its results.
+   *
+   * @param rate requests per second, or {@code null} to send as fast as possible
+   */
+  ObjectNode run(final Integer rate) throws Exception {
+    final Map<Operation, Recorder> latencies = new EnumMap<>(Operation.class);
+    final Map<Operation, LongAdder> errors = new EnumMap<>(Operation.class);
+    for (final Operation operation : Operation.values()) {
+      latencies.put(operation, new Recorder(3));
+      errors.put(operation, new LongAdder());
+    }
+
+    final long start = System.nanoTime();
+    final long measureFrom = start + warmup.toNanos();
+    final long end = measureFrom + duration.toNanos();
+    final long interval = rate == null ? 0 : TimeUnit.SECONDS.toNanos(concurrency) / rate;
+    final AtomicLong lastResponse = new AtomicLong(measureFrom);
+    final LongAdder dropped = new LongAdder();
+
+    final ExecutorService clients = Executors.newFixedThreadPool(concurrency);
+    try {
+      final List<Future<?>> futures = new ArrayList<>();
+      for (int idx = 0; idx < concurrency; idx++) {
+        final Random random = new Random(idx);
+        // spreads the schedules of the clients evenly over one interval
+        final long firstDue = start + interval * idx / concurrency;
+        futures.add(clients.submit(() -> {
+          for (long due = firstDue; ; due += interval) {
+            if (rate == null) {
+              due = System.nanoTime();
+            } else {
+              LockSupport.parkNanos(due - System.nanoTime());
+            }
+            if (due >= end) {
+              return null;
+            }
+            if (rate != null && System.nanoTime() - end > REQUEST_TIMEOUT.toNanos()) {
+              dropped.add((end - Math.max(due, measureFrom) + interval - 1) / interval);
+              return null;
+            }
+            final Operation operation = schedule.get(random.nextInt(schedule.size()));
+            final boolean succeeded = send(operation.request(baseUrl, random, products)
+                .timeout(REQUEST_TIMEOUT).build());
+            if (due >= measureFrom) {
+              final long now = System.nanoTime();
+              lastResponse.accumulateAndGet(now, Math::max);
+              if (succeeded) {
+                latencies.get(operation).recordValue(now - due);
+              } else {
+                errors.get(operation).increment();
+              }
+            }
+          }
+        }));
+      }
+      for (final Future<?> future : futures) {
+        future.get();
+      }
+    } finally {
+      clients.shutdownNow();
+    }
+
+    // an overloaded application answers the measured requests only after the step's end
+    final double seconds = (lastResponse.get() - measureFrom) / 1e9;
+    final ObjectNode result = JsonNodeFactory.instance.objectNode();
+    result.put("targetRate", rate);
+    result.put("dropped", dropped.sum());
+    final ObjectNode operations = result.putObject("operations");
+    final Histogram all = new Histogram(3);
+    long allErrors = 0;
+    for (final Operation operation : Operation.values()) {
+      final Histogram histogram = latencies.get(operation).getIntervalHistogram();
+      final long operationErrors = errors.get(operation).sum();
+      if (histogram.getTotalCount() + operationErrors > 0) {
+        operations.set(operation.metricName(), summarize(histogram, operationErrors, seconds));
+      }
+      all.add(histogram);
+      allErrors += operationErrors;
+    }
+    result.set("all", summarize(all, allErrors, seconds));
+    return result;
+  }
+
+  private boolean send(final HttpRequest request) {
+    try {
+      final HttpResponse<Void> response = client.send(request, BodyHandlers.discarding());
+      return response.statusCode() < 400;
+    } catch (final IOException ex) {
+      return false;
+    } catch (final InterruptedException ex) {
+      Thread.currentThread().interrupt();
+      return false;
+    }
+  }
+
+  private static ObjectNode summarize(final Histogram histogram, final long errors,
+      final double seconds) {
+    final ObjectNode summary = JsonNodeFactory.instance.objectNode();
+    summary.put("count", histogram.getTotalCount());
+    summary.put("errors", errors);
+    summary.put("throughput", seconds > 0 ? histogram.getTotalCount() / seconds : 0);
+    for (int idx = 0; idx < PERCENTILES.length; idx++) {
+      summary.put(PERCENTILE_NAMES[idx], histogram.getValueAtPercentile(PERCENTILES[idx]) / 1e6);
+    }
+    summary.put("maxMs", histogram.getMaxValue() / 1e6);
+    return summary;
+  }
+}
@@ -0,0 +1,133 @@
+package com.jackis.jsonintegration.loadtest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.jackis.jsonintegration.JsonIntegrationApplication;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.testcontainers.containers.PostgreSQLContainer;
+
+/**
+ * Load test of the product REST interface. Seeds the catalog, then runs one step per target rate
+ * and writes throughput and latency percentiles of every step and operation to a JSON file in
+ * the output directory, named after the start time, so that runs can be compared. See
+ * {@link LoadTestSettings} for the arguments.
+ *
+ * <p>The application is started in this JVM against a Postgres container unless a running one is
+ * given. For numbers close to production run it in its own JVM, ideally on its own machine.
+ */
+public final class LoadTest {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(LoadTest.class);
+
+  private static final DateTimeFormatter FILE_NAME = DateTimeFormatter
+      .ofPattern("'loadtest-'yyyyMMdd-HHmmss'.json'").withZone(ZoneOffset.UTC);
+
+  private LoadTest() {
+  }
+
+  public static void main(final String[] args) throws Exception {
+    final LoadTestSettings settings = LoadTestSettings.parse(args);
+    final Instant startedAt = Instant.now();
+
+    PostgreSQLContainer<?> container = null;
+    ConfigurableApplicationContext context = null;
+    try {
+      String jdbcUrl = settings.getJdbcUrl();
+      String username = settings.getJdbcUsername();
+      String password = settings.getJdbcPassword();
+      if (jdbcUrl == null && settings.getBaseUrl() == null) {
+        container = new PostgreSQLContainer<>("postgres:10.11");
+        container.start();
+        jdbcUrl = container.getJdbcUrl();
+        username = container.getUsername();
+        password = container.getPassword();
+      }
+
+      String baseUrl = settings.getBaseUrl();
+      final JdbcTemplate jdbcTemplate;
+      if (baseUrl == null) {
+        context = new SpringApplicationBuilder(JsonIntegrationApplication.class)
+            .properties(Map.of(
+                "spring.datasource.url", jdbcUrl,
+                "spring.datasource.username", username,
+                "spring.datasource.password", password,
+                "server.port", 0,
+                "spring.main.banner-mode", "off",
+                "logging.level.root", "WARN",
+                "logging.level.com.jackis.jsonintegration.loadtest", "INFO"))
+            .run();
+        baseUrl = "http://localhost:"
+            + ((WebServerApplicationContext) context).getWebServer().getPort();
+        jdbcTemplate = context.getBean(JdbcTemplate.class);
+      } else {
+        jdbcTemplate = jdbcUrl == null ? null
+            : new JdbcTemplate(new DriverManagerDataSource(jdbcUrl, username, password));
+      }
+
+      if (jdbcTemplate != null) {
+        new CatalogSeeder(jdbcTemplate).seed(settings.getProducts());
+      } else {
+        LOGGER.info("No database given, expecting {} seeded products", settings.getProducts());
+      }
+
+      final LoadGenerator loadGenerator = new LoadGenerator(baseUrl, settings);
+      final List<Integer> rates = settings.getRates().isEmpty()
+          ? Collections.singletonList(null) : settings.getRates();
+      final List<ObjectNode> steps = new ArrayList<>();
+      for (final Integer rate : rates) {
+        LOGGER.info("Running step at {} requests per second",
+            rate == null ? "unlimited" : rate);
+        final ObjectNode step = loadGenerator.run(rate);
+        LOGGER.info("Step result: {}", step.get("all"));
+        steps.add(step);
+      }
+
+      writeResults(settings, startedAt, steps);
+    } finally {
+      if (context != null) {
+        context.close();
+      }
+      if (container != null) {
+        container.stop();
+      }
+    }
+  }
+
+  private static void writeResults(final LoadTestSettings settings, final Instant startedAt,
+      final List<ObjectNode> steps) throws Exception {
+    final ObjectMapper mapper = new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT);
+    final ObjectNode results = mapper.createObjectNode();
+    results.put("startedAt", startedAt.toString());
+    results.put("products", settings.getProducts());
+    results.put("concurrency", settings.getConcurrency());
+    results.put("warmupSeconds", settings.getWarmup().toSeconds());
+    results.put("durationSeconds", settings.getDuration().toSeconds());
+    results.set("arguments", mapper.valueToTree(settings.getArguments()));
+    final ArrayNode stepResults = results.putArray("steps");
+    steps.forEach(stepResults::add);
+
+    final Path output = Paths.get(settings.getOutput());
+    Files.createDirectories(output);
+    final Path file = output.resolve(FILE_NAME.format(startedAt));
+    mapper.writeValue(file.toFile(), results);
+    LOGGER.info("Results written to {}", file.toAbsolutePath());
+  }
+}
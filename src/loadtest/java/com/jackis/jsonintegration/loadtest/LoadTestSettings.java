@@ -0,0 +1,107 @@
+package com.jackis.jsonintegration.loadtest;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * Settings of a load test run, given as {@code key=value} program arguments:
+ *
+ * <ul>
+ *   <li>{@code products} - size of the seeded catalog, default 100000</li>
+ *   <li>{@code concurrency} - number of concurrent clients, default 32</li>
+ *   <li>{@code rates} - comma separated request rates per second, one step each; without rates a
+ *   single step sends requests as fast as the clients get responses</li>
+ *   <li>{@code warmup} and {@code duration} - seconds each step warms up and measures, default 10
+ *   and 60</li>
+ *   <li>{@code mix} - relative weights of the operations, default
+ *   {@code containment:40,filter:25,keys:10,lookup:15,insert:10}</li>
+ *   <li>{@code base-url} - URL of a running application, which is started in process
+ *   otherwise</li>
+ *   <li>{@code jdbc-url}, {@code jdbc-username} and {@code jdbc-password} - database to seed and
+ *   to start the application against, a Postgres container is started otherwise</li>
+ *   <li>{@code output} - directory the results are written to, default {@code target/loadtest}</li>
+ * </ul>
+ */
+final class LoadTestSettings {
+
+  private final Map<String, String> arguments;
+
+  private LoadTestSettings(Map<String, String> arguments) {
+    this.arguments = arguments;
+  }
+
+  static LoadTestSettings parse(final String[] args) {
+    final Map<String, String> arguments = new HashMap<>();
+    for (final String arg : args) {
+      final int separator = arg.indexOf('=');
+      if (separator < 1) {
+        throw new IllegalArgumentException("Argument is not of the form key=value: " + arg);
+      }
+      arguments.put(arg.substring(0, separator), arg.substring(separator + 1));
+    }
+    return new LoadTestSettings(arguments);
+  }
+
+  int getProducts() {
+    return Integer.parseInt(arguments.getOrDefault("products", "100000"));
+  }
+
+  int getConcurrency() {
+    return Integer.parseInt(arguments.getOrDefault("concurrency", "32"));
+  }
+
+  List<Integer> getRates() {
+    final String rates = arguments.get("rates");
+    return rates == null || rates.isBlank() ? Collections.emptyList()
+        : Arrays.stream(rates.split(",")).map(String::trim).map(Integer::valueOf)
+            .collect(Collectors.toList());
+  }
+
+  Duration getWarmup() {
+    return Duration.ofSeconds(Long.parseLong(arguments.getOrDefault("warmup", "10")));
+  }
+
+  Duration getDuration() {
+    return Duration.ofSeconds(Long.parseLong(arguments.getOrDefault("duration", "60")));
+  }
+
+  Map<Operation, Integer> getMix() {
+    final Map<Operation, Integer> mix = new EnumMap<>(Operation.class);
+    for (final String weight : arguments
+        .getOrDefault("mix", "containment:40,filter:25,keys:10,lookup:15,insert:10").split(",")) {
+      final String[] parts = weight.trim().split(":");
+      mix.put(Operation.valueOf(parts[0].toUpperCase()), Integer.valueOf(parts[1]));
+    }
+    return mix;
+  }
+
+  String getBaseUrl() {
+    return arguments.get("base-url");
+  }
+
+  String getJdbcUrl() {
+    return arguments.get("jdbc-url");
+  }
+
+  String getJdbcUsername() {
+    return arguments.get("jdbc-username");
+  }
+
+  String getJdbcPassword() {
+    return arguments.getOrDefault("jdbc-password", "");
+  }
+
+  String getOutput() {
+    return arguments.getOrDefault("output", "target/loadtest");
+  }
+
+  Map<String, String> getArguments() {
+    return Collections.unmodifiableMap(arguments);
+  }
+}
@@ -0,0 +1,85 @@
+package com.jackis.jsonintegration.loadtest;
+
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpRequest;
+import java.net.http.HttpRequest.BodyPublishers;
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+import java.util.UUID;
+
+/**
+ * Requests the load test sends to {@code ProductController}. Searches ask for small pages, as a
+ * catalog front end would, and vary their parameters so that not every one is answered from the
+ * search cache.
+ */
+enum Operation {
+
+  CONTAINMENT {
+    @Override
+    HttpRequest.Builder request(final String baseUrl, final Random random, final int products) {
+      return get(baseUrl, "/products?pageSize=20&attributeSearchParameter=" + encode(
+          "{\"colors\": [\"" + color(random) + "\"], \"weight\": {\"value\": "
+              + random.nextInt(1000) + "}}"));
+    }
+  },
+
+  FILTER {
+    @Override
+    HttpRequest.Builder request(final String baseUrl, final Random random, final int products) {
+      return get(baseUrl, "/products?pageSize=20&filter=" + encode(
+          "weight.value<" + random.nextInt(1000)) + "&filter=" + encode(
+          "measures.unit=mm"));
+    }
+  },
+
+  KEYS {
+    @Override
+    HttpRequest.Builder request(final String baseUrl, final Random random, final int products) {
+      return get(baseUrl, "/products?pageSize=20&hasKey=promotion&filter=" + encode(
+          "measures.height>=" + random.nextInt(997)));
+    }
+  },
+
+  LOOKUP {
+    @Override
+    HttpRequest.Builder request(final String baseUrl, final Random random, final int products) {
+      return get(baseUrl,
+          "/products/" + CatalogSeeder.SKU_PREFIX + (random.nextInt(products) + 1));
+    }
+  },
+
+  INSERT {
+    @Override
+    HttpRequest.Builder request(final String baseUrl, final Random random, final int products) {
+      final String product = "{\"name\": \"Inserted Toast\", \"sku\": \"" + UUID.randomUUID()
+          + "\", \"price\": {\"value\": 9.99, \"currency\": \"EUR\"}, \"attributes\": {"
+          + "\"colors\": [\"" + color(random) + "\"], \"weight\": {\"unit\": \"g\", \"value\": "
+          + random.nextInt(1000) + "}}}";
+      return HttpRequest.newBuilder(URI.create(baseUrl + "/products"))
+          .header("Content-Type", "application/json")
+          .POST(BodyPublishers.ofString(product));
+    }
+  };
+
+  abstract HttpRequest.Builder request(String baseUrl, Random random, int products);
+
+  String metricName() {
+    return name().toLowerCase();
+  }
+
+  private static HttpRequest.Builder get(final String baseUrl, final String path) {
+    // the controller only accepts requests declaring JSON content
+    return HttpRequest.newBuilder(URI.create(baseUrl + path))
+        .header("Content-Type", "application/json")
+        .GET();
+  }
+
+  private static String color(final Random random) {
+    return CatalogSeeder.COLORS[random.nextInt(CatalogSeeder.COLORS.length)];
+  }
+
+  private static String encode(final String value) {
+    return URLEncoder.encode(value, StandardCharsets.UTF_8);
+  }
+}
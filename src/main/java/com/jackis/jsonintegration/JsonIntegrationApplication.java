@@ -2,8 +2,12 @@ package com.jackis.jsonintegration;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.boot.context.properties.ConfigurationPropertiesScan;
+import org.springframework.cache.annotation.EnableCaching;
 
 @SpringBootApplication
+@ConfigurationPropertiesScan
+@EnableCaching
 public class JsonIntegrationApplication {
 
   public static void main(String[] args) {
@@ -0,0 +1,66 @@
+package com.jackis.jsonintegration.datasource;
+
+import java.time.Duration;
+import javax.servlet.http.Cookie;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+import org.springframework.web.util.WebUtils;
+
+/**
+ * The time after a client wrote products during which its reads go to the primary. Its end is
+ * sent to the client in the {@value #COOKIE_NAME} cookie, so the window holds whichever
+ * application instance serves the next request of the client.
+ */
+public class ReadYourWritesWindow {
+
+  static final String COOKIE_NAME = "products-primary-reads-until";
+
+  private final Duration window;
+
+  public ReadYourWritesWindow(final Duration window) {
+    this.window = window;
+  }
+
+  /**
+   * Returns whether the client of the current request wrote products less than the window ago.
+   */
+  boolean isOpen() {
+    final HttpServletRequest request = currentRequestAttributes() == null ? null
+        : currentRequestAttributes().getRequest();
+    final Cookie cookie = request == null ? null : WebUtils.getCookie(request, COOKIE_NAME);
+    if (window.isZero() || cookie == null) {
+      return false;
+    }
+    try {
+      return Long.parseLong(cookie.getValue()) > System.currentTimeMillis();
+    } catch (final NumberFormatException ex) {
+      return false;
+    }
+  }
+
+  /**
+   * Opens the window for the client of the current request.
+   */
+  void open() {
+    final HttpServletResponse response = currentRequestAttributes() == null ? null
+        : currentRequestAttributes().getResponse();
+    if (window.isZero() || response == null || response.isCommitted()) {
+      return;
+    }
+    final Cookie cookie = new Cookie(COOKIE_NAME,
+        Long.toString(System.currentTimeMillis() + window.toMillis()));
+    cookie.setMaxAge((int) Math.max(1, window.getSeconds()));
+    cookie.setPath("/");
+    cookie.setHttpOnly(true);
+    response.addCookie(cookie);
+  }
+
+  private static ServletRequestAttributes currentRequestAttributes() {
+    final RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+    return attributes instanceof ServletRequestAttributes
+        ? (ServletRequestAttributes) attributes : null;
+  }
+}
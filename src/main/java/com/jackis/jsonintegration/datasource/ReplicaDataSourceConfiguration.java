@@ -0,0 +1,83 @@
+package com.jackis.jsonintegration.datasource;
+
+import com.zaxxer.hikari.HikariDataSource;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import javax.sql.DataSource;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.core.env.Environment;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.util.StringUtils;
+
+/**
+ * Replaces the data source of Spring Boot with one routing read-only transactions to the
+ * replicas once {@code products.replicas.enabled} is set. The primary is configured through
+ * {@code spring.datasource} as before.
+ *
+ * <p>Spring Boot looks up the data source whenever a {@link DataSource} bean has been created, so
+ * the pools and the {@link ReplicaRoutingDataSource} are built along with it instead of as beans
+ * it depends on.
+ */
+@Configuration(proxyBeanMethods = false)
+@ConditionalOnProperty(prefix = "products.replicas", name = "enabled", havingValue = "true")
+public class ReplicaDataSourceConfiguration {
+
+  /**
+   * The data source of the entity manager factory, Flyway and all {@code JdbcTemplate}s.
+   */
+  @Bean
+  @Primary
+  public DataSource dataSource(final DataSourceProperties dataSourceProperties,
+      final ReplicaProperties replicaProperties, final Environment environment) {
+    final List<String> urls = replicaProperties.getUrls();
+    if (urls.isEmpty()) {
+      throw new IllegalArgumentException("Replica routing requires at least one replica URL");
+    }
+
+    final HikariDataSource primary = dataSourceProperties.initializeDataSourceBuilder()
+        .type(HikariDataSource.class).build();
+    if (StringUtils.hasText(dataSourceProperties.getName())) {
+      primary.setPoolName(dataSourceProperties.getName());
+    }
+    Binder.get(environment).bind("spring.datasource.hikari", Bindable.ofInstance(primary));
+
+    final Map<String, DataSource> replicas = new LinkedHashMap<>();
+    for (int index = 0; index < urls.size(); index++) {
+      final HikariDataSource replica = new HikariDataSource();
+      replica.setPoolName("replica-" + index);
+      replica.setJdbcUrl(urls.get(index));
+      replica.setDriverClassName(dataSourceProperties.determineDriverClassName());
+      replica.setUsername(replicaProperties.getUsername() != null
+          ? replicaProperties.getUsername() : dataSourceProperties.determineUsername());
+      replica.setPassword(replicaProperties.getPassword() != null
+          ? replicaProperties.getPassword() : dataSourceProperties.determinePassword());
+      replica.setMaximumPoolSize(replicaProperties.getMaximumPoolSize());
+      replica.setConnectionTimeout(replicaProperties.getConnectionTimeout().toMillis());
+      // connects on first use, a replica that is down must not keep the application from starting
+      replica.setInitializationFailTimeout(-1);
+      replica.setReadOnly(true);
+      replicas.put(replica.getPoolName(), replica);
+    }
+
+    return new LazyConnectionDataSourceProxy(new ReplicaRoutingDataSource(primary, replicas,
+        replicaProperties.getHealthCheckInterval(), replicaProperties.getMaxLag(),
+        new ReadYourWritesWindow(replicaProperties.getReadYourWritesWindow())));
+  }
+
+  /**
+   * Exposes the routing data source to receive {@code ProductsChangedEvent}s, run the health
+   * checks and publish its metrics.
+   */
+  @Bean
+  public ReplicaRoutingDataSource replicaRoutingDataSource(final DataSource dataSource) {
+    return (ReplicaRoutingDataSource) ((LazyConnectionDataSourceProxy) dataSource)
+        .getTargetDataSource();
+  }
+}
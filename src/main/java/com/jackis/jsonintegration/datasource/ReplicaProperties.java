@@ -0,0 +1,129 @@
+package com.jackis.jsonintegration.datasource;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@ConfigurationProperties(prefix = "products.replicas")
+public class ReplicaProperties {
+
+  /**
+   * Whether read-only transactions are routed to the replicas, see
+   * {@link ReplicaRoutingDataSource}.
+   */
+  private boolean enabled = false;
+
+  /**
+   * JDBC URLs of the replicas.
+   */
+  private List<String> urls = new ArrayList<>();
+
+  /**
+   * Login user of the replicas, the one of the primary if not set.
+   */
+  private String username;
+
+  /**
+   * Login password of the replicas, the one of the primary if not set.
+   */
+  private String password;
+
+  /**
+   * Maximum number of connections to each replica.
+   */
+  private int maximumPoolSize = 10;
+
+  /**
+   * How long a read waits for a connection to a replica before it falls back to the primary.
+   */
+  private Duration connectionTimeout = Duration.ofSeconds(1);
+
+  /**
+   * Interval between two health checks of every replica.
+   */
+  private Duration healthCheckInterval = Duration.ofSeconds(1);
+
+  /**
+   * Replication lag above which a replica receives no reads.
+   */
+  private Duration maxLag = Duration.ofSeconds(10);
+
+  /**
+   * How long reads of a client go to the primary after the client wrote products, across all
+   * application instances. Zero disables it.
+   */
+  private Duration readYourWritesWindow = Duration.ZERO;
+
+  public boolean isEnabled() {
+    return enabled;
+  }
+
+  public void setEnabled(boolean enabled) {
+    this.enabled = enabled;
+  }
+
+  public List<String> getUrls() {
+    return urls;
+  }
+
+  public void setUrls(List<String> urls) {
+    this.urls = urls;
+  }
+
+  public String getUsername() {
+    return username;
+  }
+
+  public void setUsername(String username) {
+    this.username = username;
+  }
+
+  public String getPassword() {
+    return password;
+  }
+
+  public void setPassword(String password) {
+    this.password = password;
+  }
+
+  public int getMaximumPoolSize() {
+    return maximumPoolSize;
+  }
+
+  public void setMaximumPoolSize(int maximumPoolSize) {
+    this.maximumPoolSize = maximumPoolSize;
+  }
+
+  public Duration getConnectionTimeout() {
+    return connectionTimeout;
+  }
+
+  public void setConnectionTimeout(Duration connectionTimeout) {
+    this.connectionTimeout = connectionTimeout;
+  }
+
+  public Duration getHealthCheckInterval() {
+    return healthCheckInterval;
+  }
+
+  public void setHealthCheckInterval(Duration healthCheckInterval) {
+    this.healthCheckInterval = healthCheckInterval;
+  }
+
+  public Duration getMaxLag() {
+    return maxLag;
+  }
+
+  public void setMaxLag(Duration maxLag) {
+    this.maxLag = maxLag;
+  }
+
+  public Duration getReadYourWritesWindow() {
+    return readYourWritesWindow;
+  }
+
+  public void setReadYourWritesWindow(Duration readYourWritesWindow) {
+    this.readYourWritesWindow = readYourWritesWindow;
+  }
+}
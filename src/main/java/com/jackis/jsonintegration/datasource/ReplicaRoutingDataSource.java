@@ -0,0 +1,242 @@
+package com.jackis.jsonintegration.datasource;
+
+import com.jackis.jsonintegration.product.ProductsChangedEvent;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import java.io.Closeable;
+import java.io.IOException;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import javax.sql.DataSource;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.AbstractDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Hands out connections of read-only transactions from one of the replicas, all others from the
+ * primary. Healthy replicas take turns. The read-only flag of a transaction is only set after the
+ * transaction asked for its connection, so this data source has to be wrapped in a
+ * {@link org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy}, which asks for the
+ * connection when the first statement runs.
+ *
+ * <p>A replica is healthy while its last health check succeeded with a replication lag of at
+ * most {@code maxLag}. Once it replayed the WAL the primary had written when the check started,
+ * it has no lag. It only receives reads once it has replayed the last write made through
+ * this instance, otherwise a search following a write could cache results missing the write under
+ * the new catalog version. A server that is not in recovery counts as up to date, so two
+ * independent PostgreSQL instances can stand in for primary and replica locally. A replica
+ * failing to hand out a connection is unhealthy until its next successful check, the read falls
+ * back to the primary.
+ */
+public class ReplicaRoutingDataSource extends AbstractDataSource implements InitializingBean,
+    DisposableBean, MeterBinder {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(ReplicaRoutingDataSource.class);
+
+  /* a replica which has replayed all WAL the primary had written before the check has no lag,
+   * however long ago it replayed. Its own receive position is no reference, a replica
+   * disconnected from the primary has replayed all it received as well. */
+  private static final String HEALTH_CHECK = "SELECT CASE WHEN pg_is_in_recovery() "
+      + "THEN CAST(pg_last_wal_replay_lsn() - '0/0'::pg_lsn AS BIGINT) END AS replay_lsn, "
+      + "CASE WHEN NOT pg_is_in_recovery() "
+      + "OR CAST(pg_last_wal_replay_lsn() - '0/0'::pg_lsn AS BIGINT) >= ? THEN 0 "
+      + "ELSE CAST(extract(epoch FROM now() - pg_last_xact_replay_timestamp()) * 1000 AS BIGINT) "
+      + "END AS lag_millis";
+
+  private static final class Replica {
+
+    private final String name;
+    private final DataSource dataSource;
+    private final JdbcTemplate jdbcTemplate;
+    private volatile boolean healthy;
+    private volatile long replayLsn;
+    private volatile long lagMillis;
+
+    private Replica(String name, DataSource dataSource, Duration queryTimeout) {
+      this.name = name;
+      this.dataSource = dataSource;
+      this.jdbcTemplate = new JdbcTemplate(dataSource);
+      this.jdbcTemplate.setQueryTimeout((int) Math.max(1, queryTimeout.getSeconds()));
+    }
+  }
+
+  private final DataSource primary;
+  private final JdbcTemplate primaryJdbcTemplate;
+  private final List<Replica> replicas = new ArrayList<>();
+  private final Duration healthCheckInterval;
+  private final Duration maxLag;
+  private final ReadYourWritesWindow readYourWritesWindow;
+
+  private final AtomicInteger nextReplica = new AtomicInteger();
+  private final AtomicLong lastWriteLsn = new AtomicLong();
+
+  private ScheduledExecutorService healthChecks;
+
+  public ReplicaRoutingDataSource(final DataSource primary, final Map<String, DataSource> replicas,
+      final Duration healthCheckInterval, final Duration maxLag,
+      final ReadYourWritesWindow readYourWritesWindow) {
+    this.primary = primary;
+    this.primaryJdbcTemplate = new JdbcTemplate(primary);
+    replicas.forEach((name, dataSource) ->
+        this.replicas.add(new Replica(name, dataSource, healthCheckInterval)));
+    this.healthCheckInterval = healthCheckInterval;
+    this.maxLag = maxLag;
+    this.readYourWritesWindow = readYourWritesWindow;
+  }
+
+  @Override
+  public Connection getConnection() throws SQLException {
+    if (TransactionSynchronizationManager.isCurrentTransactionReadOnly()
+        && !readYourWritesWindow.isOpen()) {
+      final Replica replica = nextReplica();
+      if (replica != null) {
+        try {
+          return replica.dataSource.getConnection();
+        } catch (final SQLException ex) {
+          LOGGER.warn("Replica {} is unavailable, reading from the primary", replica.name, ex);
+          replica.healthy = false;
+        }
+      }
+    }
+    return primary.getConnection();
+  }
+
+  @Override
+  public Connection getConnection(final String username, final String password)
+      throws SQLException {
+    return primary.getConnection(username, password);
+  }
+
+  /**
+   * Unwraps to the pool of the primary as well, so its pool metrics are published.
+   */
+  @Override
+  public <T> T unwrap(final Class<T> iface) throws SQLException {
+    return iface.isInstance(this) ? iface.cast(this) : primary.unwrap(iface);
+  }
+
+  @Override
+  public boolean isWrapperFor(final Class<?> iface) throws SQLException {
+    return iface.isInstance(this) || primary.isWrapperFor(iface);
+  }
+
+  /**
+   * Remembers the WAL position of the primary after products have been written, before the
+   * caches move on to the new catalog version.
+   */
+  @EventListener
+  @Order(Ordered.HIGHEST_PRECEDENCE)
+  public void onProductsChanged(final ProductsChangedEvent event) {
+    final Long lsn = primaryLsn();
+    if (lsn != null) {
+      lastWriteLsn.accumulateAndGet(lsn, Math::max);
+    }
+    readYourWritesWindow.open();
+  }
+
+  /**
+   * Returns the current WAL position of the primary, or {@code null} if it cannot be read.
+   */
+  private Long primaryLsn() {
+    try {
+      return primaryJdbcTemplate.queryForObject(
+          "SELECT CAST(pg_current_wal_lsn() - '0/0'::pg_lsn AS BIGINT)", Long.class);
+    } catch (final DataAccessException ex) {
+      LOGGER.warn("Could not read the WAL position of the primary", ex);
+      return null;
+    }
+  }
+
+  @Override
+  public void afterPropertiesSet() {
+    healthChecks = Executors.newSingleThreadScheduledExecutor(runnable -> {
+      final Thread thread = new Thread(runnable, "replica-health-check");
+      thread.setDaemon(true);
+      return thread;
+    });
+    healthChecks.scheduleWithFixedDelay(this::checkHealth, 0,
+        healthCheckInterval.toMillis(), TimeUnit.MILLISECONDS);
+  }
+
+  @Override
+  public void destroy() throws IOException {
+    healthChecks.shutdownNow();
+    for (final Replica replica : replicas) {
+      if (replica.dataSource instanceof Closeable) {
+        ((Closeable) replica.dataSource).close();
+      }
+    }
+    if (primary instanceof Closeable) {
+      ((Closeable) primary).close();
+    }
+  }
+
+  @Override
+  public void bindTo(final MeterRegistry registry) {
+    for (final Replica replica : replicas) {
+      Gauge.builder("products.replica.healthy", replica, r -> r.healthy ? 1 : 0)
+          .tag("replica", replica.name)
+          .register(registry);
+      Gauge.builder("products.replica.lag", replica, r -> r.lagMillis)
+          .tag("replica", replica.name)
+          .baseUnit("milliseconds")
+          .register(registry);
+    }
+  }
+
+  void checkHealth() {
+    final Long primaryLsn = primaryLsn();
+    for (final Replica replica : replicas) {
+      final boolean wasHealthy = replica.healthy;
+      try {
+        replica.jdbcTemplate.query(HEALTH_CHECK, ps -> ps.setObject(1, primaryLsn, Types.BIGINT),
+            resultSet -> {
+              final long replayLsn = resultSet.getLong("replay_lsn");
+              replica.replayLsn = resultSet.wasNull() ? Long.MAX_VALUE : replayLsn;
+              replica.lagMillis = resultSet.getLong("lag_millis");
+            });
+        replica.healthy = replica.lagMillis <= maxLag.toMillis();
+      } catch (final RuntimeException ex) {
+        replica.healthy = false;
+        if (wasHealthy) {
+          LOGGER.warn("Health check of replica {} failed", replica.name, ex);
+        }
+      }
+      if (replica.healthy != wasHealthy) {
+        LOGGER.info("Replica {} is {}, lag {} ms", replica.name,
+            replica.healthy ? "healthy" : "unhealthy", replica.lagMillis);
+      }
+    }
+  }
+
+  private Replica nextReplica() {
+    final long requiredLsn = lastWriteLsn.get();
+    for (int attempt = 0; attempt < replicas.size(); attempt++) {
+      final Replica replica = replicas
+          .get(Math.floorMod(nextReplica.getAndIncrement(), replicas.size()));
+      if (replica.healthy && replica.replayLsn >= requiredLsn) {
+        return replica;
+      }
+    }
+    return null;
+  }
+}
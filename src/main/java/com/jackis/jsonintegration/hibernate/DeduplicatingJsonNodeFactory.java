@@ -0,0 +1,74 @@
+package com.jackis.jsonintegration.hibernate;
+
+import com.fasterxml.jackson.databind.node.IntNode;
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import com.fasterxml.jackson.databind.node.NumericNode;
+import com.fasterxml.jackson.databind.node.TextNode;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Node factory sharing the immutable value nodes of attribute documents across documents. Loaded
+ * products repeat the same short values ("g", "mm", "black") and small numbers over and over,
+ * without sharing every product holds its own copies.
+ *
+ * <p>Short texts go through a fixed size table indexed by their hash. A slot holds the last text
+ * put into it, so a colliding text replaces it and the table never grows. Lookups and updates are
+ * plain volatile reads and writes, losing an update to a concurrent one only costs a duplicate.
+ * Integers from 0 up to the table size are shared without collisions.
+ *
+ * <p>Field names are not deduplicated, object nodes keep the names the parser hands them.
+ * {@code JsonNodeFootprintBenchmark} measures the heap they take with and without the canonical
+ * names of the parser.
+ */
+public class DeduplicatingJsonNodeFactory extends JsonNodeFactory {
+
+  private static final long serialVersionUID = 1L;
+
+  private final int maxTextLength;
+
+  private final AtomicReferenceArray<TextNode> texts;
+
+  private final AtomicReferenceArray<IntNode> ints;
+
+  /**
+   * @param maxTextLength length up to which texts are shared
+   * @param tableSize     number of shared texts and integers, rounded up to a power of two
+   */
+  public DeduplicatingJsonNodeFactory(final int maxTextLength, final int tableSize) {
+    super(false);
+    final int size = Integer.highestOneBit(Math.max(tableSize - 1, 1)) << 1;
+    this.maxTextLength = maxTextLength;
+    this.texts = new AtomicReferenceArray<>(size);
+    this.ints = new AtomicReferenceArray<>(size);
+  }
+
+  @Override
+  public TextNode textNode(final String text) {
+    if (text == null || text.isEmpty() || text.length() > maxTextLength) {
+      return super.textNode(text);
+    }
+    final int hash = text.hashCode();
+    final int slot = (hash ^ (hash >>> 16)) & (texts.length() - 1);
+    final TextNode shared = texts.get(slot);
+    if (shared != null && shared.textValue().equals(text)) {
+      return shared;
+    }
+    final TextNode node = new TextNode(text);
+    texts.set(slot, node);
+    return node;
+  }
+
+  @Override
+  public NumericNode numberNode(final int value) {
+    if (value < 0 || value >= ints.length()) {
+      return super.numberNode(value);
+    }
+    final IntNode shared = ints.get(value);
+    if (shared != null) {
+      return shared;
+    }
+    final IntNode node = IntNode.valueOf(value);
+    ints.set(value, node);
+    return node;
+  }
+}
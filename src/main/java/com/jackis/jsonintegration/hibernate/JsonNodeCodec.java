@@ -0,0 +1,85 @@
+package com.jackis.jsonintegration.hibernate;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import com.fasterxml.jackson.dataformat.smile.databind.SmileMapper;
+import java.io.IOException;
+import java.util.Objects;
+
+/**
+ * Converts JSONB column content from and to {@link JsonNode} trees with pre-built, thread-safe
+ * {@link ObjectReader} and {@link ObjectWriter} instances.
+ *
+ * <p>Hibernate instantiates {@link JsonNodeType} itself, so the codec it uses is kept in a static
+ * holder. It defaults to a plain {@link ObjectMapper} and is replaced by the Spring configured one
+ * through {@link JsonNodeTypeConfiguration}, together with a {@link DeduplicatingJsonNodeFactory}
+ * if deduplication is enabled.
+ */
+public final class JsonNodeCodec {
+
+  private static final ObjectReader BINARY_READER = new SmileMapper().readerFor(JsonNode.class);
+
+  private static final ObjectWriter BINARY_WRITER = new SmileMapper().writerFor(JsonNode.class);
+
+  private static volatile JsonNodeCodec shared = new JsonNodeCodec(new ObjectMapper());
+
+  private final ObjectReader reader;
+
+  private final ObjectWriter writer;
+
+  private final ObjectReader binaryReader;
+
+  public JsonNodeCodec(final ObjectMapper mapper) {
+    this(mapper, mapper.getNodeFactory());
+  }
+
+  /**
+   * @param nodeFactory factory of the nodes of read documents, both from JSON and from Smile
+   */
+  public JsonNodeCodec(final ObjectMapper mapper, final JsonNodeFactory nodeFactory) {
+    this.reader = mapper.readerFor(JsonNode.class).with(nodeFactory);
+    this.writer = mapper.writerFor(JsonNode.class);
+    this.binaryReader = BINARY_READER.with(nodeFactory);
+  }
+
+  public static JsonNodeCodec shared() {
+    return shared;
+  }
+
+  public static void useObjectMapper(final ObjectMapper mapper) {
+    shared = new JsonNodeCodec(Objects.requireNonNull(mapper));
+  }
+
+  public static void useObjectMapper(final ObjectMapper mapper,
+      final JsonNodeFactory nodeFactory) {
+    shared = new JsonNodeCodec(Objects.requireNonNull(mapper), Objects.requireNonNull(nodeFactory));
+  }
+
+  /**
+   * Parses the UTF-8 text of a JSONB column as the driver received it.
+   */
+  public JsonNode read(final byte[] content) throws IOException {
+    return reader.readTree(content);
+  }
+
+  public String write(final JsonNode value) throws JsonProcessingException {
+    // Jackson writes through its thread local, recycled buffers
+    return writer.writeValueAsString(value);
+  }
+
+  /**
+   * Encodes {@code value} as Smile, a binary JSON format that is more compact than the text and
+   * faster to parse.
+   */
+  public byte[] writeBinary(final JsonNode value) throws JsonProcessingException {
+    return BINARY_WRITER.writeValueAsBytes(value);
+  }
+
+  public JsonNode readBinary(final byte[] content) throws IOException {
+    return binaryReader.readTree(content);
+  }
+}
@@ -1,20 +1,97 @@
 package com.jackis.jsonintegration.hibernate;
 
 import com.fasterxml.jackson.databind.JsonNode;
-import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.Timer;
 import org.hibernate.HibernateException;
 import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.hibernate.jpa.TypedParameterValue;
+import org.hibernate.type.CustomType;
+import org.hibernate.type.Type;
 import org.hibernate.usertype.UserType;
 
-import java.io.*;
-import java.nio.charset.StandardCharsets;
+import java.io.Serializable;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Types;
+import java.util.Arrays;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
 
 public class JsonNodeType implements UserType {
 
+  private static final Type JSONB = new CustomType(new JsonNodeType());
+
+  /* Hibernate instantiates user types itself, so they are registered with the global registry,
+   * which Spring Boot adds its registry to. */
+  private static final Timer PARSE = Timer.builder("products.jsonb.parse")
+      .description("Time spent parsing attribute documents read from the database")
+      .register(Metrics.globalRegistry);
+
+  private static final Timer SERIALIZE = Timer.builder("products.jsonb.serialize")
+      .description("Time spent serializing attribute documents written to the database")
+      .register(Metrics.globalRegistry);
+
+  private static final DistributionSummary READ_SIZE = documentSize("read");
+
+  private static final DistributionSummary WRITE_SIZE = documentSize("write");
+
+  private static final DistributionSummary CACHED_SIZE = DistributionSummary
+      .builder("products.jsonb.cached.size")
+      .description("Size of the attribute documents stored in the second level cache")
+      .baseUnit("bytes")
+      .register(Metrics.globalRegistry);
+
+  private static volatile int metricsSampleRate = 1;
+
+  private final JsonNodeCodec codec;
+
+  public JsonNodeType() {
+    this(null);
+  }
+
+  public JsonNodeType(final JsonNodeCodec codec) {
+    this.codec = codec;
+  }
+
+  private static DistributionSummary documentSize(final String operation) {
+    return DistributionSummary.builder("products.jsonb.size")
+        .description("Size of the attribute documents as UTF-8")
+        .baseUnit("bytes")
+        .tag("operation", operation)
+        .register(Metrics.globalRegistry);
+  }
+
+  /**
+   * Times and measures one in {@code sampleRate} documents read or written instead of every one,
+   * as configured by {@link JsonNodeTypeConfiguration}.
+   */
+  public static void sampleMetrics(final int sampleRate) {
+    if (sampleRate < 1) {
+      throw new IllegalArgumentException("Sample rate must be positive: " + sampleRate);
+    }
+    metricsSampleRate = sampleRate;
+  }
+
+  private static boolean sampled() {
+    final int sampleRate = metricsSampleRate;
+    return sampleRate == 1 || ThreadLocalRandom.current().nextInt(sampleRate) == 0;
+  }
+
+  private JsonNodeCodec codec() {
+    return codec != null ? codec : JsonNodeCodec.shared();
+  }
+
+  /**
+   * Wraps {@code value} so it is bound to a native query as a JSONB parameter through this type,
+   * which makes a {@code CAST} in the query text unnecessary.
+   */
+  public static TypedParameterValue bind(final JsonNode value) {
+    return new TypedParameterValue(JSONB, value);
+  }
+
   @Override
   public int[] sqlTypes() {
     return new int[]{Types.JAVA_OBJECT};
@@ -29,15 +106,29 @@ public class JsonNodeType implements UserType {
   public Object nullSafeGet(ResultSet rs, String[] names,
       SharedSessionContractImplementor sharedSessionContractImplementor, Object value)
       throws HibernateException, SQLException {
-    final String cellContent = rs.getString(names[0]);
+    // PostgreSQL sends JSONB as UTF-8 text, which the driver returns as received instead of
+    // decoding it into a String first
+    final byte[] cellContent = rs.getBytes(names[0]);
     if (cellContent == null) {
       return null;
     }
+    if (!sampled()) {
+      return read(cellContent);
+    }
+    READ_SIZE.record(cellContent.length);
+    final long start = System.nanoTime();
+    try {
+      return read(cellContent);
+    } finally {
+      PARSE.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+    }
+  }
+
+  private JsonNode read(final byte[] cellContent) {
     try {
-      final ObjectMapper mapper = new ObjectMapper();
-      return mapper.readTree(cellContent.getBytes(StandardCharsets.UTF_8));
+      return codec().read(cellContent);
     } catch (final Exception ex) {
-      throw new RuntimeException("Failed to convert String to JsonNode: " + ex.getMessage(), ex);
+      throw new RuntimeException("Failed to convert JSONB to JsonNode: " + ex.getMessage(), ex);
     }
   }
 
@@ -49,30 +140,53 @@ public class JsonNodeType implements UserType {
       preparedStatement.setNull(idx, Types.OTHER);
       return;
     }
+    if (!sampled()) {
+      preparedStatement.setObject(idx, write((JsonNode) value), Types.OTHER);
+      return;
+    }
+    final String document;
+    final long start = System.nanoTime();
+    try {
+      document = write((JsonNode) value);
+    } finally {
+      SERIALIZE.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+    }
+    WRITE_SIZE.record(utf8Length(document));
+    preparedStatement.setObject(idx, document, Types.OTHER);
+  }
+
+  private String write(final JsonNode value) {
     try {
-      final ObjectMapper mapper = new ObjectMapper();
-      preparedStatement.setObject(idx, mapper.writeValueAsString(value), Types.OTHER);
+      return codec().write(value);
     } catch (final Exception ex) {
       throw new RuntimeException("Failed to convert JsonNode to String: " + ex.getMessage(), ex);
     }
   }
 
+  /**
+   * Counts the UTF-8 bytes of {@code value} without encoding it.
+   */
+  static int utf8Length(final String value) {
+    int length = value.length();
+    for (int i = 0; i < value.length(); i++) {
+      final char c = value.charAt(i);
+      if (c >= 0x800) {
+        // three bytes, or four for a surrogate pair of two chars
+        length += Character.isSurrogate(c) ? 1 : 2;
+      } else if (c >= 0x80) {
+        length++;
+      }
+    }
+    return length;
+  }
+
   @Override
   public Object deepCopy(final Object value) throws HibernateException {
-    try {
-      // use serialization to create a deep copy
-      ByteArrayOutputStream bos = new ByteArrayOutputStream();
-      ObjectOutputStream oos = new ObjectOutputStream(bos);
-      oos.writeObject(value);
-      oos.flush();
-      oos.close();
-      bos.close();
-
-      ByteArrayInputStream bais = new ByteArrayInputStream(bos.toByteArray());
-      return new ObjectInputStream(bais).readObject();
-    } catch (ClassNotFoundException | IOException ex) {
-      throw new HibernateException(ex);
+    if (value == null) {
+      return null;
     }
+    // walks the tree structurally, value nodes are immutable and shared between both copies
+    return ((JsonNode) value).deepCopy();
   }
 
   @Override
@@ -80,14 +194,34 @@ public class JsonNodeType implements UserType {
     return true;
   }
 
+  /**
+   * Second level cache entries keep the attributes as Smile encoded bytes, which are a fraction
+   * of the size of a serialized tree and cheap to decode again.
+   */
   @Override
   public Serializable disassemble(final Object value) throws HibernateException {
-    return (Serializable) this.deepCopy(value);
+    if (value == null) {
+      return null;
+    }
+    try {
+      final byte[] document = codec().writeBinary((JsonNode) value);
+      CACHED_SIZE.record(document.length);
+      return document;
+    } catch (final Exception ex) {
+      throw new RuntimeException("Failed to convert JsonNode to Smile: " + ex.getMessage(), ex);
+    }
   }
 
   @Override
   public Object assemble(final Serializable cached, final Object owner) throws HibernateException {
-    return this.deepCopy(cached);
+    if (cached == null) {
+      return null;
+    }
+    try {
+      return codec().readBinary((byte[]) cached);
+    } catch (final Exception ex) {
+      throw new RuntimeException("Failed to convert Smile to JsonNode: " + ex.getMessage(), ex);
+    }
   }
 
   @Override
@@ -96,16 +230,24 @@ public class JsonNodeType implements UserType {
     return this.deepCopy(original);
   }
 
+  /* Query cache keys hold parameters in their disassembled form, which are compared with this
+   * type as well, so the Smile documents are compared by content. */
   @Override
   public boolean equals(final Object obj1, final Object obj2) throws HibernateException {
     if (obj1 == null) {
       return obj2 == null;
     }
+    if (obj1 instanceof byte[] && obj2 instanceof byte[]) {
+      return Arrays.equals((byte[]) obj1, (byte[]) obj2);
+    }
     return obj1.equals(obj2);
   }
 
   @Override
   public int hashCode(final Object obj) throws HibernateException {
+    if (obj instanceof byte[]) {
+      return Arrays.hashCode((byte[]) obj);
+    }
     return obj.hashCode();
   }
 
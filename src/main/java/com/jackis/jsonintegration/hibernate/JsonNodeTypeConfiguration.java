@@ -0,0 +1,29 @@
+package com.jackis.jsonintegration.hibernate;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.jackis.jsonintegration.hibernate.JsonbProperties.Deduplication;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class JsonNodeTypeConfiguration {
+
+  /**
+   * Hands the Spring configured {@link ObjectMapper} to {@link JsonNodeCodec}. Customizers run
+   * while the entity manager factory is created, so the codec is in place before the first row is
+   * read. The metrics sample rate of {@link JsonNodeType} is set along with it.
+   */
+  @Bean
+  public HibernatePropertiesCustomizer jsonNodeCodecCustomizer(final ObjectMapper objectMapper,
+      final JsonbProperties jsonbProperties) {
+    JsonNodeType.sampleMetrics(jsonbProperties.getMetricsSampleRate());
+    final Deduplication deduplication = jsonbProperties.getDeduplication();
+    if (!deduplication.isEnabled()) {
+      return hibernateProperties -> JsonNodeCodec.useObjectMapper(objectMapper);
+    }
+    return hibernateProperties -> JsonNodeCodec.useObjectMapper(objectMapper,
+        new DeduplicatingJsonNodeFactory(deduplication.getMaxTextLength(),
+            deduplication.getTableSize()));
+  }
+}
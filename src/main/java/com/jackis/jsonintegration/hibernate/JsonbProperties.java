@@ -0,0 +1,70 @@
+package com.jackis.jsonintegration.hibernate;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@ConfigurationProperties(prefix = "products.jsonb")
+public class JsonbProperties {
+
+  public static class Deduplication {
+
+    /**
+     * Whether read attribute documents share equal short texts and small integers, see
+     * {@link DeduplicatingJsonNodeFactory}.
+     */
+    private boolean enabled = false;
+
+    /**
+     * Length up to which texts are shared.
+     */
+    private int maxTextLength = 32;
+
+    /**
+     * Number of shared texts and of shared integers, starting from 0.
+     */
+    private int tableSize = 4096;
+
+    public boolean isEnabled() {
+      return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+      this.enabled = enabled;
+    }
+
+    public int getMaxTextLength() {
+      return maxTextLength;
+    }
+
+    public void setMaxTextLength(int maxTextLength) {
+      this.maxTextLength = maxTextLength;
+    }
+
+    public int getTableSize() {
+      return tableSize;
+    }
+
+    public void setTableSize(int tableSize) {
+      this.tableSize = tableSize;
+    }
+  }
+
+  private final Deduplication deduplication = new Deduplication();
+
+  /**
+   * One in this many attribute documents read or written is timed and has its size recorded, 1
+   * measures every document.
+   */
+  private int metricsSampleRate = 16;
+
+  public Deduplication getDeduplication() {
+    return deduplication;
+  }
+
+  public int getMetricsSampleRate() {
+    return metricsSampleRate;
+  }
+
+  public void setMetricsSampleRate(int metricsSampleRate) {
+    this.metricsSampleRate = metricsSampleRate;
+  }
+}
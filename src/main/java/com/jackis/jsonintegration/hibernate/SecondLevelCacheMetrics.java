@@ -0,0 +1,45 @@
+package com.jackis.jsonintegration.hibernate;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import javax.cache.CacheManager;
+import javax.persistence.EntityManagerFactory;
+import org.hibernate.cache.jcache.internal.JCacheRegionFactory;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+/**
+ * Publishes size, hits, misses and evictions of the Caffeine caches backing the second level cache
+ * regions as the {@code cache.*} metrics, tagged like the ones of the Spring caches: with the
+ * region name and the {@value #CACHE_MANAGER} cache manager. Hit ratios per region as Hibernate sees them are
+ * published by its statistics as the {@code hibernate.*} metrics.
+ */
+@Component
+public class SecondLevelCacheMetrics implements MeterBinder {
+
+  static final String CACHE_MANAGER = "hibernate";
+
+  @Autowired
+  private EntityManagerFactory entityManagerFactory;
+
+  @Override
+  public void bindTo(final MeterRegistry registry) {
+    final SessionFactoryImplementor sessionFactory =
+        entityManagerFactory.unwrap(SessionFactoryImplementor.class);
+    if (!(sessionFactory.getCache().getRegionFactory() instanceof JCacheRegionFactory)) {
+      return;
+    }
+
+    final CacheManager cacheManager =
+        ((JCacheRegionFactory) sessionFactory.getCache().getRegionFactory()).getCacheManager();
+    for (final String cacheName : cacheManager.getCacheNames()) {
+      CaffeineCacheMetrics.monitor(registry,
+          cacheManager.getCache(cacheName).unwrap(Cache.class), cacheName,
+          Tags.of("name", cacheName, "cacheManager", CACHE_MANAGER));
+    }
+  }
+}
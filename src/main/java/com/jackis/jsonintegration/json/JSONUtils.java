@@ -1,7 +1,14 @@
 package com.jackis.jsonintegration.json;
 
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
 import java.io.IOException;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.TreeMap;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 import org.springframework.web.context.annotation.ApplicationScope;
@@ -21,4 +28,85 @@ public class JSONUtils {
        return false;
     }
   }
-}
\ No newline at end of file
+
+  /**
+   * Parses a JSON object received from a client and checks it against {@code limits}. The length
+   * is checked before parsing, so oversized documents are never read.
+   *
+   * @throws IllegalArgumentException if the document is not a JSON object or exceeds a limit
+   */
+  public JsonNode readObject(String jsonInString, JsonLimits limits) {
+    if (jsonInString == null || jsonInString.isEmpty()) {
+      throw new IllegalArgumentException("No JSON document given");
+    }
+    if (jsonInString.length() > limits.getMaxLength()) {
+      throw new IllegalArgumentException(
+          "JSON document is longer than " + limits.getMaxLength() + " characters");
+    }
+
+    final JsonNode document;
+    try {
+      document = mapper.readTree(jsonInString);
+    } catch (JsonProcessingException e) {
+      throw new IllegalArgumentException("Not a valid JSON document: " + e.getMessage(), e);
+    }
+    if (document == null || !document.isObject()) {
+      throw new IllegalArgumentException("JSON document is not an object");
+    }
+
+    checkLimits(document, 1, limits, new int[]{0});
+    return document;
+  }
+
+  private void checkLimits(JsonNode node, int depth, JsonLimits limits, int[] keyCount) {
+    if (!node.isContainerNode()) {
+      return;
+    }
+    if (depth > limits.getMaxDepth()) {
+      throw new IllegalArgumentException(
+          "JSON document is nested deeper than " + limits.getMaxDepth() + " levels");
+    }
+    if (node.isObject()) {
+      keyCount[0] += node.size();
+      if (keyCount[0] > limits.getMaxKeys()) {
+        throw new IllegalArgumentException(
+            "JSON document has more than " + limits.getMaxKeys() + " keys");
+      }
+    }
+    for (JsonNode child : node) {
+      checkLimits(child, depth + 1, limits, keyCount);
+    }
+  }
+
+  /**
+   * Returns a canonical form of a JSON document: object keys are sorted and all insignificant
+   * whitespace is removed, so equivalent documents result in the same String.
+   */
+  public String canonicalize(JsonNode document) {
+    try {
+      return mapper.writeValueAsString(sortKeys(document));
+    } catch (JsonProcessingException e) {
+      throw new IllegalStateException("Failed to write JSON document: " + e.getMessage(), e);
+    }
+  }
+
+  private JsonNode sortKeys(JsonNode node) {
+    if (node.isObject()) {
+      final Map<String, JsonNode> sortedFields = new TreeMap<>();
+      final Iterator<Map.Entry<String, JsonNode>> fields = node.fields();
+      while (fields.hasNext()) {
+        final Map.Entry<String, JsonNode> field = fields.next();
+        sortedFields.put(field.getKey(), sortKeys(field.getValue()));
+      }
+      final ObjectNode sorted = mapper.createObjectNode();
+      sorted.setAll(sortedFields);
+      return sorted;
+    }
+    if (node.isArray()) {
+      final ArrayNode sorted = mapper.createArrayNode();
+      node.forEach(element -> sorted.add(sortKeys(element)));
+      return sorted;
+    }
+    return node;
+  }
+}
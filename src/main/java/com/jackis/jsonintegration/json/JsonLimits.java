@@ -0,0 +1,22 @@
+package com.jackis.jsonintegration.json;
+
+/**
+ * Structural limits a JSON document received from a client has to stay within.
+ */
+public interface JsonLimits {
+
+  /**
+   * Maximum length of the document text in characters.
+   */
+  int getMaxLength();
+
+  /**
+   * Maximum nesting depth of objects and arrays, the root object counts as 1.
+   */
+  int getMaxDepth();
+
+  /**
+   * Maximum number of object keys in the whole document.
+   */
+  int getMaxKeys();
+}
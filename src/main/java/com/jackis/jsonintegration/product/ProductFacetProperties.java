@@ -0,0 +1,71 @@
+package com.jackis.jsonintegration.product;
+
+import java.util.ArrayList;
+import java.util.List;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@ConfigurationProperties(prefix = "products.facets")
+public class ProductFacetProperties {
+
+  /**
+   * Attribute paths, e.g. {@code weight.unit}, whose value counts over the whole catalog are
+   * maintained by the database on every write. Paths missing from the database are backfilled at
+   * startup, others are dropped, so all instances have to agree on them.
+   */
+  private List<String> paths = new ArrayList<>();
+
+  /**
+   * Maximum number of paths counted by a single facet request.
+   */
+  private int maxPaths = 8;
+
+  /**
+   * Number of values returned per path when a facet request does not ask for a limit.
+   */
+  private int defaultLimit = 20;
+
+  /**
+   * Upper bound for the number of values returned per path.
+   */
+  private int maxLimit = 100;
+
+  public List<String> getPaths() {
+    return paths;
+  }
+
+  public void setPaths(List<String> paths) {
+    this.paths = paths;
+  }
+
+  public int getMaxPaths() {
+    return maxPaths;
+  }
+
+  public void setMaxPaths(int maxPaths) {
+    this.maxPaths = maxPaths;
+  }
+
+  public int getDefaultLimit() {
+    return defaultLimit;
+  }
+
+  public void setDefaultLimit(int defaultLimit) {
+    this.defaultLimit = defaultLimit;
+  }
+
+  public int getMaxLimit() {
+    return maxLimit;
+  }
+
+  public void setMaxLimit(int maxLimit) {
+    this.maxLimit = maxLimit;
+  }
+
+  /**
+   * Resolves the number of values per path for a request, capped by {@link #getMaxLimit()}.
+   */
+  public int limit(final Integer requestedLimit) {
+    final int limit = requestedLimit == null ? defaultLimit : requestedLimit;
+    return Math.min(limit, maxLimit);
+  }
+}
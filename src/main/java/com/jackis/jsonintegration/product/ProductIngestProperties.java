@@ -0,0 +1,20 @@
+package com.jackis.jsonintegration.product;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@ConfigurationProperties(prefix = "products.ingest")
+public class ProductIngestProperties {
+
+  /**
+   * Number of products written with one JDBC batch and committed together by the bulk import.
+   */
+  private int batchSize = 1000;
+
+  public int getBatchSize() {
+    return batchSize;
+  }
+
+  public void setBatchSize(int batchSize) {
+    this.batchSize = batchSize;
+  }
+}
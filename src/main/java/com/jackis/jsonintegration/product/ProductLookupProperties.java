@@ -0,0 +1,20 @@
+package com.jackis.jsonintegration.product;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@ConfigurationProperties(prefix = "products.lookup")
+public class ProductLookupProperties {
+
+  /**
+   * Maximum number of SKUs resolved by a single multi-get request.
+   */
+  private int maxSkus = 500;
+
+  public int getMaxSkus() {
+    return maxSkus;
+  }
+
+  public void setMaxSkus(int maxSkus) {
+    this.maxSkus = maxSkus;
+  }
+}
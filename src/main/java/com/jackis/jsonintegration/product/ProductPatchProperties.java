@@ -0,0 +1,34 @@
+package com.jackis.jsonintegration.product;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@ConfigurationProperties(prefix = "products.patch")
+public class ProductPatchProperties {
+
+  /**
+   * Maximum number of operations of a single attribute patch; every nested object of a merge patch
+   * counts as one.
+   */
+  private int maxOperations = 64;
+
+  /**
+   * Maximum number of products a single batch patch is applied to.
+   */
+  private int maxSkus = 500;
+
+  public int getMaxOperations() {
+    return maxOperations;
+  }
+
+  public void setMaxOperations(int maxOperations) {
+    this.maxOperations = maxOperations;
+  }
+
+  public int getMaxSkus() {
+    return maxSkus;
+  }
+
+  public void setMaxSkus(int maxSkus) {
+    this.maxSkus = maxSkus;
+  }
+}
@@ -0,0 +1,68 @@
+package com.jackis.jsonintegration.product;
+
+import com.jackis.jsonintegration.product.persistence.AttributeFilter.ValueType;
+import java.util.ArrayList;
+import java.util.List;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@ConfigurationProperties(prefix = "products.promotion")
+public class ProductPromotionProperties {
+
+  public static class PromotedAttribute {
+
+    /**
+     * Attribute path, e.g. {@code weight.value}.
+     */
+    private String path;
+
+    /**
+     * Type of the column the value is copied into. Filters comparing the path as this type, and
+     * integer filters on a numeric column, are answered from the column.
+     */
+    private ValueType valueType = ValueType.INTEGER;
+
+    public String getPath() {
+      return path;
+    }
+
+    public void setPath(String path) {
+      this.path = path;
+    }
+
+    public ValueType getValueType() {
+      return valueType;
+    }
+
+    public void setValueType(ValueType valueType) {
+      this.valueType = valueType;
+    }
+  }
+
+  /**
+   * Attribute paths copied into typed columns of the product table on every write. Columns of
+   * new paths are added and backfilled at startup, columns of paths no longer listed are
+   * dropped, so all instances have to agree on them.
+   */
+  private List<PromotedAttribute> attributes = new ArrayList<>();
+
+  /**
+   * Number of product ids whose rows are backfilled in one transaction.
+   */
+  private int backfillBatchSize = 10000;
+
+  public List<PromotedAttribute> getAttributes() {
+    return attributes;
+  }
+
+  public void setAttributes(List<PromotedAttribute> attributes) {
+    this.attributes = attributes;
+  }
+
+  public int getBackfillBatchSize() {
+    return backfillBatchSize;
+  }
+
+  public void setBackfillBatchSize(int backfillBatchSize) {
+    this.backfillBatchSize = backfillBatchSize;
+  }
+}
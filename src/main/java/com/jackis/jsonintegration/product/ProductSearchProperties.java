@@ -0,0 +1,271 @@
+package com.jackis.jsonintegration.product;
+
+import com.jackis.jsonintegration.json.JsonLimits;
+import java.time.Duration;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@ConfigurationProperties(prefix = "products.search")
+public class ProductSearchProperties {
+
+  public static class DocumentLimits implements JsonLimits {
+
+    private int maxLength = 4096;
+
+    private int maxDepth = 8;
+
+    private int maxKeys = 64;
+
+    @Override
+    public int getMaxLength() {
+      return maxLength;
+    }
+
+    public void setMaxLength(int maxLength) {
+      this.maxLength = maxLength;
+    }
+
+    @Override
+    public int getMaxDepth() {
+      return maxDepth;
+    }
+
+    public void setMaxDepth(int maxDepth) {
+      this.maxDepth = maxDepth;
+    }
+
+    @Override
+    public int getMaxKeys() {
+      return maxKeys;
+    }
+
+    public void setMaxKeys(int maxKeys) {
+      this.maxKeys = maxKeys;
+    }
+  }
+
+  public static class Coalescing {
+
+    /**
+     * Whether concurrent equal searches share one query and one serialized response.
+     */
+    private boolean enabled = true;
+
+    /**
+     * Maximum number of searches waiting for an equal one, further ones run their own query.
+     */
+    private int maxWaiters = 256;
+
+    public boolean isEnabled() {
+      return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+      this.enabled = enabled;
+    }
+
+    public int getMaxWaiters() {
+      return maxWaiters;
+    }
+
+    public void setMaxWaiters(int maxWaiters) {
+      this.maxWaiters = maxWaiters;
+    }
+  }
+
+  public static class Admission {
+
+    /**
+     * Whether searches are admitted by the cost the planner estimates for them.
+     */
+    private boolean enabled = true;
+
+    /**
+     * Estimated cost, in units of the planner, above which a search counts as expensive.
+     */
+    private double expensiveCost = 10000;
+
+    /**
+     * Estimated cost above which a search is rejected.
+     */
+    private double maxCost = 1000000;
+
+    /**
+     * Estimated number of matches above which streams and facet counts over matches are
+     * rejected, those have to be narrowed or searched page by page.
+     */
+    private long maxUnpagedRows = 100000;
+
+    /**
+     * Maximum number of cheap searches running at the same time.
+     */
+    private int maxConcurrentCheap = 64;
+
+    /**
+     * Maximum number of expensive searches running at the same time.
+     */
+    private int maxConcurrentExpensive = 4;
+
+    /**
+     * Maximum number of expensive searches waiting to run, further ones are rejected.
+     */
+    private int maxQueuedExpensive = 32;
+
+    /**
+     * How long a search waits to run before it is rejected.
+     */
+    private Duration queueTimeout = Duration.ofSeconds(2);
+
+    public boolean isEnabled() {
+      return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+      this.enabled = enabled;
+    }
+
+    public double getExpensiveCost() {
+      return expensiveCost;
+    }
+
+    public void setExpensiveCost(double expensiveCost) {
+      this.expensiveCost = expensiveCost;
+    }
+
+    public double getMaxCost() {
+      return maxCost;
+    }
+
+    public void setMaxCost(double maxCost) {
+      this.maxCost = maxCost;
+    }
+
+    public long getMaxUnpagedRows() {
+      return maxUnpagedRows;
+    }
+
+    public void setMaxUnpagedRows(long maxUnpagedRows) {
+      this.maxUnpagedRows = maxUnpagedRows;
+    }
+
+    public int getMaxConcurrentCheap() {
+      return maxConcurrentCheap;
+    }
+
+    public void setMaxConcurrentCheap(int maxConcurrentCheap) {
+      this.maxConcurrentCheap = maxConcurrentCheap;
+    }
+
+    public int getMaxConcurrentExpensive() {
+      return maxConcurrentExpensive;
+    }
+
+    public void setMaxConcurrentExpensive(int maxConcurrentExpensive) {
+      this.maxConcurrentExpensive = maxConcurrentExpensive;
+    }
+
+    public int getMaxQueuedExpensive() {
+      return maxQueuedExpensive;
+    }
+
+    public void setMaxQueuedExpensive(int maxQueuedExpensive) {
+      this.maxQueuedExpensive = maxQueuedExpensive;
+    }
+
+    public Duration getQueueTimeout() {
+      return queueTimeout;
+    }
+
+    public void setQueueTimeout(Duration queueTimeout) {
+      this.queueTimeout = queueTimeout;
+    }
+  }
+
+  /**
+   * Page size used when a search request does not ask for one.
+   */
+  private int defaultPageSize = 100;
+
+  /**
+   * Upper bound for the page size of a single search response.
+   */
+  private int maxPageSize = 1000;
+
+  /**
+   * Maximum number of attribute filters in a single search request.
+   */
+  private int maxFilters = 16;
+
+  /**
+   * Whether search results pass the attributes on as the JSON text the database returned instead
+   * of parsing them into a tree and serializing that again.
+   */
+  private boolean rawAttributes = true;
+
+  /**
+   * Limits for the search document, documents exceeding them are rejected before they reach the
+   * database.
+   */
+  private final DocumentLimits document = new DocumentLimits();
+
+  /**
+   * Sharing of queries and responses between concurrent equal searches.
+   */
+  private final Coalescing coalescing = new Coalescing();
+
+  /**
+   * Limits for searches by the cost the planner estimates for them.
+   */
+  private final Admission admission = new Admission();
+
+  public int getDefaultPageSize() {
+    return defaultPageSize;
+  }
+
+  public void setDefaultPageSize(int defaultPageSize) {
+    this.defaultPageSize = defaultPageSize;
+  }
+
+  public int getMaxPageSize() {
+    return maxPageSize;
+  }
+
+  public void setMaxPageSize(int maxPageSize) {
+    this.maxPageSize = maxPageSize;
+  }
+
+  public int getMaxFilters() {
+    return maxFilters;
+  }
+
+  public void setMaxFilters(int maxFilters) {
+    this.maxFilters = maxFilters;
+  }
+
+  public boolean isRawAttributes() {
+    return rawAttributes;
+  }
+
+  public void setRawAttributes(boolean rawAttributes) {
+    this.rawAttributes = rawAttributes;
+  }
+
+  public DocumentLimits getDocument() {
+    return document;
+  }
+
+  public Coalescing getCoalescing() {
+    return coalescing;
+  }
+
+  public Admission getAdmission() {
+    return admission;
+  }
+
+  /**
+   * Resolves the page size for a request, capped by {@link #getMaxPageSize()}.
+   */
+  public int pageSize(final Integer requestedPageSize) {
+    final int pageSize = requestedPageSize == null ? defaultPageSize : requestedPageSize;
+    return Math.min(pageSize, maxPageSize);
+  }
+}
@@ -0,0 +1,21 @@
+package com.jackis.jsonintegration.product;
+
+import java.util.Collection;
+import java.util.Collections;
+
+/**
+ * Published after products have been written, so that everything derived from the product table
+ * can be invalidated.
+ */
+public class ProductsChangedEvent {
+
+  private final Collection<String> skus;
+
+  public ProductsChangedEvent(final Collection<String> skus) {
+    this.skus = Collections.unmodifiableCollection(skus);
+  }
+
+  public Collection<String> getSkus() {
+    return skus;
+  }
+}
@@ -0,0 +1,276 @@
+package com.jackis.jsonintegration.product.index;
+
+import com.jackis.jsonintegration.product.persistence.AttributeFilter;
+import com.jackis.jsonintegration.product.persistence.AttributeFilter.Operator;
+import com.jackis.jsonintegration.product.persistence.AttributeFilter.ValueType;
+import com.jackis.jsonintegration.product.persistence.AttributeQuery;
+import com.jackis.jsonintegration.product.persistence.AttributeQueryCompiler;
+import com.jackis.jsonintegration.product.persistence.IndexedCasts;
+import com.jackis.jsonintegration.product.persistence.ProductTable;
+import com.jackis.jsonintegration.product.persistence.PromotedAttributeManager;
+import com.jackis.jsonintegration.product.persistence.PromotedColumns;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+/**
+ * Tracks which attribute paths are queried with which operators and how long those queries take,
+ * and recommends expression indexes for frequently filtered, slow paths that have none yet.
+ *
+ * <p>Indexes created through {@link #createIndex(String, ValueType)} are named with the
+ * {@value #MANAGED_INDEX_PREFIX} prefix, only those can be dropped again.
+ */
+@Component
+public class AttributeIndexAdvisor {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(AttributeIndexAdvisor.class);
+
+  static final String MANAGED_INDEX_PREFIX = "product_attr_";
+
+  private static final String CONTAINMENT_OPERATOR = "@>";
+
+  private static final int MAX_IDENTIFIER_LENGTH = 63;
+
+  private static final Pattern PATH = Pattern.compile("^[A-Za-z0-9_]+(\\.[A-Za-z0-9_]+)*$");
+
+  private static final Pattern MANAGED_INDEX_NAME =
+      Pattern.compile("^" + MANAGED_INDEX_PREFIX + "[a-z0-9_]+$");
+
+  @Autowired
+  private IndexAdvisorProperties indexAdvisorProperties;
+
+  @Autowired
+  private PromotedAttributeManager promotedAttributeManager;
+
+  @Autowired
+  private ProductTable productTable;
+
+  private final ConcurrentMap<UsageKey, UsageCounter> usage = new ConcurrentHashMap<>();
+
+  public void record(final AttributeQuery query, final long nanos) {
+    if (query.getContainment() != null) {
+      query.getContainment().fieldNames().forEachRemaining(field ->
+          record(new UsageKey(field, CONTAINMENT_OPERATOR, null), nanos));
+    }
+    query.getRequiredKeys().forEach(key -> record(new UsageKey(key, "?&", null), nanos));
+    query.getAnyKeys().forEach(key -> record(new UsageKey(key, "?|", null), nanos));
+    for (final AttributeFilter filter : query.getFilters()) {
+      record(new UsageKey(String.join(".", filter.getPath()), filter.getOperator().getSymbol(),
+          filter.getValueType()), nanos);
+    }
+  }
+
+  private void record(final UsageKey key, final long nanos) {
+    UsageCounter counter = usage.get(key);
+    if (counter == null) {
+      if (usage.size() >= indexAdvisorProperties.getMaxTrackedPaths()) {
+        return;
+      }
+      counter = usage.computeIfAbsent(key, k -> new UsageCounter());
+    }
+    counter.add(nanos);
+  }
+
+  public List<PathUsage> usage() {
+    return usage.entrySet().stream()
+        .map(entry -> entry.getValue().toPathUsage(entry.getKey()))
+        .sorted(Comparator.comparingLong(PathUsage::getQueries).reversed())
+        .collect(Collectors.toList());
+  }
+
+  /**
+   * Recommends an index for every path and value type filtered on often and slowly enough,
+   * unless a btree index on the expression the filter compiles to already exists or the path is
+   * promoted to an indexed column.
+   */
+  public List<IndexRecommendation> recommendations() {
+    final Map<UsageKey, UsageCounter> filteredPaths = new LinkedHashMap<>();
+    usage.forEach((key, counter) -> {
+      // containment and key existence are served by the GIN index
+      if (key.valueType != null && !Operator.NOT_EQUAL.getSymbol().equals(key.operator)) {
+        filteredPaths.computeIfAbsent(new UsageKey(key.path, null, key.valueType),
+            k -> new UsageCounter()).add(counter);
+      }
+    });
+
+    final List<String> indexDefinitions = indexDefinitions();
+    final PromotedColumns promotedColumns = promotedAttributeManager.promotedColumns();
+    return filteredPaths.entrySet().stream()
+        .filter(entry -> entry.getValue().count.sum() >= indexAdvisorProperties.getMinQueries())
+        .filter(entry -> entry.getValue().meanNanos()
+            >= indexAdvisorProperties.getMinMeanLatency().toNanos())
+        .filter(entry -> !isIndexed(indexDefinitions, entry.getKey().path,
+            entry.getKey().valueType))
+        .filter(entry -> promotedColumns.columnFor(
+            Arrays.asList(entry.getKey().path.split("\\.")), entry.getKey().valueType) == null)
+        .map(entry -> new IndexRecommendation(entry.getKey().path, entry.getKey().valueType,
+            indexName(entry.getKey().path, entry.getKey().valueType),
+            createIndexStatement(entry.getKey().path, entry.getKey().valueType),
+            entry.getValue().count.sum()))
+        .sorted(Comparator.comparingLong(IndexRecommendation::getQueries).reversed())
+        .collect(Collectors.toList());
+  }
+
+  public List<String> managedIndexes() {
+    return productTable.indexDefinitions().keySet().stream()
+        .filter(indexName -> indexName.startsWith(MANAGED_INDEX_PREFIX))
+        .collect(Collectors.toList());
+  }
+
+  /**
+   * Builds the expression index for filters on {@code path} compared as {@code valueType}
+   * without blocking writes to the product table.
+   */
+  public String createIndex(final String path, final ValueType valueType) {
+    if (path == null || !PATH.matcher(path).matches() || valueType == null) {
+      throw new IllegalArgumentException("Invalid attribute path or value type: " + path);
+    }
+
+    final String indexName = indexName(path, valueType);
+    LOGGER.info("Creating index {} for attribute path {}", indexName, path);
+    productTable.createIndex(indexName, indexDefinition(path, valueType));
+    return indexName;
+  }
+
+  public void dropIndex(final String indexName) {
+    if (indexName == null || !MANAGED_INDEX_NAME.matcher(indexName).matches()) {
+      throw new IllegalArgumentException("Not an index managed by the advisor: " + indexName);
+    }
+    LOGGER.info("Dropping index {}", indexName);
+    productTable.dropIndex(indexName);
+  }
+
+  private List<String> indexDefinitions() {
+    return new ArrayList<>(productTable.indexDefinitions().values());
+  }
+
+  private static String createIndexStatement(final String path, final ValueType valueType) {
+    return "CREATE INDEX CONCURRENTLY IF NOT EXISTS " + indexName(path, valueType)
+        + " ON product " + indexDefinition(path, valueType);
+  }
+
+  private static String indexDefinition(final String path, final ValueType valueType) {
+    return "USING BTREE (" + AttributeQueryCompiler
+        .valueExpression(Arrays.asList(path.split("\\.")), valueType) + ")";
+  }
+
+  static String indexName(final String path, final ValueType valueType) {
+    final String name = MANAGED_INDEX_PREFIX + path.replace('.', '_') + "_"
+        + valueType.name().toLowerCase() + "_idx";
+    if (name.length() <= MAX_IDENTIFIER_LENGTH && name.equals(name.toLowerCase())
+        && path.indexOf('_') < 0) {
+      return name;
+    }
+    // dots and underscores both end up as underscores, PostgreSQL folds and truncates
+    // identifiers, keep distinct paths apart with a hash
+    final String hash = Integer.toHexString(path.hashCode() * 31 + valueType.ordinal());
+    return name.toLowerCase().substring(0,
+        Math.min(name.length(), MAX_IDENTIFIER_LENGTH - hash.length() - 1)) + "_" + hash;
+  }
+
+  /**
+   * Checks the index definitions as PostgreSQL normalizes them, e.g. {@code USING btree
+   * (promoted_integer(((attributes #> '{weight}'::text[]) ->> 'value'::text)))}. Filters on a
+   * path with an index on the plain cast compare that cast, the index serves them as well.
+   */
+  static boolean isIndexed(final List<String> indexDefinitions, final String path,
+      final ValueType valueType) {
+    final List<String> segments = Arrays.asList(path.split("\\."));
+    if (IndexedCasts.of(indexDefinitions).contains(segments, valueType)) {
+      return true;
+    }
+    final String last = segments.get(segments.size() - 1);
+    final String text = segments.size() == 1 ? "attributes ->> '" + last + "'::text"
+        : "(attributes #> '{" + String.join(",", segments.subList(0, segments.size() - 1))
+            + "}'::text[]) ->> '" + last + "'::text";
+
+    return indexDefinitions.stream()
+        .filter(definition -> definition.contains("USING btree"))
+        .anyMatch(definition -> {
+          switch (valueType) {
+            case INTEGER:
+              return definition.contains("promoted_integer((" + text + "))");
+            case NUMERIC:
+              return definition.contains("promoted_numeric((" + text + "))");
+            default:
+              return definition.contains(text + "))") && !definition.contains("promoted_")
+                  && !definition.contains(text + "))::");
+          }
+        });
+  }
+
+  private static final class UsageKey {
+
+    private final String path;
+    private final String operator;
+    private final ValueType valueType;
+
+    private UsageKey(String path, String operator, ValueType valueType) {
+      this.path = path;
+      this.operator = operator;
+      this.valueType = valueType;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (this == o) {
+        return true;
+      }
+      if (o == null || getClass() != o.getClass()) {
+        return false;
+      }
+      UsageKey that = (UsageKey) o;
+      return path.equals(that.path) && Objects.equals(operator, that.operator)
+          && valueType == that.valueType;
+    }
+
+    @Override
+    public int hashCode() {
+      return Objects.hash(path, operator, valueType);
+    }
+  }
+
+  private static final class UsageCounter {
+
+    private final LongAdder count = new LongAdder();
+    private final LongAdder totalNanos = new LongAdder();
+    private final AtomicLong maxNanos = new AtomicLong();
+
+    private void add(final long nanos) {
+      count.increment();
+      totalNanos.add(nanos);
+      maxNanos.accumulateAndGet(nanos, Math::max);
+    }
+
+    private void add(final UsageCounter other) {
+      count.add(other.count.sum());
+      totalNanos.add(other.totalNanos.sum());
+      maxNanos.accumulateAndGet(other.maxNanos.get(), Math::max);
+    }
+
+    private long meanNanos() {
+      final long queries = count.sum();
+      return queries == 0 ? 0 : totalNanos.sum() / queries;
+    }
+
+    private PathUsage toPathUsage(final UsageKey key) {
+      return new PathUsage(key.path, key.operator, key.valueType, count.sum(),
+          Duration.ofNanos(meanNanos()), Duration.ofNanos(maxNanos.get()));
+    }
+  }
+}
@@ -0,0 +1,65 @@
+package com.jackis.jsonintegration.product.index;
+
+import com.jackis.jsonintegration.product.persistence.AttributeFilter.ValueType;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.actuate.endpoint.InvalidEndpointRequestException;
+import org.springframework.boot.actuate.endpoint.annotation.DeleteOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.WriteOperation;
+import org.springframework.stereotype.Component;
+
+/**
+ * Actuator endpoint reporting attribute path usage and index recommendations. Creating and
+ * dropping indexes is only possible if {@code products.index-advisor.admin-operations-enabled} is
+ * set.
+ */
+@Component
+@Endpoint(id = "attributeindexes")
+public class AttributeIndexEndpoint {
+
+  @Autowired
+  private AttributeIndexAdvisor attributeIndexAdvisor;
+
+  @Autowired
+  private IndexAdvisorProperties indexAdvisorProperties;
+
+  @ReadOperation
+  public Map<String, Object> report() {
+    final Map<String, Object> report = new LinkedHashMap<>();
+    report.put("usage", attributeIndexAdvisor.usage());
+    report.put("recommendations", attributeIndexAdvisor.recommendations());
+    report.put("managedIndexes", attributeIndexAdvisor.managedIndexes());
+    return report;
+  }
+
+  @WriteOperation
+  public Map<String, Object> createIndex(final String path, final ValueType valueType) {
+    requireAdminOperations();
+    try {
+      return Map.of("created", attributeIndexAdvisor.createIndex(path, valueType));
+    } catch (final IllegalArgumentException ex) {
+      throw new InvalidEndpointRequestException(ex.getMessage(), ex.getMessage());
+    }
+  }
+
+  @DeleteOperation
+  public Map<String, Object> dropIndex(final String indexName) {
+    requireAdminOperations();
+    try {
+      attributeIndexAdvisor.dropIndex(indexName);
+      return Map.of("dropped", indexName);
+    } catch (final IllegalArgumentException ex) {
+      throw new InvalidEndpointRequestException(ex.getMessage(), ex.getMessage());
+    }
+  }
+
+  private void requireAdminOperations() {
+    if (!indexAdvisorProperties.isAdminOperationsEnabled()) {
+      throw new InvalidEndpointRequestException("Index administration is disabled",
+          "Index administration is disabled");
+    }
+  }
+}
@@ -0,0 +1,39 @@
+package com.jackis.jsonintegration.product.index;
+
+import java.time.Duration;
+
+/**
+ * An existing GIN index on the product attributes, its size and, if it was built by the
+ * application, how long building it took.
+ */
+public class GinIndex {
+
+  private final String indexName;
+  private final GinOperatorClass operatorClass;
+  private final long sizeBytes;
+  private final Duration buildTime;
+
+  public GinIndex(String indexName, GinOperatorClass operatorClass, long sizeBytes,
+      Duration buildTime) {
+    this.indexName = indexName;
+    this.operatorClass = operatorClass;
+    this.sizeBytes = sizeBytes;
+    this.buildTime = buildTime;
+  }
+
+  public String getIndexName() {
+    return indexName;
+  }
+
+  public GinOperatorClass getOperatorClass() {
+    return operatorClass;
+  }
+
+  public long getSizeBytes() {
+    return sizeBytes;
+  }
+
+  public Duration getBuildTime() {
+    return buildTime;
+  }
+}
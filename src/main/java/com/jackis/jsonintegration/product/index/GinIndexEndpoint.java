@@ -0,0 +1,44 @@
+package com.jackis.jsonintegration.product.index;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.actuate.endpoint.InvalidEndpointRequestException;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.WriteOperation;
+import org.springframework.stereotype.Component;
+
+/**
+ * Actuator endpoint reporting size and build time of the GIN indexes on the product attributes.
+ * Changing the strategy is only possible if {@code products.gin-index.admin-operations-enabled} is
+ * set.
+ */
+@Component
+@Endpoint(id = "ginindexes")
+public class GinIndexEndpoint {
+
+  @Autowired
+  private GinIndexManager ginIndexManager;
+
+  @Autowired
+  private GinIndexProperties ginIndexProperties;
+
+  @ReadOperation
+  public Map<String, Object> report() {
+    final Map<String, Object> report = new LinkedHashMap<>();
+    report.put("configuredStrategy", ginIndexProperties.getStrategy());
+    report.put("indexes", ginIndexManager.indexes());
+    return report;
+  }
+
+  @WriteOperation
+  public List<GinIndex> apply(final GinIndexStrategy strategy) {
+    if (!ginIndexProperties.isAdminOperationsEnabled()) {
+      throw new InvalidEndpointRequestException("GIN index administration is disabled",
+          "GIN index administration is disabled");
+    }
+    return ginIndexManager.apply(strategy);
+  }
+}
@@ -0,0 +1,110 @@
+package com.jackis.jsonintegration.product.index;
+
+import com.jackis.jsonintegration.product.persistence.ProductTable;
+import java.time.Duration;
+import java.time.format.DateTimeParseException;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+/**
+ * Builds and drops the GIN indexes on the product attributes according to a
+ * {@link GinIndexStrategy}. Missing indexes are built before superfluous ones are dropped, so
+ * containment searches always have an index. Both happen through {@link ProductTable}, without
+ * blocking writes. The time a build took is kept as the comment of the index, so every instance
+ * reports it, also after a restart.
+ */
+@Component
+public class GinIndexManager {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(GinIndexManager.class);
+
+  @Autowired
+  private JdbcTemplate jdbcTemplate;
+
+  @Autowired
+  private GinIndexProperties ginIndexProperties;
+
+  @Autowired
+  private ProductTable productTable;
+
+  @EventListener(ApplicationReadyEvent.class)
+  public void applyOnStartup() {
+    if (ginIndexProperties.isApplyOnStartup()) {
+      apply(ginIndexProperties.getStrategy());
+    }
+  }
+
+  public synchronized List<GinIndex> apply(final GinIndexStrategy strategy) {
+    final List<String> existing = existingIndexNames();
+    for (final GinOperatorClass operatorClass : strategy.getOperatorClasses()) {
+      if (!existing.contains(operatorClass.getIndexName())) {
+        build(operatorClass);
+      }
+    }
+    for (final GinOperatorClass operatorClass : GinOperatorClass.values()) {
+      if (!strategy.getOperatorClasses().contains(operatorClass)
+          && existing.contains(operatorClass.getIndexName())) {
+        LOGGER.info("Dropping GIN index {}", operatorClass.getIndexName());
+        productTable.dropIndex(operatorClass.getIndexName());
+      }
+    }
+    return indexes();
+  }
+
+  public List<GinIndex> indexes() {
+    // the index of a partitioned table has no storage, its partitions' indexes have
+    return jdbcTemplate.query("SELECT c.relname, pg_relation_size(c.oid) + (SELECT "
+            + "coalesce(sum(pg_relation_size(inhrelid)), 0) FROM pg_inherits "
+            + "WHERE inhparent = c.oid), obj_description(c.oid, 'pg_class') FROM pg_index i "
+            + "JOIN pg_class c ON c.oid = i.indexrelid "
+            + "WHERE i.indrelid = 'product'::regclass AND c.relname IN (?, ?) ORDER BY c.relname",
+        (rs, rowNum) -> new GinIndex(rs.getString(1), operatorClass(rs.getString(1)),
+            rs.getLong(2), buildTime(rs.getString(3))),
+        GinOperatorClass.JSONB_OPS.getIndexName(), GinOperatorClass.JSONB_PATH_OPS.getIndexName());
+  }
+
+  private void build(final GinOperatorClass operatorClass) {
+    LOGGER.info("Building GIN index {}", operatorClass.getIndexName());
+    final long start = System.nanoTime();
+    productTable.createIndex(operatorClass.getIndexName(),
+        "USING GIN (attributes " + operatorClass.getOperatorClass() + ")");
+    final Duration buildTime = Duration.ofNanos(System.nanoTime() - start);
+    // an ISO-8601 duration, which needs no quoting
+    jdbcTemplate.execute("COMMENT ON INDEX " + operatorClass.getIndexName() + " IS '"
+        + buildTime + "'");
+    LOGGER.info("Built GIN index {} in {} ms", operatorClass.getIndexName(),
+        buildTime.toMillis());
+  }
+
+  private List<String> existingIndexNames() {
+    return indexes().stream().map(GinIndex::getIndexName).collect(Collectors.toList());
+  }
+
+  /**
+   * Returns the build time kept as {@code comment}, {@code null} for an index built otherwise.
+   */
+  private static Duration buildTime(final String comment) {
+    if (comment == null) {
+      return null;
+    }
+    try {
+      return Duration.parse(comment);
+    } catch (final DateTimeParseException ex) {
+      return null;
+    }
+  }
+
+  private static GinOperatorClass operatorClass(final String indexName) {
+    return Stream.of(GinOperatorClass.values())
+        .filter(operatorClass -> operatorClass.getIndexName().equals(indexName))
+        .findFirst().orElseThrow();
+  }
+}
@@ -0,0 +1,47 @@
+package com.jackis.jsonintegration.product.index;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@ConfigurationProperties(prefix = "products.gin-index")
+public class GinIndexProperties {
+
+  /**
+   * GIN indexes to keep on the product attributes.
+   */
+  private GinIndexStrategy strategy = GinIndexStrategy.JSONB_OPS;
+
+  /**
+   * Whether missing indexes of the strategy are built and others dropped when the application
+   * has started.
+   */
+  private boolean applyOnStartup = false;
+
+  /**
+   * Whether the strategy may be changed through the actuator endpoint.
+   */
+  private boolean adminOperationsEnabled = false;
+
+  public GinIndexStrategy getStrategy() {
+    return strategy;
+  }
+
+  public void setStrategy(GinIndexStrategy strategy) {
+    this.strategy = strategy;
+  }
+
+  public boolean isApplyOnStartup() {
+    return applyOnStartup;
+  }
+
+  public void setApplyOnStartup(boolean applyOnStartup) {
+    this.applyOnStartup = applyOnStartup;
+  }
+
+  public boolean isAdminOperationsEnabled() {
+    return adminOperationsEnabled;
+  }
+
+  public void setAdminOperationsEnabled(boolean adminOperationsEnabled) {
+    this.adminOperationsEnabled = adminOperationsEnabled;
+  }
+}
@@ -0,0 +1,24 @@
+package com.jackis.jsonintegration.product.index;
+
+import java.util.EnumSet;
+import java.util.Set;
+
+/**
+ * The GIN indexes kept on the product attributes.
+ */
+public enum GinIndexStrategy {
+
+  JSONB_OPS(EnumSet.of(GinOperatorClass.JSONB_OPS)),
+  JSONB_PATH_OPS(EnumSet.of(GinOperatorClass.JSONB_PATH_OPS)),
+  BOTH(EnumSet.allOf(GinOperatorClass.class));
+
+  private final Set<GinOperatorClass> operatorClasses;
+
+  GinIndexStrategy(Set<GinOperatorClass> operatorClasses) {
+    this.operatorClasses = operatorClasses;
+  }
+
+  public Set<GinOperatorClass> getOperatorClasses() {
+    return operatorClasses;
+  }
+}
@@ -0,0 +1,28 @@
+package com.jackis.jsonintegration.product.index;
+
+/**
+ * Operator classes the GIN index on the product attributes can be built with. {@code jsonb_ops}
+ * supports containment and key existence, {@code jsonb_path_ops} only containment, but is smaller
+ * and faster for it.
+ */
+public enum GinOperatorClass {
+
+  JSONB_OPS("jsonb_ops", "product_attributes_idx"),
+  JSONB_PATH_OPS("jsonb_path_ops", "product_attributes_path_ops_idx");
+
+  private final String operatorClass;
+  private final String indexName;
+
+  GinOperatorClass(String operatorClass, String indexName) {
+    this.operatorClass = operatorClass;
+    this.indexName = indexName;
+  }
+
+  public String getOperatorClass() {
+    return operatorClass;
+  }
+
+  public String getIndexName() {
+    return indexName;
+  }
+}
@@ -0,0 +1,60 @@
+package com.jackis.jsonintegration.product.index;
+
+import java.time.Duration;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@ConfigurationProperties(prefix = "products.index-advisor")
+public class IndexAdvisorProperties {
+
+  /**
+   * Number of queries a filter path needs before an index is recommended for it.
+   */
+  private long minQueries = 100;
+
+  /**
+   * Mean latency of the queries using a filter path above which an index is recommended for it.
+   */
+  private Duration minMeanLatency = Duration.ofMillis(20);
+
+  /**
+   * Maximum number of distinct paths and operators that are tracked, further ones are ignored.
+   */
+  private int maxTrackedPaths = 1000;
+
+  /**
+   * Whether indexes may be created and dropped through the actuator endpoint.
+   */
+  private boolean adminOperationsEnabled = false;
+
+  public long getMinQueries() {
+    return minQueries;
+  }
+
+  public void setMinQueries(long minQueries) {
+    this.minQueries = minQueries;
+  }
+
+  public Duration getMinMeanLatency() {
+    return minMeanLatency;
+  }
+
+  public void setMinMeanLatency(Duration minMeanLatency) {
+    this.minMeanLatency = minMeanLatency;
+  }
+
+  public int getMaxTrackedPaths() {
+    return maxTrackedPaths;
+  }
+
+  public void setMaxTrackedPaths(int maxTrackedPaths) {
+    this.maxTrackedPaths = maxTrackedPaths;
+  }
+
+  public boolean isAdminOperationsEnabled() {
+    return adminOperationsEnabled;
+  }
+
+  public void setAdminOperationsEnabled(boolean adminOperationsEnabled) {
+    this.adminOperationsEnabled = adminOperationsEnabled;
+  }
+}
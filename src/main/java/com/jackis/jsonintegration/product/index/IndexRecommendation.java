@@ -0,0 +1,41 @@
+package com.jackis.jsonintegration.product.index;
+
+import com.jackis.jsonintegration.product.persistence.AttributeFilter.ValueType;
+
+public class IndexRecommendation {
+
+  private final String path;
+  private final ValueType valueType;
+  private final String indexName;
+  private final String statement;
+  private final long queries;
+
+  public IndexRecommendation(String path, ValueType valueType, String indexName,
+      String statement, long queries) {
+    this.path = path;
+    this.valueType = valueType;
+    this.indexName = indexName;
+    this.statement = statement;
+    this.queries = queries;
+  }
+
+  public String getPath() {
+    return path;
+  }
+
+  public ValueType getValueType() {
+    return valueType;
+  }
+
+  public String getIndexName() {
+    return indexName;
+  }
+
+  public String getStatement() {
+    return statement;
+  }
+
+  public long getQueries() {
+    return queries;
+  }
+}
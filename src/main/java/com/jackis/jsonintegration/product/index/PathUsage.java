@@ -0,0 +1,54 @@
+package com.jackis.jsonintegration.product.index;
+
+import com.jackis.jsonintegration.product.persistence.AttributeFilter.ValueType;
+import java.time.Duration;
+
+/**
+ * How often an attribute path was queried with an operator and how long those queries took.
+ */
+public class PathUsage {
+
+  private final String path;
+  private final String operator;
+  private final ValueType valueType;
+  private final long queries;
+  private final Duration meanLatency;
+  private final Duration maxLatency;
+
+  public PathUsage(String path, String operator, ValueType valueType, long queries,
+      Duration meanLatency, Duration maxLatency) {
+    this.path = path;
+    this.operator = operator;
+    this.valueType = valueType;
+    this.queries = queries;
+    this.meanLatency = meanLatency;
+    this.maxLatency = maxLatency;
+  }
+
+  public String getPath() {
+    return path;
+  }
+
+  public String getOperator() {
+    return operator;
+  }
+
+  /**
+   * Type the value is compared as, {@code null} for containment.
+   */
+  public ValueType getValueType() {
+    return valueType;
+  }
+
+  public long getQueries() {
+    return queries;
+  }
+
+  public Duration getMeanLatency() {
+    return meanLatency;
+  }
+
+  public Duration getMaxLatency() {
+    return maxLatency;
+  }
+}
@@ -0,0 +1,44 @@
+package com.jackis.jsonintegration.product.partition;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.actuate.endpoint.InvalidEndpointRequestException;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.WriteOperation;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Component;
+
+/**
+ * Actuator endpoint reporting whether the product table is partitioned and the progress of a
+ * running migration. Starting the migration is only possible if
+ * {@code products.partitioning.admin-operations-enabled} is set.
+ */
+@Component
+@Endpoint(id = "productpartitions")
+public class PartitionEndpoint {
+
+  @Autowired
+  private PartitionMigrator partitionMigrator;
+
+  @Autowired
+  private PartitionProperties partitionProperties;
+
+  @ReadOperation
+  public PartitionStatus status() {
+    return partitionMigrator.status();
+  }
+
+  @WriteOperation
+  public PartitionStatus migrate(@Nullable final Integer partitions) {
+    if (!partitionProperties.isAdminOperationsEnabled()) {
+      throw new InvalidEndpointRequestException("Partition administration is disabled",
+          "Partition administration is disabled");
+    }
+    try {
+      return partitionMigrator.migrate(
+          partitions == null ? partitionProperties.getPartitions() : partitions);
+    } catch (final IllegalArgumentException | IllegalStateException ex) {
+      throw new InvalidEndpointRequestException(ex.getMessage(), ex.getMessage());
+    }
+  }
+}
@@ -0,0 +1,265 @@
+package com.jackis.jsonintegration.product.partition;
+
+import com.jackis.jsonintegration.product.persistence.ProductTable;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Migrates the product table to a table partitioned by hash of the SKU while the application
+ * keeps reading and writing products.
+ *
+ * <p>The partitioned table {@value #PARTITIONED_TABLE} gets the primary key on id and SKU, the
+ * unique SKU constraint and every other index of the product table, which PostgreSQL creates on
+ * each partition. A trigger mirrors all writes to the product table into it, then the existing
+ * rows are copied in batches of ids, each in its own transaction. Finally the tables are swapped
+ * in one short transaction, together with the triggers, and the former table is kept as
+ * {@value #RETIRED_TABLE} until it is dropped by hand. A migration interrupted before the swap
+ * is resumed by migrating again.
+ *
+ * <p>Lookups and patches by SKU then only read the partition the SKU hashes to, searches by
+ * attributes scan all partitions, in parallel for large ones. Vacuum and GIN index maintenance
+ * work on one partition at a time.
+ */
+@Component
+public class PartitionMigrator {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(PartitionMigrator.class);
+
+  // hash partitions and indexes on partitioned tables
+  private static final int MIN_SERVER_VERSION = 110000;
+
+  private static final int MAX_PARTITIONS = 256;
+
+  private static final int MAX_IDENTIFIER_LENGTH = 63;
+
+  private static final String PARTITIONED_TABLE = "product_partitioned";
+
+  private static final String RETIRED_TABLE = "product_unpartitioned";
+
+  private static final String MIRROR_TRIGGER = "product_partition_mirror";
+
+  private static final Pattern INDEX_DEFINITION =
+      Pattern.compile("^CREATE (UNIQUE )?INDEX \\S+ ON (public\\.)?product ");
+
+  private static final Pattern TRIGGER_TABLE = Pattern.compile(" ON (public\\.)?product ");
+
+  /**
+   * Copies a batch of rows. Locking them makes writes to them wait until they are copied, so
+   * the mirrored write finds the copy.
+   */
+  private static final String COPY_ROWS = "INSERT INTO " + PARTITIONED_TABLE
+      + " SELECT * FROM product WHERE id > ? AND id <= ? FOR SHARE ON CONFLICT DO NOTHING";
+
+  @Autowired
+  private JdbcTemplate jdbcTemplate;
+
+  @Autowired
+  private TransactionTemplate transactionTemplate;
+
+  @Autowired
+  private ProductTable productTable;
+
+  @Autowired
+  private PartitionProperties partitionProperties;
+
+  private volatile boolean migrating;
+
+  private final AtomicLong copiedRows = new AtomicLong();
+
+  public PartitionStatus status() {
+    return new PartitionStatus(productTable.isPartitioned(), productTable.partitions().size(),
+        migrating, copiedRows.get());
+  }
+
+  /**
+   * Migrates the product table to {@code partitions} hash partitions, unless it is partitioned
+   * already. Returns once the partitioned table has been swapped in.
+   */
+  public synchronized PartitionStatus migrate(final int partitions) {
+    if (partitions < 2 || partitions > MAX_PARTITIONS) {
+      throw new IllegalArgumentException(
+          "Number of partitions must be between 2 and " + MAX_PARTITIONS + ": " + partitions);
+    }
+    if (jdbcTemplate.queryForObject("SELECT current_setting('server_version_num')::int",
+        Integer.class) < MIN_SERVER_VERSION) {
+      throw new IllegalStateException("Hash partitioning requires PostgreSQL 11 or later");
+    }
+    if (productTable.isPartitioned()) {
+      return status();
+    }
+    // a column added to the product table during the copy would not match the mirrored rows
+    if (jdbcTemplate.queryForObject("SELECT count(*) FROM promoted_attribute WHERE NOT backfilled",
+        Integer.class) > 0) {
+      throw new IllegalStateException("Promoted attribute columns are being backfilled");
+    }
+
+    migrating = true;
+    copiedRows.set(0);
+    try {
+      transactionTemplate.executeWithoutResult(status -> prepare(partitions));
+      copy();
+      jdbcTemplate.execute("ANALYZE " + PARTITIONED_TABLE);
+      transactionTemplate.executeWithoutResult(status -> swap());
+      // autovacuum analyzes the partitions, but never the partitioned table
+      jdbcTemplate.execute("ANALYZE product");
+    } finally {
+      migrating = false;
+    }
+    return status();
+  }
+
+  private void prepare(final int partitions) {
+    if (jdbcTemplate.queryForObject("SELECT to_regclass(?) IS NOT NULL", Boolean.class,
+        PARTITIONED_TABLE)) {
+      LOGGER.info("Resuming migration into existing table {}", PARTITIONED_TABLE);
+    } else {
+      LOGGER.info("Creating table {} with {} partitions", PARTITIONED_TABLE, partitions);
+      // the partition key has to be part of every unique constraint
+      jdbcTemplate.execute("CREATE TABLE " + PARTITIONED_TABLE + " (LIKE product "
+          + "INCLUDING DEFAULTS INCLUDING CONSTRAINTS, PRIMARY KEY (id, sku), UNIQUE (sku)) "
+          + "PARTITION BY HASH (sku)");
+      for (int remainder = 0; remainder < partitions; remainder++) {
+        jdbcTemplate.execute("CREATE TABLE product_p" + remainder + " PARTITION OF "
+            + PARTITIONED_TABLE + " FOR VALUES WITH (MODULUS " + partitions + ", REMAINDER "
+            + remainder + ")");
+      }
+      // built while the table is empty, the partitioned table cannot build them concurrently
+      indexDefinitions().forEach((indexName, definition) -> {
+        final Matcher matcher = INDEX_DEFINITION.matcher(definition);
+        if (!matcher.find()) {
+          throw new IllegalStateException("Unexpected index definition: " + definition);
+        }
+        jdbcTemplate.execute(matcher.replaceFirst("CREATE " + (matcher.group(1) == null ? ""
+            : matcher.group(1)) + "INDEX " + suffixed(indexName, "_new") + " ON "
+            + PARTITIONED_TABLE + " "));
+      });
+    }
+    // waits for running writes, all later ones are mirrored
+    jdbcTemplate.execute("DROP TRIGGER IF EXISTS " + MIRROR_TRIGGER + " ON product");
+    jdbcTemplate.execute("DROP TRIGGER IF EXISTS " + MIRROR_TRIGGER + "_truncate ON product");
+    jdbcTemplate.execute("CREATE TRIGGER " + MIRROR_TRIGGER + " AFTER INSERT OR UPDATE OR DELETE "
+        + "ON product FOR EACH ROW EXECUTE PROCEDURE product_partition_mirror()");
+    jdbcTemplate.execute("CREATE TRIGGER " + MIRROR_TRIGGER + "_truncate AFTER TRUNCATE "
+        + "ON product FOR EACH STATEMENT EXECUTE PROCEDURE product_partition_mirror()");
+  }
+
+  private void copy() {
+    // rows written from now on are mirrored
+    final Long maxId = jdbcTemplate.queryForObject("SELECT max(id) FROM product", Long.class);
+    final int batchSize = partitionProperties.getBatchSize();
+
+    LOGGER.info("Copying products up to id {} into {}", maxId, PARTITIONED_TABLE);
+    final long start = System.nanoTime();
+    for (long fromId = 0; maxId != null && fromId < maxId; fromId += batchSize) {
+      copiedRows.addAndGet(
+          jdbcTemplate.update(COPY_ROWS, fromId, Math.min(fromId + batchSize, maxId)));
+    }
+    LOGGER.info("Copied {} rows in {} ms", copiedRows.get(),
+        (System.nanoTime() - start) / 1_000_000);
+  }
+
+  private void swap() {
+    jdbcTemplate.execute("LOCK TABLE product IN ACCESS EXCLUSIVE MODE");
+    final Map<String, String> indexes = indexDefinitions();
+    final List<String> constraintIndexes = constraintIndexNames("product");
+    final Map<String, String> triggers = triggerDefinitions();
+    final String sequence = jdbcTemplate.queryForObject(
+        "SELECT pg_get_serial_sequence('product', 'id')", String.class);
+
+    LOGGER.info("Swapping {} in for the product table", PARTITIONED_TABLE);
+    jdbcTemplate.execute("DROP TRIGGER " + MIRROR_TRIGGER + " ON product");
+    jdbcTemplate.execute("DROP TRIGGER " + MIRROR_TRIGGER + "_truncate ON product");
+    triggers.keySet().forEach(
+        triggerName -> jdbcTemplate.execute("DROP TRIGGER " + triggerName + " ON product"));
+
+    jdbcTemplate.execute("ALTER TABLE product RENAME TO " + RETIRED_TABLE);
+    for (final String indexName : indexes.keySet()) {
+      jdbcTemplate.execute(
+          "ALTER INDEX " + indexName + " RENAME TO " + suffixed(indexName, "_old"));
+    }
+    // renaming the index renames its constraint
+    for (final String indexName : constraintIndexes) {
+      jdbcTemplate.execute(
+          "ALTER INDEX " + indexName + " RENAME TO " + suffixed(indexName, "_old"));
+    }
+
+    jdbcTemplate.execute("ALTER TABLE " + PARTITIONED_TABLE + " RENAME TO product");
+    for (final String indexName : indexes.keySet()) {
+      jdbcTemplate.execute(
+          "ALTER INDEX " + suffixed(indexName, "_new") + " RENAME TO " + indexName);
+    }
+    for (final String indexName : constraintIndexNames("product")) {
+      // e.g. product_partitioned_pkey
+      jdbcTemplate.execute("ALTER INDEX " + indexName + " RENAME TO product"
+          + indexName.substring(PARTITIONED_TABLE.length()));
+    }
+    if (sequence != null) {
+      jdbcTemplate.execute("ALTER SEQUENCE " + sequence + " OWNED BY product.id");
+    }
+
+    // PostgreSQL 11 cannot create row triggers, BEFORE ones at least, on a partitioned table
+    final List<String> partitions = productTable.partitions();
+    for (final String definition : triggers.values()) {
+      if (definition.contains(" FOR EACH ROW ")) {
+        for (final String partition : partitions) {
+          jdbcTemplate.execute(TRIGGER_TABLE.matcher(definition)
+              .replaceFirst(" ON " + partition + " "));
+        }
+      } else {
+        jdbcTemplate.execute(definition);
+      }
+    }
+  }
+
+  /**
+   * Returns the definitions of the valid indexes of the product table by name, except the ones
+   * of constraints.
+   */
+  private Map<String, String> indexDefinitions() {
+    final Map<String, String> indexes = new LinkedHashMap<>();
+    jdbcTemplate.query("SELECT c.relname, pg_get_indexdef(i.indexrelid) FROM pg_index i "
+            + "JOIN pg_class c ON c.oid = i.indexrelid "
+            + "WHERE i.indrelid = 'product'::regclass AND i.indisvalid "
+            + "AND NOT EXISTS (SELECT 1 FROM pg_constraint WHERE conindid = i.indexrelid) "
+            + "ORDER BY c.relname",
+        resultSet -> {
+          indexes.put(resultSet.getString(1), resultSet.getString(2));
+        });
+    return indexes;
+  }
+
+  private List<String> constraintIndexNames(final String table) {
+    return jdbcTemplate.queryForList("SELECT c.relname FROM pg_constraint k "
+        + "JOIN pg_class c ON c.oid = k.conindid WHERE k.conrelid = ?::regclass "
+        + "ORDER BY c.relname", String.class, table);
+  }
+
+  /**
+   * Returns the definitions of the triggers of the product table by name, except the mirror.
+   */
+  private Map<String, String> triggerDefinitions() {
+    final Map<String, String> triggers = new LinkedHashMap<>();
+    jdbcTemplate.query("SELECT tgname, pg_get_triggerdef(oid) FROM pg_trigger "
+            + "WHERE tgrelid = 'product'::regclass AND NOT tgisinternal "
+            + "AND tgname NOT LIKE '" + MIRROR_TRIGGER + "%' ORDER BY tgname",
+        resultSet -> {
+          triggers.put(resultSet.getString(1), resultSet.getString(2));
+        });
+    return triggers;
+  }
+
+  private static String suffixed(final String name, final String suffix) {
+    return name.substring(0, Math.min(name.length(), MAX_IDENTIFIER_LENGTH - suffix.length()))
+        + suffix;
+  }
+}
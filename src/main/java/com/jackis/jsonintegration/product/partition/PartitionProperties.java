@@ -0,0 +1,46 @@
+package com.jackis.jsonintegration.product.partition;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@ConfigurationProperties(prefix = "products.partitioning")
+public class PartitionProperties {
+
+  /**
+   * Number of hash partitions of the SKU the product table is migrated to.
+   */
+  private int partitions = 16;
+
+  /**
+   * Number of product ids whose rows are copied into the partitions in one transaction.
+   */
+  private int batchSize = 10000;
+
+  /**
+   * Whether the migration may be started through the actuator endpoint.
+   */
+  private boolean adminOperationsEnabled = false;
+
+  public int getPartitions() {
+    return partitions;
+  }
+
+  public void setPartitions(int partitions) {
+    this.partitions = partitions;
+  }
+
+  public int getBatchSize() {
+    return batchSize;
+  }
+
+  public void setBatchSize(int batchSize) {
+    this.batchSize = batchSize;
+  }
+
+  public boolean isAdminOperationsEnabled() {
+    return adminOperationsEnabled;
+  }
+
+  public void setAdminOperationsEnabled(boolean adminOperationsEnabled) {
+    this.adminOperationsEnabled = adminOperationsEnabled;
+  }
+}
@@ -0,0 +1,37 @@
+package com.jackis.jsonintegration.product.partition;
+
+/**
+ * Whether the product table is partitioned, into how many partitions, and the progress of a
+ * migration running on this application instance.
+ */
+public class PartitionStatus {
+
+  private final boolean partitioned;
+  private final int partitions;
+  private final boolean migrating;
+  private final long copiedRows;
+
+  public PartitionStatus(boolean partitioned, int partitions, boolean migrating,
+      long copiedRows) {
+    this.partitioned = partitioned;
+    this.partitions = partitions;
+    this.migrating = migrating;
+    this.copiedRows = copiedRows;
+  }
+
+  public boolean isPartitioned() {
+    return partitioned;
+  }
+
+  public int getPartitions() {
+    return partitions;
+  }
+
+  public boolean isMigrating() {
+    return migrating;
+  }
+
+  public long getCopiedRows() {
+    return copiedRows;
+  }
+}
@@ -0,0 +1,155 @@
+package com.jackis.jsonintegration.product.persistence;
+
+import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Comparison of the value found at an attribute path, e.g. {@code weight.value<43}. Numeric values
+ * are compared as numbers, everything else as text. Quotes around a value force a text
+ * comparison.
+ */
+public class AttributeFilter {
+
+  public enum Operator {
+    LESS_THAN("<"),
+    LESS_THAN_OR_EQUAL("<="),
+    GREATER_THAN(">"),
+    GREATER_THAN_OR_EQUAL(">="),
+    EQUAL("="),
+    NOT_EQUAL("!=");
+
+    private final String symbol;
+
+    Operator(String symbol) {
+      this.symbol = symbol;
+    }
+
+    public String getSymbol() {
+      return symbol;
+    }
+
+    static Operator ofSymbol(final String symbol) {
+      return Arrays.stream(values()).filter(operator -> operator.symbol.equals(symbol))
+          .findFirst().orElseThrow();
+    }
+  }
+
+  /**
+   * Type the attribute value is converted to before it is compared.
+   */
+  public enum ValueType {
+    INTEGER,
+    NUMERIC,
+    TEXT
+  }
+
+  private static final String PATH = "[A-Za-z0-9_]+(?:\\.[A-Za-z0-9_]+)*";
+
+  private static final Pattern FILTER = Pattern
+      .compile("^(" + PATH + ")\\s*(<=|>=|!=|<|>|=)\\s*(.+)$");
+
+  private static final Pattern PATH_ONLY = Pattern.compile("^" + PATH + "$");
+
+  private static final Pattern INTEGER = Pattern.compile("^-?\\d{1,9}$");
+
+  private static final Pattern DECIMAL = Pattern.compile("^-?\\d+(\\.\\d+)?$");
+
+  private final List<String> path;
+  private final Operator operator;
+  private final Object value;
+
+  public AttributeFilter(List<String> path, Operator operator, Object value) {
+    this.path = Collections.unmodifiableList(path);
+    this.operator = operator;
+    this.value = value;
+  }
+
+  /**
+   * @throws IllegalArgumentException if {@code filter} is not of the form
+   *                                  {@code path operator value}
+   */
+  public static AttributeFilter parse(final String filter) {
+    final Matcher matcher = FILTER.matcher(filter.trim());
+    if (!matcher.matches()) {
+      throw new IllegalArgumentException("Invalid attribute filter: " + filter);
+    }
+    return new AttributeFilter(Arrays.asList(matcher.group(1).split("\\.")),
+        Operator.ofSymbol(matcher.group(2)), parseValue(matcher.group(3).trim()));
+  }
+
+  /**
+   * Splits an attribute path like {@code weight.value} into its keys.
+   *
+   * @throws IllegalArgumentException if {@code path} contains anything but keys of letters,
+   *                                  digits and underscores separated by dots
+   */
+  public static List<String> parsePath(final String path) {
+    if (path == null || !PATH_ONLY.matcher(path).matches()) {
+      throw new IllegalArgumentException("Invalid attribute path: " + path);
+    }
+    return Arrays.asList(path.split("\\."));
+  }
+
+  private static Object parseValue(final String value) {
+    if (value.length() >= 2 && value.startsWith("\"") && value.endsWith("\"")) {
+      return value.substring(1, value.length() - 1);
+    }
+    if (INTEGER.matcher(value).matches()) {
+      return Integer.valueOf(value);
+    }
+    if (DECIMAL.matcher(value).matches()) {
+      return new BigDecimal(value);
+    }
+    return value;
+  }
+
+  public List<String> getPath() {
+    return path;
+  }
+
+  public Operator getOperator() {
+    return operator;
+  }
+
+  public Object getValue() {
+    return value;
+  }
+
+  public ValueType getValueType() {
+    if (value instanceof Integer) {
+      return ValueType.INTEGER;
+    }
+    if (value instanceof BigDecimal) {
+      return ValueType.NUMERIC;
+    }
+    return ValueType.TEXT;
+  }
+
+  @Override
+  public boolean equals(Object o) {
+    if (this == o) {
+      return true;
+    }
+    if (o == null || getClass() != o.getClass()) {
+      return false;
+    }
+    AttributeFilter that = (AttributeFilter) o;
+    return path.equals(that.path) && operator == that.operator && value.equals(that.value);
+  }
+
+  @Override
+  public int hashCode() {
+    return Objects.hash(path, operator, value);
+  }
+
+  @Override
+  public String toString() {
+    final String text = value instanceof String ? "\"" + value + "\"" : value.toString();
+    return String.join(".", path) + operator.getSymbol() + text;
+  }
+}
@@ -0,0 +1,231 @@
+package com.jackis.jsonintegration.product.persistence;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map.Entry;
+
+/**
+ * Partial update of product attributes, read from a JSON Merge Patch (RFC 7396) or a JSON Patch
+ * (RFC 6902) document. Both are turned into a sequence of {@link Operation}s on attribute paths,
+ * which {@link AttributePatchCompiler} translates into SQL applied to the stored document.
+ */
+public class AttributePatch {
+
+  public enum Type {
+    ADD,
+    REMOVE,
+    REPLACE,
+    MOVE,
+    COPY,
+    TEST,
+    /**
+     * Replaces the members of the object at the path by those of the value, a value other than an
+     * object at the path is replaced by an empty object first.
+     */
+    MERGE,
+    /**
+     * Removes the value at the path if there is one.
+     */
+    REMOVE_IF_PRESENT
+  }
+
+  public static class Operation {
+
+    private final Type type;
+    private final List<String> path;
+    private final List<String> from;
+    private final JsonNode value;
+
+    public Operation(Type type, List<String> path, List<String> from, JsonNode value) {
+      this.type = type;
+      this.path = Collections.unmodifiableList(path);
+      this.from = from == null ? null : Collections.unmodifiableList(from);
+      this.value = value;
+    }
+
+    public Type getType() {
+      return type;
+    }
+
+    public List<String> getPath() {
+      return path;
+    }
+
+    public List<String> getFrom() {
+      return from;
+    }
+
+    public JsonNode getValue() {
+      return value;
+    }
+  }
+
+  private final boolean mergePatch;
+  private final List<Operation> operations;
+
+  private AttributePatch(boolean mergePatch, List<Operation> operations) {
+    this.mergePatch = mergePatch;
+    this.operations = Collections.unmodifiableList(operations);
+  }
+
+  /**
+   * Reads a JSON Merge Patch. Keys with a {@code null} value are removed, objects are merged
+   * recursively and every other value replaces the one found at its key.
+   *
+   * @throws IllegalArgumentException if the patch consists of more than {@code maxOperations}
+   *                                  operations
+   */
+  public static AttributePatch mergePatch(final JsonNode patch, final int maxOperations) {
+    final List<Operation> operations = new ArrayList<>();
+    if (patch.isObject()) {
+      merge(List.of(), patch, operations, maxOperations);
+    } else {
+      operations.add(new Operation(Type.REPLACE, List.of(), null, patch));
+    }
+    return new AttributePatch(true, operations);
+  }
+
+  private static void merge(final List<String> path, final JsonNode patch,
+      final List<Operation> operations, final int maxOperations) {
+    final ObjectNode members = JsonNodeFactory.instance.objectNode();
+    final List<Operation> removals = new ArrayList<>();
+    final List<Entry<String, JsonNode>> objects = new ArrayList<>();
+    for (final Iterator<Entry<String, JsonNode>> fields = patch.fields(); fields.hasNext(); ) {
+      final Entry<String, JsonNode> field = fields.next();
+      if (field.getValue().isNull()) {
+        removals.add(new Operation(Type.REMOVE_IF_PRESENT, append(path, field.getKey()), null,
+            null));
+      } else if (field.getValue().isObject()) {
+        objects.add(field);
+      } else {
+        members.set(field.getKey(), field.getValue());
+      }
+    }
+
+    // the object at a nested path has to be created even without members of its own
+    if (!path.isEmpty() || members.size() > 0) {
+      add(operations, new Operation(Type.MERGE, path, null, members), maxOperations);
+    }
+    for (final Operation removal : removals) {
+      add(operations, removal, maxOperations);
+    }
+    for (final Entry<String, JsonNode> object : objects) {
+      merge(append(path, object.getKey()), object.getValue(), operations, maxOperations);
+    }
+  }
+
+  /**
+   * Reads a JSON Patch, an array of operations applied in order. The whole patch is rejected
+   * when the database applies it if a path to remove, replace, move or copy does not exist, a
+   * path to add to has no parent or a {@code test} operation fails.
+   *
+   * @throws IllegalArgumentException if {@code patch} is no valid JSON Patch or consists of more
+   *                                  than {@code maxOperations} operations
+   */
+  public static AttributePatch jsonPatch(final JsonNode patch, final int maxOperations) {
+    if (!patch.isArray()) {
+      throw new IllegalArgumentException("JSON Patch is no array");
+    }
+    final List<Operation> operations = new ArrayList<>();
+    for (final JsonNode operation : patch) {
+      add(operations, readOperation(operation), maxOperations);
+    }
+    return new AttributePatch(false, operations);
+  }
+
+  private static Operation readOperation(final JsonNode operation) {
+    final Type type;
+    try {
+      type = Type.valueOf(text(operation, "op").toUpperCase());
+    } catch (final IllegalArgumentException ex) {
+      throw new IllegalArgumentException("Unknown operation: " + operation.get("op"));
+    }
+    final List<String> path = JsonPointer.parse(text(operation, "path"));
+
+    switch (type) {
+      case ADD:
+      case REPLACE:
+      case TEST:
+        if (!operation.has("value")) {
+          throw new IllegalArgumentException("Operation without value: " + operation);
+        }
+        return new Operation(type, path, null, operation.get("value"));
+      case REMOVE:
+        if (path.isEmpty()) {
+          throw new IllegalArgumentException("The whole document cannot be removed");
+        }
+        return new Operation(type, path, null, null);
+      case MOVE:
+      case COPY:
+        final List<String> from = JsonPointer.parse(text(operation, "from"));
+        if (path.isEmpty() || type == Type.MOVE && path.size() > from.size()
+            && path.subList(0, from.size()).equals(from)) {
+          throw new IllegalArgumentException("Invalid target of " + operation);
+        }
+        return new Operation(type, path, from, null);
+      default:
+        throw new IllegalArgumentException("Unknown operation: " + operation.get("op"));
+    }
+  }
+
+  private static String text(final JsonNode operation, final String field) {
+    final JsonNode value = operation.get(field);
+    if (value == null || !value.isTextual()) {
+      throw new IllegalArgumentException("Operation without " + field + ": " + operation);
+    }
+    return value.asText();
+  }
+
+  private static void add(final List<Operation> operations, final Operation operation,
+      final int maxOperations) {
+    if (operations.size() == maxOperations) {
+      throw new IllegalArgumentException("More than " + maxOperations + " operations");
+    }
+    operations.add(operation);
+  }
+
+  private static List<String> append(final List<String> path, final String key) {
+    final List<String> result = new ArrayList<>(path);
+    result.add(key);
+    return result;
+  }
+
+  public boolean isMergePatch() {
+    return mergePatch;
+  }
+
+  public List<Operation> getOperations() {
+    return operations;
+  }
+
+  /**
+   * JSON Pointers (RFC 6901) as used by JSON Patch.
+   */
+  static final class JsonPointer {
+
+    private JsonPointer() {
+    }
+
+    static List<String> parse(final String pointer) {
+      if (pointer.isEmpty()) {
+        return List.of();
+      }
+      if (pointer.charAt(0) != '/') {
+        throw new IllegalArgumentException("Invalid JSON Pointer: " + pointer);
+      }
+      final List<String> path = new ArrayList<>();
+      for (final String token : pointer.substring(1).split("/", -1)) {
+        if (token.replace("~0", "").replace("~1", "").contains("~")) {
+          throw new IllegalArgumentException("Invalid JSON Pointer: " + pointer);
+        }
+        path.add(token.replace("~1", "/").replace("~0", "~"));
+      }
+      return path;
+    }
+  }
+}
@@ -0,0 +1,108 @@
+package com.jackis.jsonintegration.product.persistence;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.jackis.jsonintegration.hibernate.JsonNodeCodec;
+import com.jackis.jsonintegration.product.persistence.AttributePatch.Operation;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Compiles an {@link AttributePatch} into one expression computing the patched attributes from
+ * the stored ones, so that a patch touches only the paths it changes and the document never
+ * leaves the database.
+ *
+ * <p>Merges compile to {@code ||}, at nested paths through {@code jsonb_merge_at}, removals of a
+ * merge patch to {@code #-}. JSON Patch operations compile to the {@code jsonb_patch_*} functions
+ * of {@code V1.2.0__Attribute_Patch_Functions.sql}, which are built on {@code jsonb_set},
+ * {@code jsonb_insert} and {@code #-} and return NULL if an operation cannot be applied. Every
+ * operation wraps the expression of the previous one, paths are bound as {@code TEXT[]} and values
+ * as JSON text, in the order of {@link CompiledPatch#getParameters()}.
+ */
+public final class AttributePatchCompiler {
+
+  static final class CompiledPatch {
+
+    private final String expression;
+    private final List<Object> parameters;
+
+    private CompiledPatch(String expression, List<Object> parameters) {
+      this.expression = expression;
+      this.parameters = parameters;
+    }
+
+    String getExpression() {
+      return expression;
+    }
+
+    /**
+     * Paths as {@code String[]}, values as JSON text.
+     */
+    List<Object> getParameters() {
+      return parameters;
+    }
+  }
+
+  private static final String VALUE = "CAST(? AS JSONB)";
+
+  private AttributePatchCompiler() {
+  }
+
+  static CompiledPatch compile(final AttributePatch patch) {
+    final List<Object> parameters = new ArrayList<>();
+    // a merge patch treats everything but an object like an empty object
+    String expression = patch.isMergePatch()
+        ? "CASE WHEN jsonb_typeof(attributes) = 'object' THEN attributes ELSE '{}' END"
+        : "COALESCE(attributes, '{}')";
+
+    for (final Operation operation : patch.getOperations()) {
+      switch (operation.getType()) {
+        case MERGE:
+          if (operation.getPath().isEmpty()) {
+            expression = "(" + expression + " || " + VALUE + ")";
+            parameters.add(json(operation.getValue()));
+          } else {
+            expression = "jsonb_merge_at(" + expression + ", ?, " + VALUE + ")";
+            parameters.add(path(operation.getPath()));
+            parameters.add(json(operation.getValue()));
+          }
+          break;
+        case REMOVE_IF_PRESENT:
+          expression = "(" + expression + " #- ?)";
+          parameters.add(path(operation.getPath()));
+          break;
+        case REMOVE:
+          expression = "jsonb_patch_remove(" + expression + ", ?)";
+          parameters.add(path(operation.getPath()));
+          break;
+        case MOVE:
+        case COPY:
+          expression = function(operation) + "(" + expression + ", ?, ?)";
+          parameters.add(path(operation.getFrom()));
+          parameters.add(path(operation.getPath()));
+          break;
+        default:
+          expression = function(operation) + "(" + expression + ", ?, " + VALUE + ")";
+          parameters.add(path(operation.getPath()));
+          parameters.add(json(operation.getValue()));
+      }
+    }
+    return new CompiledPatch(expression, parameters);
+  }
+
+  private static String function(final Operation operation) {
+    return "jsonb_patch_" + operation.getType().name().toLowerCase();
+  }
+
+  private static String[] path(final List<String> path) {
+    return path.toArray(new String[0]);
+  }
+
+  private static String json(final JsonNode value) {
+    try {
+      return JsonNodeCodec.shared().write(value);
+    } catch (final JsonProcessingException ex) {
+      throw new IllegalArgumentException(ex);
+    }
+  }
+}
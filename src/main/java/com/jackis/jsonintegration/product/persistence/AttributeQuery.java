@@ -0,0 +1,51 @@
+package com.jackis.jsonintegration.product.persistence;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Search criteria for products: an optional JSON document the attributes have to contain, any
+ * number of {@link AttributeFilter}s and top level keys that have to exist in the attributes. All
+ * of {@code requiredKeys} have to exist, at least one of {@code anyKeys} if any are given.
+ */
+public class AttributeQuery {
+
+  private final JsonNode containment;
+  private final List<AttributeFilter> filters;
+  private final List<String> requiredKeys;
+  private final List<String> anyKeys;
+
+  public AttributeQuery(JsonNode containment, List<AttributeFilter> filters) {
+    this(containment, filters, List.of(), List.of());
+  }
+
+  public AttributeQuery(JsonNode containment, List<AttributeFilter> filters,
+      List<String> requiredKeys, List<String> anyKeys) {
+    this.containment = containment;
+    this.filters = Collections.unmodifiableList(filters);
+    this.requiredKeys = Collections.unmodifiableList(requiredKeys);
+    this.anyKeys = Collections.unmodifiableList(anyKeys);
+  }
+
+  public JsonNode getContainment() {
+    return containment;
+  }
+
+  public List<AttributeFilter> getFilters() {
+    return filters;
+  }
+
+  public List<String> getRequiredKeys() {
+    return requiredKeys;
+  }
+
+  public List<String> getAnyKeys() {
+    return anyKeys;
+  }
+
+  public boolean isEmpty() {
+    return containment == null && filters.isEmpty() && requiredKeys.isEmpty()
+        && anyKeys.isEmpty();
+  }
+}
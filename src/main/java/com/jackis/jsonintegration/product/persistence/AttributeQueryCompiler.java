@@ -0,0 +1,150 @@
+package com.jackis.jsonintegration.product.persistence;
+
+import com.jackis.jsonintegration.hibernate.JsonNodeType;
+import com.jackis.jsonintegration.product.persistence.AttributeFilter.ValueType;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Compiles an {@link AttributeQuery} into the WHERE clause of a native query.
+ *
+ * <p>Attribute paths are written into the SQL text as literals, using the same expression as the
+ * expression indexes, e.g. {@code promoted_integer((attributes #> '{weight}' ->> 'value'))}. Only
+ * then can the planner match a filter against an index; a bound path never does. Paths are
+ * restricted to letters, digits and underscores by {@link AttributeFilter#parse(String)}, values
+ * are always bound. Integer and numeric values are converted by the {@code promoted_integer} and
+ * {@code promoted_numeric} functions rather than a cast: a value that is not a number, or does not
+ * fit an integer, yields NULL and fails the filter instead of the whole search. Only paths with an
+ * index on the plain cast, like {@code product_weight_idx} in the migrations, are compared by that
+ * cast, see {@link IndexedCasts}.
+ *
+ * <p>Containment is compiled to {@code @>}, which both the {@code jsonb_ops} and the smaller
+ * {@code jsonb_path_ops} GIN index support, key existence to {@code ?}, {@code ?&} and {@code ?|},
+ * which only a {@code jsonb_ops} index supports. The planner thereby picks the index per operator.
+ * The question mark of the key existence operators is written as {@code \?\?}: Hibernate passes
+ * on a backslash escaped character as is and the JDBC driver turns {@code ??} into a literal
+ * question mark.
+ *
+ * <p>Filters on a path promoted to a typed column compare the column instead, which needs
+ * neither the attributes nor a cast. The column holds NULL where the expression would fail.
+ */
+public final class AttributeQueryCompiler {
+
+  static final class CompiledQuery {
+
+    private final String where;
+    private final Map<String, Object> parameters;
+
+    private CompiledQuery(String where, Map<String, Object> parameters) {
+      this.where = where;
+      this.parameters = parameters;
+    }
+
+    String getWhere() {
+      return where;
+    }
+
+    Map<String, Object> getParameters() {
+      return parameters;
+    }
+  }
+
+  private static final String KEY_EXISTS = "\\?\\?";
+
+  private AttributeQueryCompiler() {
+  }
+
+  static CompiledQuery compile(final AttributeQuery query) {
+    return compile(query, PromotedColumns.NONE);
+  }
+
+  static CompiledQuery compile(final AttributeQuery query, final PromotedColumns promotedColumns) {
+    return compile(query, promotedColumns, IndexedCasts.NONE);
+  }
+
+  static CompiledQuery compile(final AttributeQuery query, final PromotedColumns promotedColumns,
+      final IndexedCasts indexedCasts) {
+    final List<String> predicates = new ArrayList<>();
+    final Map<String, Object> parameters = new LinkedHashMap<>();
+
+    if (query.getContainment() != null) {
+      predicates.add("attributes @> :containment");
+      parameters.put("containment", JsonNodeType.bind(query.getContainment()));
+    }
+
+    for (final AttributeFilter filter : query.getFilters()) {
+      final String parameter = "filter" + parameters.size();
+      final String column = promotedColumns.columnFor(filter.getPath(), filter.getValueType());
+      final String expression;
+      if (column != null) {
+        expression = column;
+      } else if (indexedCasts.contains(filter.getPath(), filter.getValueType())) {
+        expression = castExpression(filter.getPath(), filter.getValueType());
+      } else {
+        expression = valueExpression(filter.getPath(), filter.getValueType());
+      }
+      predicates.add(expression + " " + filter.getOperator().getSymbol() + " :" + parameter);
+      parameters.put(parameter, filter.getValue());
+    }
+
+    if (!query.getRequiredKeys().isEmpty()) {
+      predicates.add(keyExistence(query.getRequiredKeys(), KEY_EXISTS + "&", parameters));
+    }
+    if (!query.getAnyKeys().isEmpty()) {
+      predicates.add(keyExistence(query.getAnyKeys(), KEY_EXISTS + "|", parameters));
+    }
+
+    return new CompiledQuery(predicates.isEmpty() ? "TRUE" : String.join(" AND ", predicates),
+        parameters);
+  }
+
+  private static String keyExistence(final List<String> keys, final String arrayOperator,
+      final Map<String, Object> parameters) {
+    final List<String> names = new ArrayList<>();
+    for (final String key : keys) {
+      final String parameter = "key" + parameters.size();
+      names.add(":" + parameter);
+      parameters.put(parameter, key);
+    }
+    return names.size() == 1 ? "attributes " + KEY_EXISTS + " " + names.get(0)
+        : "attributes " + arrayOperator + " ARRAY[" + String.join(", ", names) + "]";
+  }
+
+  /**
+   * Returns the expression extracting the value at {@code path} converted to {@code valueType}.
+   * Expression indexes for attribute paths have to be created on exactly this expression.
+   */
+  public static String valueExpression(final List<String> path, final ValueType valueType) {
+    final String text = textExpression(path);
+    switch (valueType) {
+      case INTEGER:
+        return "promoted_integer(" + text + ")";
+      case NUMERIC:
+        return "promoted_numeric(" + text + ")";
+      default:
+        return text;
+    }
+  }
+
+  /**
+   * Returns the expression casting the value at {@code path} to {@code valueType}, as the index
+   * {@code product_weight_idx} in {@code V1.0.0__Create_Tables.sql} is built on.
+   */
+  static String castExpression(final List<String> path, final ValueType valueType) {
+    return "CAST(" + textExpression(path) + " AS " + valueType.name() + ")";
+  }
+
+  /**
+   * Returns the expression extracting the value at {@code path} as text.
+   */
+  static String textExpression(final List<String> path) {
+    final String last = path.get(path.size() - 1);
+    if (path.size() == 1) {
+      return "(attributes ->> '" + last + "')";
+    }
+    return "(attributes #> '{" + String.join(",", path.subList(0, path.size() - 1)) + "}' ->> '"
+        + last + "')";
+  }
+}
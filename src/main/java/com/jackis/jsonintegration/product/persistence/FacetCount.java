@@ -0,0 +1,24 @@
+package com.jackis.jsonintegration.product.persistence;
+
+/**
+ * Number of products counted under one value of a facet path. Values are the text of scalar
+ * values and of scalar array elements, so the number {@code 42} is counted as {@code "42"}.
+ */
+public class FacetCount {
+
+  private final String value;
+  private final long count;
+
+  public FacetCount(String value, long count) {
+    this.value = value;
+    this.count = count;
+  }
+
+  public String getValue() {
+    return value;
+  }
+
+  public long getCount() {
+    return count;
+  }
+}
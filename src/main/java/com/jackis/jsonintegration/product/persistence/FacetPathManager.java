@@ -0,0 +1,91 @@
+package com.jackis.jsonintegration.product.persistence;
+
+import com.jackis.jsonintegration.product.ProductFacetProperties;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Makes the database maintain facet counts for exactly the configured
+ * {@link ProductFacetProperties#getPaths()}. The triggers of {@code V1.3.0__Facet_Counts.sql}
+ * only keep existing counts up to date, counts of a new path are backfilled from all products.
+ * Writes to the product table are blocked while doing so, otherwise a product written during the
+ * backfill could be counted twice or not at all.
+ */
+@Component
+public class FacetPathManager {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(FacetPathManager.class);
+
+  private static final String BACKFILL_COUNTS = "INSERT INTO facet_count (path, value, count) "
+      + "SELECT f.path, v.value, count(*) FROM facet_path f "
+      + "CROSS JOIN product p "
+      + "CROSS JOIN LATERAL facet_values(p.attributes #> f.keys) AS v(value) "
+      + "WHERE f.path = ANY(?) GROUP BY f.path, v.value";
+
+  @Autowired
+  private JdbcTemplate jdbcTemplate;
+
+  @Autowired
+  private TransactionTemplate transactionTemplate;
+
+  @Autowired
+  private ProductFacetProperties productFacetProperties;
+
+  @EventListener(ApplicationReadyEvent.class)
+  public void applyOnStartup() {
+    final Set<String> paths = new LinkedHashSet<>(productFacetProperties.getPaths());
+    paths.forEach(AttributeFilter::parsePath);
+    if (!paths.equals(maintainedPaths())) {
+      transactionTemplate.executeWithoutResult(status -> apply(paths));
+    }
+  }
+
+  private void apply(final Set<String> paths) {
+    // conflicts with every write and with itself, but not with reads
+    jdbcTemplate.execute("LOCK TABLE product IN SHARE ROW EXCLUSIVE MODE");
+    final Set<String> maintainedPaths = maintainedPaths();
+
+    final List<String> droppedPaths = new ArrayList<>(maintainedPaths);
+    droppedPaths.removeAll(paths);
+    if (!droppedPaths.isEmpty()) {
+      LOGGER.info("Dropping facet counts of {}", droppedPaths);
+      // their counts are deleted by the foreign key
+      jdbcTemplate.update("DELETE FROM facet_path WHERE path = ANY(?)",
+          statement -> statement.setArray(1,
+              statement.getConnection().createArrayOf("text", droppedPaths.toArray())));
+    }
+
+    final List<String> addedPaths = new ArrayList<>(paths);
+    addedPaths.removeAll(maintainedPaths);
+    if (!addedPaths.isEmpty()) {
+      LOGGER.info("Backfilling facet counts of {}", addedPaths);
+      final long start = System.nanoTime();
+      for (final String path : addedPaths) {
+        jdbcTemplate.update("INSERT INTO facet_path (path, keys) VALUES (?, ?)",
+            statement -> {
+              statement.setString(1, path);
+              statement.setArray(2, statement.getConnection()
+                  .createArrayOf("text", AttributeFilter.parsePath(path).toArray()));
+            });
+      }
+      jdbcTemplate.update(BACKFILL_COUNTS, statement -> statement.setArray(1,
+          statement.getConnection().createArrayOf("text", addedPaths.toArray())));
+      LOGGER.info("Backfilled facet counts in {} ms", (System.nanoTime() - start) / 1_000_000);
+    }
+  }
+
+  private Set<String> maintainedPaths() {
+    return new LinkedHashSet<>(
+        jdbcTemplate.queryForList("SELECT path FROM facet_path", String.class));
+  }
+}
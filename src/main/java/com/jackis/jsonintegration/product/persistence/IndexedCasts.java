@@ -0,0 +1,57 @@
+package com.jackis.jsonintegration.product.persistence;
+
+import com.jackis.jsonintegration.product.persistence.AttributeFilter.ValueType;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Attribute paths with a btree index on the plain cast of their value, like
+ * {@code product_weight_idx} of {@code V1.0.0__Create_Tables.sql}, by path and value type.
+ *
+ * <p>Such an index fails every write of a value that does not cast, so every stored value at the
+ * path casts. Filters on these paths compare the cast itself, which the index serves, instead of
+ * the {@code promoted_integer} or {@code promoted_numeric} conversion.
+ */
+public final class IndexedCasts {
+
+  public static final IndexedCasts NONE = new IndexedCasts(Set.of());
+
+  /* the expression of an index on a single cast as PostgreSQL normalizes it, e.g. USING btree
+   * (((((attributes #> '{weight}'::text[]) ->> 'value'::text))::integer)), partial indexes end
+   * with their WHERE clause instead */
+  private static final Pattern CAST_INDEX = Pattern.compile("USING btree \\(\\(\\(\\("
+      + "(?:\\(attributes #> '\\{([A-Za-z0-9_,]+)}'::text\\[]\\)|attributes) ->> "
+      + "'([A-Za-z0-9_]+)'::text\\)\\)::(integer|numeric)\\)\\)$");
+
+  private final Set<String> paths;
+
+  private IndexedCasts(Set<String> paths) {
+    this.paths = paths;
+  }
+
+  /**
+   * Collects the paths with a cast index from index definitions as returned by
+   * {@link ProductTable#indexDefinitions()}.
+   */
+  public static IndexedCasts of(final Collection<String> indexDefinitions) {
+    final Set<String> paths = new HashSet<>();
+    for (final String definition : indexDefinitions) {
+      final Matcher matcher = CAST_INDEX.matcher(definition);
+      if (matcher.find()) {
+        final String path = matcher.group(1) == null ? matcher.group(2)
+            : matcher.group(1).replace(',', '.') + "." + matcher.group(2);
+        paths.add(PromotedColumns.key(path,
+            "integer".equals(matcher.group(3)) ? ValueType.INTEGER : ValueType.NUMERIC));
+      }
+    }
+    return new IndexedCasts(Set.copyOf(paths));
+  }
+
+  public boolean contains(final List<String> path, final ValueType valueType) {
+    return paths.contains(PromotedColumns.key(String.join(".", path), valueType));
+  }
+}
@@ -0,0 +1,24 @@
+package com.jackis.jsonintegration.product.persistence;
+
+import com.jackis.jsonintegration.product.ProductsChangedEvent;
+import javax.persistence.EntityManagerFactory;
+import org.hibernate.Cache;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+/**
+ * Evicts the cached query results of Hibernate when products change. Writes through Hibernate
+ * invalidate them by themselves, but the bulk import and attribute patches write with plain JDBC.
+ */
+@Component
+public class ProductCacheEvictor {
+
+  @Autowired
+  private EntityManagerFactory entityManagerFactory;
+
+  @EventListener
+  public void onProductsChanged(final ProductsChangedEvent event) {
+    entityManagerFactory.getCache().unwrap(Cache.class).evictQueryRegions();
+  }
+}
@@ -1,24 +1,45 @@
 package com.jackis.jsonintegration.product.persistence;
 
 import com.fasterxml.jackson.databind.JsonNode;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.NaturalId;
+import org.hibernate.annotations.NaturalIdCache;
 import org.hibernate.annotations.Type;
 
 import javax.persistence.*;
 import java.io.Serializable;
+import java.math.BigDecimal;
 import java.util.Objects;
 
 @Entity
 @Table(name = "product")
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
+@NaturalIdCache(region = "product-natural-id")
+@SqlResultSetMapping(name = ProductEntity.ROW_MAPPING, classes = @ConstructorResult(
+    targetClass = ProductRow.class, columns = {
+        @ColumnResult(name = "id", type = Long.class),
+        @ColumnResult(name = "name", type = String.class),
+        @ColumnResult(name = "sku", type = String.class),
+        @ColumnResult(name = "price", type = BigDecimal.class),
+        @ColumnResult(name = "currency", type = String.class),
+        @ColumnResult(name = "attributes", type = String.class)}))
 public class ProductEntity implements Serializable {
 
+  static final String ROW_MAPPING = "ProductRow";
+
   @Id
-  @GeneratedValue(strategy = GenerationType.IDENTITY)
+  @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "product_id_seq")
+  @SequenceGenerator(name = "product_id_seq", sequenceName = "product_id_seq",
+      allocationSize = ProductIdAllocator.ALLOCATION_SIZE)
   @Column
   private long id;
 
   @Column(nullable = false)
   private String name;
 
+  @NaturalId
   @Column(unique = true, nullable = false)
   private String sku;
 
@@ -0,0 +1,30 @@
+package com.jackis.jsonintegration.product.persistence;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Counts how many products have each value at attribute paths, the facets of a catalog front end.
+ * Counts are either computed over the products matching a query or read from the counts the
+ * database maintains for the paths in {@code facet_path}. Values are ordered by descending count.
+ */
+public interface ProductFacetRepository {
+
+  /**
+   * Counts the values at every one of the {@code paths} over all products matching {@code query}
+   * with a single scan of the matches, keeping the {@code limit} most frequent values per path.
+   * Every path is contained in the result.
+   */
+  @Transactional(readOnly = true)
+  Map<String, List<FacetCount>> countFacetsByAttributeQuery(AttributeQuery query,
+      List<String> paths, int limit);
+
+  /**
+   * Reads the maintained counts of the whole catalog, keeping the {@code limit} most frequent
+   * values per path. Paths whose counts are not maintained are missing from the result.
+   */
+  @Transactional(readOnly = true)
+  Map<String, List<FacetCount>> findMaintainedFacetCounts(Collection<String> paths, int limit);
+}
@@ -0,0 +1,104 @@
+package com.jackis.jsonintegration.product.persistence;
+
+import com.jackis.jsonintegration.product.persistence.AttributeQueryCompiler.CompiledQuery;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import javax.persistence.Query;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+public class ProductFacetRepositoryImpl implements ProductFacetRepository {
+
+  /**
+   * The lateral VALUES list refers to the product row, which makes the planner extract all paths
+   * from each match in turn instead of scanning the matches once per path. {@code facet_values}
+   * is the function the maintained counts are computed with.
+   */
+  private static final String COUNT_FACETS = "SELECT path, value, count FROM ("
+      + "SELECT f.path, v.value, count(*) AS count, "
+      + "row_number() OVER (PARTITION BY f.path ORDER BY count(*) DESC, v.value) AS rank "
+      + "FROM product "
+      + "CROSS JOIN LATERAL (VALUES %s) AS f(path, document) "
+      + "CROSS JOIN LATERAL facet_values(f.document) AS v(value) "
+      + "WHERE %s GROUP BY f.path, v.value) counts "
+      + "WHERE rank <= :limit ORDER BY path, rank";
+
+  // the number of values per path is small, sorting them is cheaper than indexing the counts
+  private static final String SELECT_MAINTAINED_COUNTS = "SELECT f.path, c.value, c.count "
+      + "FROM facet_path f LEFT JOIN LATERAL ("
+      + "SELECT value, count FROM facet_count WHERE facet_count.path = f.path "
+      + "ORDER BY count DESC, value LIMIT ?) c ON TRUE "
+      + "WHERE f.path = ANY(?) ORDER BY f.path, c.count DESC, c.value";
+
+  @PersistenceContext
+  private EntityManager entityManager;
+
+  @Autowired
+  private PromotedAttributeManager promotedAttributeManager;
+
+  @Autowired
+  private ProductTable productTable;
+
+  @Autowired
+  private JdbcTemplate jdbcTemplate;
+
+  @Override
+  @SuppressWarnings("unchecked")
+  public Map<String, List<FacetCount>> countFacetsByAttributeQuery(final AttributeQuery query,
+      final List<String> paths, final int limit) {
+    final Map<String, List<FacetCount>> facets = new LinkedHashMap<>();
+    if (paths.isEmpty()) {
+      return facets;
+    }
+
+    // paths are written into the SQL text, parsing them rejects everything but plain keys
+    final String documents = paths.stream()
+        .map(path -> "('" + path + "', attributes #> '{"
+            + String.join(",", AttributeFilter.parsePath(path)) + "}')")
+        .collect(Collectors.joining(", "));
+    final CompiledQuery compiledQuery = AttributeQueryCompiler.compile(query,
+        promotedAttributeManager.promotedColumns(), productTable.indexedCasts());
+
+    final Query nativeQuery = entityManager.createNativeQuery(
+        String.format(COUNT_FACETS, documents, compiledQuery.getWhere()));
+    compiledQuery.getParameters().forEach(nativeQuery::setParameter);
+    nativeQuery.setParameter("limit", limit);
+
+    paths.forEach(path -> facets.put(path, new ArrayList<>()));
+    for (final Object[] row : (List<Object[]>) nativeQuery.getResultList()) {
+      facets.get((String) row[0])
+          .add(new FacetCount((String) row[1], ((Number) row[2]).longValue()));
+    }
+    return facets;
+  }
+
+  @Override
+  public Map<String, List<FacetCount>> findMaintainedFacetCounts(final Collection<String> paths,
+      final int limit) {
+    final Map<String, List<FacetCount>> facets = new LinkedHashMap<>();
+    if (paths.isEmpty()) {
+      return facets;
+    }
+
+    jdbcTemplate.query(SELECT_MAINTAINED_COUNTS,
+        statement -> {
+          statement.setInt(1, limit);
+          statement.setArray(2, statement.getConnection().createArrayOf("text", paths.toArray()));
+        },
+        resultSet -> {
+          final List<FacetCount> counts = facets
+              .computeIfAbsent(resultSet.getString("path"), path -> new ArrayList<>());
+          // a maintained path without any counted value joins no count
+          if (resultSet.getString("value") != null) {
+            counts.add(new FacetCount(resultSet.getString("value"), resultSet.getLong("count")));
+          }
+        });
+    return facets;
+  }
+}
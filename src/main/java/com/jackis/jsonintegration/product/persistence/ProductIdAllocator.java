@@ -0,0 +1,45 @@
+package com.jackis.jsonintegration.product.persistence;
+
+import java.util.List;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+/**
+ * Hands out product ids for plain JDBC inserts following the same pooled scheme Hibernate uses
+ * for {@link ProductEntity}: every value of {@code product_id_seq} reserves the block of
+ * {@link #ALLOCATION_SIZE} ids ending with it.
+ */
+@Component
+public class ProductIdAllocator {
+
+  public static final int ALLOCATION_SIZE = 50;
+
+  @Autowired
+  private JdbcTemplate jdbcTemplate;
+
+  public long[] allocate(final int count) {
+    final int blocks = (count + ALLOCATION_SIZE - 1) / ALLOCATION_SIZE;
+    final List<Long> blockEnds = jdbcTemplate.queryForList(
+        "SELECT nextval('product_id_seq') FROM generate_series(1, ?)", Long.class, blocks);
+
+    final long[] ids = new long[count];
+    int idx = 0;
+    for (final long blockEnd : blockEnds) {
+      // the very first value of a fresh sequence is 1, so the block may be shorter
+      for (long id = Math.max(1, blockEnd - ALLOCATION_SIZE + 1); id <= blockEnd && idx < count;
+          id++) {
+        ids[idx++] = id;
+      }
+    }
+    if (idx < count) {
+      return concat(ids, idx, allocate(count - idx));
+    }
+    return ids;
+  }
+
+  private static long[] concat(final long[] ids, final int length, final long[] additionalIds) {
+    System.arraycopy(additionalIds, 0, ids, length, additionalIds.length);
+    return ids;
+  }
+}
@@ -0,0 +1,27 @@
+package com.jackis.jsonintegration.product.persistence;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Loads products by their SKU, the natural id of {@link ProductEntity}.
+ */
+public interface ProductLookupRepository {
+
+  /**
+   * Resolves {@code sku} through the natural id cache and loads the product from the second level
+   * cache, so repeated lookups of the same SKU do not reach the database.
+   */
+  @Transactional(readOnly = true)
+  Optional<ProductEntity> findBySku(String sku);
+
+  /**
+   * Loads the rows of all products with one of the {@code skus} with a single query, binding the
+   * SKUs as one array parameter. SKUs without a product are missing from the result, which is in
+   * no particular order.
+   */
+  @Transactional(readOnly = true)
+  List<ProductRow> findRowsBySkus(Collection<String> skus);
+}
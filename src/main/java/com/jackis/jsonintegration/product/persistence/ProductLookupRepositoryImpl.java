@@ -0,0 +1,43 @@
+package com.jackis.jsonintegration.product.persistence;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import org.hibernate.Session;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+public class ProductLookupRepositoryImpl implements ProductLookupRepository {
+
+  private static final String SELECT_ROWS_BY_SKUS = "SELECT id, name, sku, price, currency, "
+      + "CAST(attributes AS TEXT) AS attributes FROM product WHERE sku = ANY(?)";
+
+  @PersistenceContext
+  private EntityManager entityManager;
+
+  @Autowired
+  private JdbcTemplate jdbcTemplate;
+
+  @Override
+  public Optional<ProductEntity> findBySku(final String sku) {
+    return entityManager.unwrap(Session.class)
+        .bySimpleNaturalId(ProductEntity.class)
+        .loadOptional(sku);
+  }
+
+  @Override
+  public List<ProductRow> findRowsBySkus(final Collection<String> skus) {
+    if (skus.isEmpty()) {
+      return List.of();
+    }
+    return jdbcTemplate.query(SELECT_ROWS_BY_SKUS,
+        statement -> statement.setArray(1,
+            statement.getConnection().createArrayOf("varchar", skus.toArray())),
+        (resultSet, rowNum) -> new ProductRow(resultSet.getLong("id"),
+            resultSet.getString("name"), resultSet.getString("sku"),
+            resultSet.getBigDecimal("price"), resultSet.getString("currency"),
+            resultSet.getString("attributes")));
+  }
+}
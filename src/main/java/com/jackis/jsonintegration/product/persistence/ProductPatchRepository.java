@@ -0,0 +1,21 @@
+package com.jackis.jsonintegration.product.persistence;
+
+import java.util.Collection;
+import java.util.Map;
+
+/**
+ * Applies {@link AttributePatch}es to the attributes of stored products.
+ */
+public interface ProductPatchRepository {
+
+  /**
+   * Applies {@code patch} to the products with one of the {@code skus} with a single statement.
+   * Each product is patched atomically, its attributes are neither read by the application nor
+   * written as a whole. Patched products are evicted from the second level cache.
+   *
+   * @return for every SKU a product exists for, whether the patch was applied to it; a patch that
+   *     cannot be applied to a product, e.g. because of a failing {@code test} operation, leaves it
+   *     unchanged
+   */
+  Map<String, Boolean> patchAttributes(Collection<String> skus, AttributePatch patch);
+}
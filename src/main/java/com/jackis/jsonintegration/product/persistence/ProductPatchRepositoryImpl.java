@@ -0,0 +1,65 @@
+package com.jackis.jsonintegration.product.persistence;
+
+import com.jackis.jsonintegration.product.persistence.AttributePatchCompiler.CompiledPatch;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import javax.persistence.EntityManagerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+public class ProductPatchRepositoryImpl implements ProductPatchRepository {
+
+  /**
+   * Computes the patched attributes of the locked rows first, so that a patch which cannot be
+   * applied is reported instead of writing NULL. Row locks make concurrent patches of the same
+   * product apply one after the other, each to the result of the previous one.
+   */
+  private static final String PATCH_ATTRIBUTES = "WITH patched AS ("
+      + "SELECT id, sku, %s AS attributes FROM product WHERE sku = ANY(?) FOR UPDATE), "
+      + "updated AS (UPDATE product SET attributes = patched.attributes FROM patched "
+      + "WHERE product.id = patched.id AND product.sku = patched.sku "
+      + "AND patched.attributes IS NOT NULL) "
+      + "SELECT id, sku, patched.attributes IS NOT NULL AS applied FROM patched";
+
+  @Autowired
+  private JdbcTemplate jdbcTemplate;
+
+  @Autowired
+  private EntityManagerFactory entityManagerFactory;
+
+  @Override
+  public Map<String, Boolean> patchAttributes(final Collection<String> skus,
+      final AttributePatch patch) {
+    final Map<String, Boolean> applied = new HashMap<>();
+    if (skus.isEmpty()) {
+      return applied;
+    }
+
+    final CompiledPatch compiledPatch = AttributePatchCompiler.compile(patch);
+    final List<Object> parameters = compiledPatch.getParameters();
+    jdbcTemplate.query(String.format(PATCH_ATTRIBUTES, compiledPatch.getExpression()),
+        statement -> {
+          int index = 1;
+          for (final Object parameter : parameters) {
+            if (parameter instanceof String[]) {
+              statement.setArray(index++,
+                  statement.getConnection().createArrayOf("text", (String[]) parameter));
+            } else {
+              statement.setString(index++, (String) parameter);
+            }
+          }
+          statement.setArray(index, statement.getConnection().createArrayOf("varchar",
+              skus.toArray()));
+        },
+        resultSet -> {
+          final boolean patched = resultSet.getBoolean("applied");
+          applied.put(resultSet.getString("sku"), patched);
+          if (patched) {
+            entityManagerFactory.getCache().evict(ProductEntity.class, resultSet.getLong("id"));
+          }
+        });
+    return applied;
+  }
+}
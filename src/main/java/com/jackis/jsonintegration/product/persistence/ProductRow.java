@@ -0,0 +1,51 @@
+package com.jackis.jsonintegration.product.persistence;
+
+import java.math.BigDecimal;
+
+/**
+ * Read only projection of a product row. The attributes are kept as the JSON text the database
+ * returned and never parsed, for responses that pass them on unchanged.
+ */
+public class ProductRow {
+
+  private final long id;
+  private final String name;
+  private final String sku;
+  private final BigDecimal price;
+  private final String currency;
+  private final String attributes;
+
+  public ProductRow(Long id, String name, String sku, BigDecimal price, String currency,
+      String attributes) {
+    this.id = id;
+    this.name = name;
+    this.sku = sku;
+    this.price = price;
+    this.currency = currency;
+    this.attributes = attributes;
+  }
+
+  public long getId() {
+    return id;
+  }
+
+  public String getName() {
+    return name;
+  }
+
+  public String getSku() {
+    return sku;
+  }
+
+  public BigDecimal getPrice() {
+    return price;
+  }
+
+  public String getCurrency() {
+    return currency;
+  }
+
+  public String getAttributes() {
+    return attributes;
+  }
+}
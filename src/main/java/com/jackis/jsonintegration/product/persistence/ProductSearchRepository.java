@@ -0,0 +1,45 @@
+package com.jackis.jsonintegration.product.persistence;
+
+import java.util.List;
+import java.util.stream.Stream;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Searches products by an {@link AttributeQuery}. The SQL is compiled per query, which is why
+ * these methods are implemented by hand instead of with {@code @Query}.
+ */
+public interface ProductSearchRepository {
+
+  /**
+   * Returns one page of matches ordered by id, starting behind {@code afterId}. Pages are cached
+   * in the query cache of Hibernate until the product table changes.
+   */
+  @Transactional(readOnly = true)
+  List<ProductEntity> findByAttributeQuery(AttributeQuery query, long afterId, int limit);
+
+  /**
+   * Streams all matches from a server side cursor. Must be called, and the stream consumed and
+   * closed, within a transaction.
+   */
+  Stream<ProductEntity> streamByAttributeQuery(AttributeQuery query);
+
+  /**
+   * Like {@link #findByAttributeQuery(AttributeQuery, long, int)}, but returns the attributes as
+   * unparsed JSON text.
+   */
+  @Transactional(readOnly = true)
+  List<ProductRow> findRowsByAttributeQuery(AttributeQuery query, long afterId, int limit);
+
+  /**
+   * Like {@link #streamByAttributeQuery(AttributeQuery)}, but returns the attributes as unparsed
+   * JSON text.
+   */
+  Stream<ProductRow> streamRowsByAttributeQuery(AttributeQuery query);
+
+  /**
+   * Asks the planner for the cost and number of matches of a search without running it. With a
+   * {@code limit} the cost is the one of the first page, otherwise the one of all matches.
+   */
+  @Transactional(readOnly = true)
+  QueryEstimate estimateByAttributeQuery(AttributeQuery query, Integer limit);
+}
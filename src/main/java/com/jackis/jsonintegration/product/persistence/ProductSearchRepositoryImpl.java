@@ -0,0 +1,149 @@
+package com.jackis.jsonintegration.product.persistence;
+
+import static org.hibernate.jpa.QueryHints.HINT_FETCH_SIZE;
+import static org.hibernate.jpa.QueryHints.HINT_READONLY;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.jackis.jsonintegration.product.persistence.AttributeQueryCompiler.CompiledQuery;
+import java.util.List;
+import java.util.function.Function;
+import java.util.stream.Stream;
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import javax.persistence.Query;
+import org.hibernate.query.NativeQuery;
+import org.hibernate.type.StringType;
+import org.springframework.beans.factory.annotation.Autowired;
+
+public class ProductSearchRepositoryImpl implements ProductSearchRepository {
+
+  private static final int STREAM_FETCH_SIZE = 500;
+
+  private static final String SEARCH_CACHE_REGION = "product-search";
+
+  private static final String SELECT_ENTITIES = "SELECT * FROM product WHERE ";
+
+  // the JSONB column is read as its text representation, which bypasses JsonNodeType
+  private static final String SELECT_ROWS = "SELECT id, name, sku, price, currency, "
+      + "CAST(attributes AS TEXT) AS attributes FROM product WHERE ";
+
+  private static final String EXPLAIN = "EXPLAIN (FORMAT JSON) ";
+
+  private static final String QUERY_PLAN = "QUERY PLAN";
+
+  @PersistenceContext
+  private EntityManager entityManager;
+
+  @Autowired
+  private PromotedAttributeManager promotedAttributeManager;
+
+  @Autowired
+  private ProductTable productTable;
+
+  @Autowired
+  private ObjectMapper objectMapper;
+
+  @Override
+  @SuppressWarnings("unchecked")
+  public List<ProductEntity> findByAttributeQuery(final AttributeQuery query, final long afterId,
+      final int limit) {
+    return createPageQuery(SELECT_ENTITIES, query, afterId, limit, this::cachedEntityQuery)
+        .getResultList();
+  }
+
+  @Override
+  @SuppressWarnings("unchecked")
+  public Stream<ProductEntity> streamByAttributeQuery(final AttributeQuery query) {
+    return createStreamQuery(SELECT_ENTITIES, query, this::entityQuery).getResultStream();
+  }
+
+  @Override
+  @SuppressWarnings("unchecked")
+  public List<ProductRow> findRowsByAttributeQuery(final AttributeQuery query, final long afterId,
+      final int limit) {
+    return createPageQuery(SELECT_ROWS, query, afterId, limit, this::rowQuery).getResultList();
+  }
+
+  @Override
+  @SuppressWarnings("unchecked")
+  public Stream<ProductRow> streamRowsByAttributeQuery(final AttributeQuery query) {
+    return createStreamQuery(SELECT_ROWS, query, this::rowQuery).getResultStream();
+  }
+
+  @Override
+  public QueryEstimate estimateByAttributeQuery(final AttributeQuery query,
+      final Integer limit) {
+    final String select = EXPLAIN + SELECT_ROWS;
+    final Query explainQuery = limit == null
+        ? createStreamQuery(select, query, this::planQuery)
+        : createPageQuery(select, query, 0, limit, this::planQuery);
+
+    final JsonNode plan;
+    try {
+      plan = objectMapper.readTree((String) explainQuery.getSingleResult()).path(0).path("Plan");
+    } catch (final JsonProcessingException ex) {
+      throw new IllegalStateException(ex);
+    }
+    // the limit node expects as many rows as it returns, the node below it all matches
+    final JsonNode matches = "Limit".equals(plan.path("Node Type").asText())
+        ? plan.path("Plans").path(0) : plan;
+    return new QueryEstimate(plan.path("Total Cost").asDouble(),
+        matches.path("Plan Rows").asLong());
+  }
+
+  private Query createPageQuery(final String select, final AttributeQuery query,
+      final long afterId, final int limit, final Function<String, Query> queryFactory) {
+    final CompiledQuery compiledQuery = AttributeQueryCompiler.compile(query,
+        promotedAttributeManager.promotedColumns(), productTable.indexedCasts());
+
+    final Query nativeQuery = queryFactory.apply(select + compiledQuery.getWhere()
+        + " AND id > :afterId ORDER BY id LIMIT :limit");
+    compiledQuery.getParameters().forEach(nativeQuery::setParameter);
+    nativeQuery.setParameter("afterId", afterId);
+    nativeQuery.setParameter("limit", limit);
+    return nativeQuery;
+  }
+
+  private Query createStreamQuery(final String select, final AttributeQuery query,
+      final Function<String, Query> queryFactory) {
+    final CompiledQuery compiledQuery = AttributeQueryCompiler.compile(query,
+        promotedAttributeManager.promotedColumns(), productTable.indexedCasts());
+
+    final Query nativeQuery = queryFactory.apply(select + compiledQuery.getWhere());
+    compiledQuery.getParameters().forEach(nativeQuery::setParameter);
+    nativeQuery.setHint(HINT_FETCH_SIZE, STREAM_FETCH_SIZE);
+    return nativeQuery;
+  }
+
+  /**
+   * Search results are never modified, as read only entities Hibernate neither snapshots their
+   * attributes nor checks them for changes at flush.
+   */
+  private Query entityQuery(final String sql) {
+    return entityManager.createNativeQuery(sql, ProductEntity.class)
+        .setHint(HINT_READONLY, true);
+  }
+
+  /**
+   * Pages are kept in the query cache as the ids of their products, which are then read from the
+   * entity region instead of being hydrated again. Writes through Hibernate invalidate them by
+   * the product table, the others through {@link ProductCacheEvictor}.
+   */
+  private Query cachedEntityQuery(final String sql) {
+    return entityQuery(sql).unwrap(NativeQuery.class)
+        .addSynchronizedEntityClass(ProductEntity.class)
+        .setCacheable(true)
+        .setCacheRegion(SEARCH_CACHE_REGION);
+  }
+
+  private Query planQuery(final String sql) {
+    return entityManager.createNativeQuery(sql).unwrap(NativeQuery.class)
+        .addScalar(QUERY_PLAN, StringType.INSTANCE);
+  }
+
+  private Query rowQuery(final String sql) {
+    return entityManager.createNativeQuery(sql, ProductEntity.ROW_MAPPING);
+  }
+}
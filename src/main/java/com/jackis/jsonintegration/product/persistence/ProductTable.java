@@ -0,0 +1,121 @@
+package com.jackis.jsonintegration.product.persistence;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+/**
+ * Builds and drops indexes on the product table without blocking writes, whether or not the
+ * table is partitioned.
+ *
+ * <p>PostgreSQL cannot build an index on a partitioned table concurrently. The index is created
+ * on the partitioned table only, which leaves it invalid, then built concurrently on each
+ * partition and attached. Once all partitions are attached it becomes valid. Dropping an index of
+ * a partitioned table cannot happen concurrently either, it locks the table briefly.
+ */
+@Component
+public class ProductTable {
+
+  private static final int MAX_IDENTIFIER_LENGTH = 63;
+
+  @Autowired
+  private JdbcTemplate jdbcTemplate;
+
+  private volatile IndexedCasts indexedCasts = IndexedCasts.NONE;
+
+  public boolean isPartitioned() {
+    return jdbcTemplate.queryForObject(
+        "SELECT relkind = 'p' FROM pg_class WHERE oid = 'product'::regclass", Boolean.class);
+  }
+
+  /**
+   * Returns the names of the partitions of the product table, none if it is not partitioned.
+   */
+  public List<String> partitions() {
+    return jdbcTemplate.queryForList("SELECT c.relname FROM pg_inherits i "
+        + "JOIN pg_class c ON c.oid = i.inhrelid WHERE i.inhparent = 'product'::regclass "
+        + "ORDER BY c.relname", String.class);
+  }
+
+  /**
+   * Returns the definitions of the indexes of the product table by name. Unlike the
+   * {@code pg_indexes} view of PostgreSQL 11, this includes the indexes of a partitioned table.
+   */
+  public Map<String, String> indexDefinitions() {
+    final Map<String, String> indexes = new LinkedHashMap<>();
+    jdbcTemplate.query("SELECT c.relname, pg_get_indexdef(i.indexrelid) FROM pg_index i "
+            + "JOIN pg_class c ON c.oid = i.indexrelid WHERE i.indrelid = 'product'::regclass "
+            + "ORDER BY c.relname",
+        resultSet -> {
+          indexes.put(resultSet.getString(1), resultSet.getString(2));
+        });
+    return indexes;
+  }
+
+  /**
+   * Returns the attribute paths with an index on the plain cast of their value. Only migrations
+   * create such indexes, so they are looked up once at startup.
+   */
+  public IndexedCasts indexedCasts() {
+    return indexedCasts;
+  }
+
+  @EventListener(ApplicationReadyEvent.class)
+  public void findIndexedCasts() {
+    indexedCasts = IndexedCasts.of(indexDefinitions().values());
+  }
+
+  /**
+   * Creates the index {@code indexName} with {@code definition}, the part of the statement
+   * following the table name, e.g. {@code USING GIN (attributes jsonb_ops)}, if it does not
+   * exist yet.
+   */
+  public void createIndex(final String indexName, final String definition) {
+    if (!isPartitioned()) {
+      createIndexConcurrently(indexName, "product", definition);
+      return;
+    }
+    jdbcTemplate.execute(
+        "CREATE INDEX IF NOT EXISTS " + indexName + " ON ONLY product " + definition);
+    for (final String partition : partitions()) {
+      final String partitionIndexName = partitionIndexName(indexName, partition);
+      createIndexConcurrently(partitionIndexName, partition, definition);
+      jdbcTemplate.execute("ALTER INDEX " + indexName + " ATTACH PARTITION " + partitionIndexName);
+    }
+  }
+
+  public void dropIndex(final String indexName) {
+    jdbcTemplate.execute(isPartitioned()
+        ? "DROP INDEX IF EXISTS " + indexName
+        : "DROP INDEX CONCURRENTLY IF EXISTS " + indexName);
+  }
+
+  private void createIndexConcurrently(final String indexName, final String table,
+      final String definition) {
+    try {
+      jdbcTemplate.execute(
+          "CREATE INDEX CONCURRENTLY IF NOT EXISTS " + indexName + " ON " + table + " "
+              + definition);
+    } catch (final DataAccessException ex) {
+      // a failed concurrent build leaves an invalid index behind
+      jdbcTemplate.execute("DROP INDEX CONCURRENTLY IF EXISTS " + indexName);
+      throw ex;
+    }
+  }
+
+  /**
+   * Returns the name of the index of {@code partition} attached to {@code indexName}, e.g.
+   * {@code product_weight_idx_p3} for the partition {@code product_p3}.
+   */
+  static String partitionIndexName(final String indexName, final String partition) {
+    final String suffix = partition.substring(partition.lastIndexOf('_'));
+    return indexName.substring(0,
+        Math.min(indexName.length(), MAX_IDENTIFIER_LENGTH - suffix.length())) + suffix;
+  }
+}
@@ -0,0 +1,238 @@
+package com.jackis.jsonintegration.product.persistence;
+
+import com.jackis.jsonintegration.product.ProductPromotionProperties;
+import com.jackis.jsonintegration.product.ProductPromotionProperties.PromotedAttribute;
+import com.jackis.jsonintegration.product.persistence.AttributeFilter.ValueType;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Keeps a typed column of the product table for every configured
+ * {@link ProductPromotionProperties#getAttributes() promoted attribute}. The trigger function
+ * {@code product_promote_attributes()} is generated to copy the values into the columns on every
+ * insert and attribute update.
+ *
+ * <p>A new column is added without a default, which does not rewrite the table, and the trigger
+ * fills it from then on. Rows written before are backfilled in batches of ids, each in its own
+ * transaction, so writes are never blocked for long. Then a btree index on the column and the id
+ * is built concurrently. Only afterwards queries use the column, until then they keep using the
+ * attributes. A backfill interrupted by a restart is resumed.
+ */
+@Component
+public class PromotedAttributeManager {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(PromotedAttributeManager.class);
+
+  private static final String COLUMN_PREFIX = "attr_";
+
+  // leaves room for the index name, PostgreSQL truncates identifiers to 63 characters
+  private static final int MAX_COLUMN_NAME_LENGTH = 50;
+
+  @Autowired
+  private JdbcTemplate jdbcTemplate;
+
+  @Autowired
+  private TransactionTemplate transactionTemplate;
+
+  @Autowired
+  private ProductPromotionProperties productPromotionProperties;
+
+  @Autowired
+  private ProductTable productTable;
+
+  private volatile PromotedColumns promotedColumns = PromotedColumns.NONE;
+
+  /**
+   * Returns the columns queries may use instead of the attributes.
+   */
+  public PromotedColumns promotedColumns() {
+    return promotedColumns;
+  }
+
+  @EventListener(ApplicationReadyEvent.class)
+  public synchronized void applyOnStartup() {
+    final Map<String, PromotedAttribute> configured = new LinkedHashMap<>();
+    for (final PromotedAttribute attribute : productPromotionProperties.getAttributes()) {
+      AttributeFilter.parsePath(attribute.getPath());
+      final String column = columnName(attribute.getPath(), attribute.getValueType());
+      final PromotedAttribute previous = configured.put(column, attribute);
+      if (previous != null) {
+        throw new IllegalStateException("Promoted attributes " + previous.getPath() + " and "
+            + attribute.getPath() + " both map to the column " + column);
+      }
+    }
+    final List<String> droppedColumns = droppedColumns(configured);
+    if (!droppedColumns.isEmpty() || !addedColumns(configured).isEmpty()) {
+      // stop using dropped columns before they disappear
+      refresh(droppedColumns);
+      transactionTemplate.executeWithoutResult(status -> alter(configured));
+    }
+
+    final List<String> pendingColumns = registeredColumns().entrySet().stream()
+        .filter(entry -> !entry.getValue())
+        .map(Map.Entry::getKey)
+        .collect(Collectors.toList());
+    if (!pendingColumns.isEmpty()) {
+      backfill(pendingColumns);
+    }
+    refresh(List.of());
+  }
+
+  private void alter(final Map<String, PromotedAttribute> configured) {
+    // instances starting at the same time alter the table one after the other
+    jdbcTemplate.execute("LOCK TABLE promoted_attribute IN SHARE ROW EXCLUSIVE MODE");
+    final List<String> droppedColumns = droppedColumns(configured);
+    final List<String> addedColumns = addedColumns(configured);
+
+    for (final String column : droppedColumns) {
+      LOGGER.info("Dropping promoted attribute column {}", column);
+      jdbcTemplate.update("DELETE FROM promoted_attribute WHERE column_name = ?", column);
+      jdbcTemplate.execute("ALTER TABLE product DROP COLUMN IF EXISTS " + column);
+    }
+    for (final String column : addedColumns) {
+      final PromotedAttribute attribute = configured.get(column);
+      LOGGER.info("Adding promoted attribute column {} for {}", column, attribute.getPath());
+      jdbcTemplate.update("INSERT INTO promoted_attribute (column_name, path, value_type) "
+          + "VALUES (?, ?, ?)", column, attribute.getPath(), attribute.getValueType().name());
+      jdbcTemplate.execute("ALTER TABLE product ADD COLUMN IF NOT EXISTS " + column + " "
+          + attribute.getValueType().name());
+    }
+    jdbcTemplate.execute(triggerFunction(jdbcTemplate.query(
+        "SELECT column_name, path, value_type FROM promoted_attribute ORDER BY column_name",
+        (resultSet, rowNum) -> promotion(resultSet.getString("column_name"),
+            resultSet.getString("path"), ValueType.valueOf(resultSet.getString("value_type"))))));
+  }
+
+  private void backfill(final List<String> columns) {
+    final Map<String, String> expressions = new LinkedHashMap<>();
+    jdbcTemplate.query("SELECT column_name, path, value_type FROM promoted_attribute "
+            + "WHERE column_name = ANY(?)",
+        statement -> statement.setArray(1,
+            statement.getConnection().createArrayOf("text", columns.toArray())),
+        resultSet -> {
+          expressions.put(resultSet.getString("column_name"), conversion("attributes",
+              resultSet.getString("path"), ValueType.valueOf(resultSet.getString("value_type"))));
+        });
+
+    // rows written from now on are promoted by the trigger
+    final Long maxId = jdbcTemplate.queryForObject("SELECT max(id) FROM product", Long.class);
+    final String update = "UPDATE product SET " + expressions.entrySet().stream()
+        .map(entry -> entry.getKey() + " = " + entry.getValue())
+        .collect(Collectors.joining(", ")) + " WHERE id > ? AND id <= ?";
+    final int batchSize = productPromotionProperties.getBackfillBatchSize();
+
+    LOGGER.info("Backfilling promoted attribute columns {} up to id {}", columns, maxId);
+    final long start = System.nanoTime();
+    long rows = 0;
+    for (long fromId = 0; maxId != null && fromId < maxId; fromId += batchSize) {
+      rows += jdbcTemplate.update(update, fromId, Math.min(fromId + batchSize, maxId));
+    }
+    LOGGER.info("Backfilled {} rows in {} ms", rows, (System.nanoTime() - start) / 1_000_000);
+
+    for (final String column : columns) {
+      productTable.createIndex("product_" + column + "_idx", "(" + column + ", id)");
+      jdbcTemplate.update("UPDATE promoted_attribute SET backfilled = TRUE WHERE column_name = ?",
+          column);
+    }
+    // statistics of the new columns let the planner estimate filters on them
+    jdbcTemplate.execute("ANALYZE product");
+  }
+
+  private void refresh(final List<String> excludedColumns) {
+    final Map<String, String> columns = new HashMap<>();
+    jdbcTemplate.query("SELECT column_name, path, value_type FROM promoted_attribute "
+        + "WHERE backfilled", resultSet -> {
+      if (!excludedColumns.contains(resultSet.getString("column_name"))) {
+        columns.put(PromotedColumns.key(resultSet.getString("path"),
+            ValueType.valueOf(resultSet.getString("value_type"))),
+            resultSet.getString("column_name"));
+      }
+    });
+    promotedColumns = new PromotedColumns(columns);
+  }
+
+  private List<String> droppedColumns(final Map<String, PromotedAttribute> configured) {
+    return registeredColumns().keySet().stream()
+        .filter(column -> !configured.containsKey(column))
+        .collect(Collectors.toList());
+  }
+
+  private List<String> addedColumns(final Map<String, PromotedAttribute> configured) {
+    final Map<String, Boolean> registered = registeredColumns();
+    return configured.keySet().stream()
+        .filter(column -> !registered.containsKey(column))
+        .collect(Collectors.toList());
+  }
+
+  private Map<String, Boolean> registeredColumns() {
+    final Map<String, Boolean> columns = new LinkedHashMap<>();
+    jdbcTemplate.query("SELECT column_name, backfilled FROM promoted_attribute",
+        resultSet -> {
+          columns.put(resultSet.getString("column_name"), resultSet.getBoolean("backfilled"));
+        });
+    return columns;
+  }
+
+  private static String triggerFunction(final List<String> promotions) {
+    return "CREATE OR REPLACE FUNCTION product_promote_attributes() RETURNS TRIGGER AS $$\n"
+        + "BEGIN\n"
+        + promotions.stream().map(promotion -> "  " + promotion + ";\n")
+        .collect(Collectors.joining())
+        + "  RETURN NEW;\n"
+        + "END\n"
+        + "$$ LANGUAGE plpgsql";
+  }
+
+  private static String promotion(final String column, final String path,
+      final ValueType valueType) {
+    return "NEW." + column + " := " + conversion("NEW.attributes", path, valueType);
+  }
+
+  /**
+   * Converts the value at {@code path} like the cast of a filter on it, but to NULL where the
+   * cast would fail.
+   */
+  private static String conversion(final String attributes, final String path,
+      final ValueType valueType) {
+    final String text = "(" + attributes + " #>> '{"
+        + String.join(",", AttributeFilter.parsePath(path)) + "}')";
+    switch (valueType) {
+      case INTEGER:
+        return "promoted_integer" + text;
+      case NUMERIC:
+        return "promoted_numeric" + text;
+      default:
+        return text;
+    }
+  }
+
+  /**
+   * Returns the column name for {@code path} and {@code valueType}, e.g.
+   * {@code attr_weight_value_integer}. Keys differing only in case, or in dots and underscores, get
+   * different names.
+   */
+  static String columnName(final String path, final ValueType valueType) {
+    final String name = COLUMN_PREFIX + path.replace('.', '_').toLowerCase() + "_"
+        + valueType.name().toLowerCase();
+    if (name.length() <= MAX_COLUMN_NAME_LENGTH && path.equals(path.toLowerCase())
+        && path.indexOf('_') < 0) {
+      return name;
+    }
+    // dots and underscores both end up as underscores, PostgreSQL folds and truncates
+    // identifiers, keep distinct paths apart with a hash
+    final String hash = Integer.toHexString(path.hashCode() * 31 + valueType.ordinal());
+    return name.substring(0, Math.min(name.length(), MAX_COLUMN_NAME_LENGTH - hash.length() - 1))
+        + "_" + hash;
+  }
+}
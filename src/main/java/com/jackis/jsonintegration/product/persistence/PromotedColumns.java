@@ -0,0 +1,42 @@
+package com.jackis.jsonintegration.product.persistence;
+
+import com.jackis.jsonintegration.product.persistence.AttributeFilter.ValueType;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Typed columns holding the values of promoted attribute paths, by path and value type. Only
+ * completely backfilled columns are contained, a query may use them instead of the attributes.
+ */
+public final class PromotedColumns {
+
+  public static final PromotedColumns NONE = new PromotedColumns(Map.of());
+
+  private final Map<String, String> columns;
+
+  PromotedColumns(Map<String, String> columns) {
+    this.columns = Collections.unmodifiableMap(columns);
+  }
+
+  static String key(final String path, final ValueType valueType) {
+    return path + ":" + valueType;
+  }
+
+  /**
+   * Returns the column with the values at {@code path} compared as {@code valueType}, or
+   * {@code null} if there is none. Integers are compared exactly by a numeric column as well.
+   */
+  public String columnFor(final List<String> path, final ValueType valueType) {
+    final String joinedPath = String.join(".", path);
+    final String column = columns.get(key(joinedPath, valueType));
+    if (column == null && valueType == ValueType.INTEGER) {
+      return columns.get(key(joinedPath, ValueType.NUMERIC));
+    }
+    return column;
+  }
+
+  public boolean isEmpty() {
+    return columns.isEmpty();
+  }
+}
@@ -0,0 +1,30 @@
+package com.jackis.jsonintegration.product.persistence;
+
+/**
+ * The cost and number of matching rows the planner expects for a search, see
+ * {@link ProductSearchRepository#estimateByAttributeQuery(AttributeQuery, Integer)}.
+ */
+public class QueryEstimate {
+
+  private final double cost;
+  private final long rows;
+
+  public QueryEstimate(double cost, long rows) {
+    this.cost = cost;
+    this.rows = rows;
+  }
+
+  /**
+   * Returns the total cost of the plan in the units of the planner.
+   */
+  public double getCost() {
+    return cost;
+  }
+
+  /**
+   * Returns the number of products expected to match, regardless of a limit.
+   */
+  public long getRows() {
+    return rows;
+  }
+}
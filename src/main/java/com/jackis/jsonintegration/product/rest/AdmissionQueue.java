@@ -0,0 +1,71 @@
+package com.jackis.jsonintegration.product.rest;
+
+import com.jackis.jsonintegration.product.rest.SearchRejectedException.Reason;
+import java.time.Duration;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Lets at most {@code maxConcurrent} searches run at the same time and up to {@code maxQueued}
+ * wait, in the order they arrived, for at most {@code timeout}.
+ */
+class AdmissionQueue {
+
+  private final String name;
+  private final int maxConcurrent;
+  private final Semaphore permits;
+  private final int maxQueued;
+  private final Duration timeout;
+  private final AtomicInteger queued = new AtomicInteger();
+
+  AdmissionQueue(final String name, final int maxConcurrent, final int maxQueued,
+      final Duration timeout) {
+    this.name = name;
+    this.maxConcurrent = maxConcurrent;
+    this.permits = new Semaphore(maxConcurrent, true);
+    this.maxQueued = maxQueued;
+    this.timeout = timeout;
+  }
+
+  /**
+   * Waits until the search may run, the returned permit has to be closed once it finished.
+   */
+  SearchAdmission.Permit acquire() {
+    try {
+      // unlike tryAcquire() without a timeout, this never takes a permit from a waiting search
+      if (!permits.tryAcquire(0, TimeUnit.NANOSECONDS)) {
+        await();
+      }
+    } catch (final InterruptedException ex) {
+      Thread.currentThread().interrupt();
+      throw new SearchRejectedException(Reason.TIMED_OUT,
+          "Interrupted while waiting for " + name + " searches");
+    }
+    return permits::release;
+  }
+
+  private void await() throws InterruptedException {
+    if (queued.incrementAndGet() > maxQueued) {
+      queued.decrementAndGet();
+      throw new SearchRejectedException(Reason.QUEUE_FULL,
+          "More than " + maxQueued + " " + name + " searches waiting");
+    }
+    try {
+      if (!permits.tryAcquire(timeout.toNanos(), TimeUnit.NANOSECONDS)) {
+        throw new SearchRejectedException(Reason.TIMED_OUT,
+            "Waited longer than " + timeout.toMillis() + " ms for " + name + " searches");
+      }
+    } finally {
+      queued.decrementAndGet();
+    }
+  }
+
+  int queued() {
+    return queued.get();
+  }
+
+  int running() {
+    return maxConcurrent - permits.availablePermits();
+  }
+}
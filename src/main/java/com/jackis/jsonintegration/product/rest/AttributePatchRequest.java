@@ -0,0 +1,39 @@
+package com.jackis.jsonintegration.product.rest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import java.util.List;
+
+/**
+ * Patch applied to the attributes of many products, given either as JSON Merge Patch or as JSON
+ * Patch.
+ */
+public class AttributePatchRequest {
+
+  private List<String> skus;
+  private JsonNode mergePatch;
+  private JsonNode jsonPatch;
+
+  public List<String> getSkus() {
+    return skus;
+  }
+
+  public void setSkus(List<String> skus) {
+    this.skus = skus;
+  }
+
+  public JsonNode getMergePatch() {
+    return mergePatch;
+  }
+
+  public void setMergePatch(JsonNode mergePatch) {
+    this.mergePatch = mergePatch;
+  }
+
+  public JsonNode getJsonPatch() {
+    return jsonPatch;
+  }
+
+  public void setJsonPatch(JsonNode jsonPatch) {
+    this.jsonPatch = jsonPatch;
+  }
+}
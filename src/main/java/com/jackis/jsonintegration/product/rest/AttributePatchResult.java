@@ -0,0 +1,27 @@
+package com.jackis.jsonintegration.product.rest;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class AttributePatchResult {
+
+  private final List<String> updated = new ArrayList<>();
+  private final List<String> notFound = new ArrayList<>();
+  private final List<String> rejected = new ArrayList<>();
+
+  public List<String> getUpdated() {
+    return updated;
+  }
+
+  public List<String> getNotFound() {
+    return notFound;
+  }
+
+  /**
+   * SKUs of products the patch could not be applied to, e.g. because a {@code test} operation
+   * failed. They are left unchanged.
+   */
+  public List<String> getRejected() {
+    return rejected;
+  }
+}
@@ -0,0 +1,54 @@
+package com.jackis.jsonintegration.product.rest;
+
+import com.jackis.jsonintegration.product.persistence.AttributeFilter;
+import com.jackis.jsonintegration.product.persistence.AttributeQuery;
+import java.util.List;
+import java.util.Objects;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * The canonical form of an {@link AttributeQuery}, equal for equivalent queries: filters and keys
+ * are sorted and free of duplicates, the containment document is canonical JSON. Every part is
+ * kept on its own, so no key or value can pass for another part of the query, and the same
+ * containment, filters and keys in a different order are the same query.
+ */
+public final class CanonicalQuery {
+
+  private final String containment;
+  private final List<String> filters;
+  private final List<String> requiredKeys;
+  private final List<String> anyKeys;
+
+  /**
+   * @param containment the canonical JSON of the containment document, null without one
+   */
+  CanonicalQuery(String containment, AttributeQuery query) {
+    this.containment = containment;
+    this.filters = sorted(query.getFilters().stream().map(AttributeFilter::toString));
+    this.requiredKeys = sorted(query.getRequiredKeys().stream());
+    this.anyKeys = sorted(query.getAnyKeys().stream());
+  }
+
+  private static List<String> sorted(final Stream<String> parts) {
+    return parts.sorted().distinct().collect(Collectors.toUnmodifiableList());
+  }
+
+  @Override
+  public boolean equals(Object o) {
+    if (this == o) {
+      return true;
+    }
+    if (o == null || getClass() != o.getClass()) {
+      return false;
+    }
+    CanonicalQuery that = (CanonicalQuery) o;
+    return Objects.equals(containment, that.containment) && filters.equals(that.filters)
+        && requiredKeys.equals(that.requiredKeys) && anyKeys.equals(that.anyKeys);
+  }
+
+  @Override
+  public int hashCode() {
+    return Objects.hash(containment, filters, requiredKeys, anyKeys);
+  }
+}
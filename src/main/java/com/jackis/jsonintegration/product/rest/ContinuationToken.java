@@ -0,0 +1,36 @@
+package com.jackis.jsonintegration.product.rest;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * Opaque token pointing behind the last product of a search page. Pages are ordered by product
+ * id, so the token only has to carry that id for the next page to continue with a keyset
+ * condition instead of an OFFSET.
+ */
+final class ContinuationToken {
+
+  static final String HEADER = "X-Continuation-Token";
+
+  private static final String VERSION_PREFIX = "v1:";
+
+  private ContinuationToken() {
+  }
+
+  static String encode(final long lastId) {
+    return Base64.getUrlEncoder().withoutPadding()
+        .encodeToString((VERSION_PREFIX + lastId).getBytes(StandardCharsets.UTF_8));
+  }
+
+  /**
+   * @throws IllegalArgumentException if the token was not created by {@link #encode(long)}
+   */
+  static long decode(final String token) {
+    final String decoded = new String(Base64.getUrlDecoder().decode(token),
+        StandardCharsets.UTF_8);
+    if (!decoded.startsWith(VERSION_PREFIX)) {
+      throw new IllegalArgumentException("Unknown continuation token: " + token);
+    }
+    return Long.parseLong(decoded.substring(VERSION_PREFIX.length()));
+  }
+}
@@ -0,0 +1,224 @@
+package com.jackis.jsonintegration.product.rest;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.jackis.jsonintegration.hibernate.JsonNodeCodec;
+import com.jackis.jsonintegration.product.ProductIngestProperties;
+import com.jackis.jsonintegration.product.ProductsChangedEvent;
+import com.jackis.jsonintegration.product.persistence.ProductIdAllocator;
+import com.jackis.jsonintegration.product.rest.ProductImportResult.Reason;
+import java.io.IOException;
+import java.io.InputStream;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.List;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Imports products from a JSON array or an NDJSON stream. Products are parsed one by one and
+ * written with one JDBC batch and transaction per {@link ProductIngestProperties#getBatchSize()}
+ * products. Products whose SKU already exists, and products that are incomplete or exceed the
+ * limits of the columns, are skipped and reported instead of failing the whole batch. Should the
+ * database still reject a product, e.g. a weight {@code product_weight_idx} cannot cast, the
+ * batch is written again product by product.
+ */
+@Component
+public class ProductBulkImporter {
+
+  private static final String INSERT_PRODUCT = "INSERT INTO product "
+      + "(id, name, sku, price, currency, attributes) VALUES (?, ?, ?, ?, ?, CAST(? AS JSONB)) "
+      + "ON CONFLICT (sku) DO NOTHING";
+
+  private static final int MAX_TEXT_LENGTH = 255;
+
+  private static final int MAX_CURRENCY_LENGTH = 5;
+
+  // DECIMAL(10,2) holds up to 8 digits before the decimal point
+  private static final int PRICE_SCALE = 2;
+
+  private static final BigDecimal PRICE_LIMIT = BigDecimal.TEN.pow(8);
+
+  private static final int REJECTED = -1;
+
+  @Autowired
+  private ObjectMapper mapper;
+
+  @Autowired
+  private JdbcTemplate jdbcTemplate;
+
+  @Autowired
+  private TransactionTemplate transactionTemplate;
+
+  @Autowired
+  private ProductIdAllocator productIdAllocator;
+
+  @Autowired
+  private ProductIngestProperties productIngestProperties;
+
+  @Autowired
+  private ApplicationEventPublisher eventPublisher;
+
+  @Autowired
+  private ProductMetrics productMetrics;
+
+  private static final class IndexedProduct {
+
+    private final long index;
+    private final Product product;
+
+    private IndexedProduct(long index, Product product) {
+      this.index = index;
+      this.product = product;
+    }
+  }
+
+  public ProductImportResult importProducts(final InputStream inputStream) throws IOException {
+
+    final ProductImportResult result = new ProductImportResult();
+    final List<IndexedProduct> batch = new ArrayList<>(productIngestProperties.getBatchSize());
+    long index = 0;
+
+    // a root level array is unwrapped by the iterator, so both formats are read the same way
+    try (MappingIterator<JsonNode> documents = mapper.readerFor(JsonNode.class)
+        .readValues(inputStream)) {
+      while (documents.hasNextValue()) {
+        final JsonNode document = documents.nextValue();
+        result.received();
+
+        final Product product = toProduct(document);
+        if (product == null) {
+          result.failed(index, document.path("sku").asText(null), Reason.INVALID_PRODUCT);
+        } else {
+          batch.add(new IndexedProduct(index, product));
+        }
+        index++;
+
+        if (batch.size() >= productIngestProperties.getBatchSize()) {
+          insert(batch, result);
+          batch.clear();
+        }
+      }
+    } catch (final JsonProcessingException ex) {
+      result.failed(index, null, Reason.MALFORMED_JSON);
+    }
+
+    insert(batch, result);
+    result.sortFailures();
+    return result;
+  }
+
+  private Product toProduct(final JsonNode document) {
+    try {
+      final Product product = mapper.treeToValue(document, Product.class);
+      if (product.getName() == null || product.getSku() == null || product.getPrice() == null
+          || product.getPrice().getValue() == null || product.getPrice().getCurrency() == null) {
+        return null;
+      }
+      // limits of the columns in V1.0.0__Create_Tables.sql
+      if (product.getName().length() > MAX_TEXT_LENGTH
+          || product.getSku().length() > MAX_TEXT_LENGTH
+          || product.getPrice().getCurrency().length() > MAX_CURRENCY_LENGTH
+          || product.getPrice().getValue().abs().setScale(PRICE_SCALE, RoundingMode.HALF_UP)
+          .compareTo(PRICE_LIMIT) >= 0) {
+        return null;
+      }
+      return product;
+    } catch (final JsonProcessingException ex) {
+      return null;
+    }
+  }
+
+  private void insert(final List<IndexedProduct> batch, final ProductImportResult result) {
+    if (batch.isEmpty()) {
+      return;
+    }
+
+    final long[] ids = productIdAllocator.allocate(batch.size());
+    final int[] updateCounts = productMetrics.getBulkInsert().record(() -> {
+      try {
+        return transactionTemplate.execute(status -> insertBatch(batch, ids));
+      } catch (final DataAccessException ex) {
+        // a product the database rejects fails the whole batch, only that one is left out
+        return insertEach(batch, ids);
+      }
+    });
+
+    final List<String> createdSkus = new ArrayList<>(batch.size());
+    for (int idx = 0; idx < batch.size(); idx++) {
+      final IndexedProduct product = batch.get(idx);
+      if (updateCounts[idx] == REJECTED) {
+        result.failed(product.index, product.product.getSku(), Reason.INVALID_PRODUCT);
+      } else if (updateCounts[idx] == 0) {
+        result.failed(product.index, product.product.getSku(), Reason.DUPLICATE_SKU);
+      } else {
+        result.created();
+        createdSkus.add(product.product.getSku());
+      }
+    }
+    if (!createdSkus.isEmpty()) {
+      eventPublisher.publishEvent(new ProductsChangedEvent(createdSkus));
+    }
+  }
+
+  private int[] insertBatch(final List<IndexedProduct> batch, final long[] ids) {
+    return jdbcTemplate.batchUpdate(INSERT_PRODUCT, new BatchPreparedStatementSetter() {
+      @Override
+      public void setValues(final PreparedStatement ps, final int idx) throws SQLException {
+        ProductBulkImporter.setValues(ps, ids[idx], batch.get(idx).product);
+      }
+
+      @Override
+      public int getBatchSize() {
+        return batch.size();
+      }
+    });
+  }
+
+  /**
+   * Inserts the products one by one, each in its own transaction, and marks those the database
+   * rejects as {@value #REJECTED}.
+   */
+  private int[] insertEach(final List<IndexedProduct> batch, final long[] ids) {
+    final int[] updateCounts = new int[batch.size()];
+    for (int idx = 0; idx < batch.size(); idx++) {
+      final long id = ids[idx];
+      final Product product = batch.get(idx).product;
+      try {
+        updateCounts[idx] = jdbcTemplate.update(INSERT_PRODUCT, ps -> setValues(ps, id, product));
+      } catch (final DataAccessException ex) {
+        updateCounts[idx] = REJECTED;
+      }
+    }
+    return updateCounts;
+  }
+
+  private static void setValues(final PreparedStatement ps, final long id,
+      final Product product) throws SQLException {
+    ps.setLong(1, id);
+    ps.setString(2, product.getName());
+    ps.setString(3, product.getSku());
+    ps.setBigDecimal(4, product.getPrice().getValue());
+    ps.setString(5, product.getPrice().getCurrency());
+    if (product.getAttributes() == null) {
+      ps.setNull(6, Types.VARCHAR);
+    } else {
+      try {
+        ps.setString(6, JsonNodeCodec.shared().write(product.getAttributes()));
+      } catch (final JsonProcessingException ex) {
+        throw new IllegalStateException(ex);
+      }
+    }
+  }
+}
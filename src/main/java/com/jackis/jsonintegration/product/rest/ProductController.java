@@ -1,19 +1,35 @@
 package com.jackis.jsonintegration.product.rest;
 
+import com.fasterxml.jackson.databind.JsonNode;
 import com.jackis.jsonintegration.json.JSONUtils;
-import com.jackis.jsonintegration.product.persistence.PriceEntity;
-import com.jackis.jsonintegration.product.persistence.ProductEntity;
+import com.jackis.jsonintegration.product.ProductFacetProperties;
+import com.jackis.jsonintegration.product.ProductLookupProperties;
+import com.jackis.jsonintegration.product.ProductPatchProperties;
+import com.jackis.jsonintegration.product.ProductSearchProperties;
+import com.jackis.jsonintegration.product.ProductsChangedEvent;
+import com.jackis.jsonintegration.product.persistence.AttributeFilter;
+import com.jackis.jsonintegration.product.persistence.AttributePatch;
+import com.jackis.jsonintegration.product.persistence.AttributeQuery;
+import com.jackis.jsonintegration.product.persistence.FacetCount;
 import com.jackis.jsonintegration.product.persistence.ProductRepository;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
-import org.springframework.util.StringUtils;
 import org.springframework.web.bind.annotation.*;
 
-import java.util.Collections;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
 
 @RestController
@@ -25,53 +41,322 @@ public class ProductController {
   @Autowired
   private ProductRepository productRepository;
 
+  @Autowired
+  private ProductSearchService productSearchService;
+
+  @Autowired
+  private ApplicationEventPublisher eventPublisher;
+
   @Autowired
   private JSONUtils jsonUtils;
 
+  @Autowired
+  private ProductSearchProperties productSearchProperties;
+
+  @Autowired
+  private ProductNdjsonWriter productNdjsonWriter;
+
+  @Autowired
+  private ProductBulkImporter productBulkImporter;
+
+  @Autowired
+  private ProductMetrics productMetrics;
+
+  @Autowired
+  private ProductLookupService productLookupService;
+
+  @Autowired
+  private ProductLookupProperties productLookupProperties;
+
+  @Autowired
+  private ProductPatchProperties productPatchProperties;
+
+  @Autowired
+  private ProductFacetService productFacetService;
+
+  @Autowired
+  private ProductFacetProperties productFacetProperties;
+
+  @Autowired
+  private SearchAdmission searchAdmission;
+
   @GetMapping()
-  public final ResponseEntity<List<Product>> getProductByAttribute(
-      @RequestParam String attributeSearchParameter) {
+  public final ResponseEntity<byte[]> getProductByAttribute(
+      @RequestParam(required = false) String attributeSearchParameter,
+      @RequestParam(required = false) List<String> filter,
+      @RequestParam(required = false) List<String> hasKey,
+      @RequestParam(required = false) List<String> hasAnyKey,
+      @RequestParam(required = false) Integer pageSize,
+      @RequestParam(required = false) String continuationToken) {
+
+    LOGGER.debug("Search Parameter: {}, filters: {}", attributeSearchParameter, filter);
 
-    LOGGER.info("Search Parameter: {}", attributeSearchParameter);
+    final AttributeQuery query = readAttributeQuery(attributeSearchParameter, filter, hasKey,
+        hasAnyKey, false);
+    if (query == null || (pageSize != null && pageSize < 1)) {
+      return ResponseEntity.badRequest().build();
+    }
 
-    if (StringUtils.isEmpty(attributeSearchParameter) || !jsonUtils
-        .isJSONValid(attributeSearchParameter)) {
+    final long afterId;
+    try {
+      afterId = continuationToken == null ? 0 : ContinuationToken.decode(continuationToken);
+    } catch (final IllegalArgumentException ex) {
       return ResponseEntity.badRequest().build();
     }
 
-    final List<ProductEntity> productEntities =
-        productRepository.findByProductAttribute(attributeSearchParameter)
-            .orElse(Collections.emptyList());
+    final SerializedProductPage page = productSearchService.searchSerialized(query, afterId,
+        productSearchProperties.pageSize(pageSize));
 
-    LOGGER.info("Number of found products: {}", productEntities.size());
+    productMetrics.getPageResults().record(page.getSize());
+    LOGGER.debug("Number of found products: {}", page.getSize());
 
-    if (productEntities.size() == 0) {
+    if (page.getSize() == 0) {
       return ResponseEntity.noContent().build();
-    } else {
-      return ResponseEntity.ok().body(productEntities.stream()
-          .map(product -> new Product(product.getName(), product.getSku(),
-              new Price(product.getPriceEntity().getValue(),
-                  product.getPriceEntity().getCurrency()), product.getAttributes()))
-          .collect(Collectors.toList()));
     }
+
+    final ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+        .contentType(MediaType.APPLICATION_JSON);
+    if (page.getLastId() != null) {
+      response.header(ContinuationToken.HEADER, ContinuationToken.encode(page.getLastId()));
+    }
+    return response.body(page.getBody());
+  }
+
+  @GetMapping(value = "/stream", produces = "application/x-ndjson")
+  public final void streamProductByAttribute(
+      @RequestParam(required = false) String attributeSearchParameter,
+      @RequestParam(required = false) List<String> filter,
+      @RequestParam(required = false) List<String> hasKey,
+      @RequestParam(required = false) List<String> hasAnyKey,
+      final HttpServletResponse response) throws IOException {
+
+    LOGGER.debug("Search Parameter: {}, filters: {}", attributeSearchParameter, filter);
+
+    final AttributeQuery query = readAttributeQuery(attributeSearchParameter, filter, hasKey,
+        hasAnyKey, false);
+    if (query == null) {
+      response.setStatus(HttpStatus.BAD_REQUEST.value());
+      return;
+    }
+
+    final long count;
+    try (SearchAdmission.Permit permit = searchAdmission.admitUnpaged(query,
+        productSearchService.canonicalize(query))) {
+      response.setContentType("application/x-ndjson");
+      count = productNdjsonWriter.write(query, response.getOutputStream());
+    }
+
+    productMetrics.getStreamResults().record(count);
+
+    LOGGER.debug("Number of streamed products: {}", count);
+  }
+
+  @GetMapping("/facets")
+  public final ResponseEntity<Map<String, List<FacetCount>>> getFacets(
+      @RequestParam final List<String> path,
+      @RequestParam(required = false) String attributeSearchParameter,
+      @RequestParam(required = false) List<String> filter,
+      @RequestParam(required = false) List<String> hasKey,
+      @RequestParam(required = false) List<String> hasAnyKey,
+      @RequestParam(required = false) Integer limit) {
+
+    LOGGER.debug("Facet paths: {}, search parameter: {}, filters: {}", path,
+        attributeSearchParameter, filter);
+
+    final List<String> paths = new ArrayList<>(new LinkedHashSet<>(path));
+    try {
+      if (paths.isEmpty() || paths.size() > productFacetProperties.getMaxPaths()) {
+        throw new IllegalArgumentException("No facet path or more than "
+            + productFacetProperties.getMaxPaths());
+      }
+      paths.forEach(AttributeFilter::parsePath);
+    } catch (final IllegalArgumentException ex) {
+      LOGGER.debug("Rejected facet paths: {}", ex.getMessage());
+      return ResponseEntity.badRequest().build();
+    }
+
+    final AttributeQuery query = readAttributeQuery(attributeSearchParameter, filter, hasKey,
+        hasAnyKey, true);
+    if (query == null || (limit != null && limit < 1)) {
+      return ResponseEntity.badRequest().build();
+    }
+
+    return ResponseEntity.ok(productFacetService.countFacets(query, paths,
+        productFacetProperties.limit(limit)));
+  }
+
+  @GetMapping("/{sku}")
+  public final ResponseEntity<Product> getProductBySku(@PathVariable final String sku) {
+    return ResponseEntity.of(productLookupService.findBySku(sku));
+  }
+
+  @PostMapping("/lookup")
+  public final ResponseEntity<List<Product>> lookupProducts(
+      @RequestBody final List<String> skus) {
+
+    if (skus.isEmpty() || skus.size() > productLookupProperties.getMaxSkus()
+        || skus.contains(null)) {
+      LOGGER.debug("Rejected lookup of {} SKUs", skus.size());
+      return ResponseEntity.badRequest().build();
+    }
+
+    return ResponseEntity.ok(productLookupService.findBySkus(skus));
   }
 
   @PostMapping
   public final ResponseEntity createProduct(@RequestBody final Product product) {
 
-    final PriceEntity priceEntity = new PriceEntity();
-    priceEntity.setCurrency(product.getPrice().getCurrency());
-    priceEntity.setValue(product.getPrice().getValue());
+    productMetrics.getSingleInsert()
+        .record(() -> productRepository.save(ProductMapper.toProductEntity(product)));
+    eventPublisher.publishEvent(new ProductsChangedEvent(List.of(product.getSku())));
 
-    final ProductEntity productEntity = new ProductEntity();
-    productEntity.setName(product.getName());
-    productEntity.setSku(product.getSku());
-    productEntity.setPriceEntity(priceEntity);
-    productEntity.setAttributes(product.getAttributes());
+    return ResponseEntity.status(HttpStatus.CREATED).build();
 
-    productRepository.save(productEntity);
+  }
 
-    return ResponseEntity.status(HttpStatus.CREATED).build();
+  @PostMapping(value = "/bulk", consumes = {"application/json", "application/x-ndjson"})
+  public final ResponseEntity<ProductImportResult> importProducts(
+      final HttpServletRequest request) throws IOException {
+
+    final ProductImportResult result = productBulkImporter.importProducts(request.getInputStream());
+
+    LOGGER.info("Imported products: {} received, {} created, {} failed", result.getReceived(),
+        result.getCreated(), result.getFailed());
+
+    return ResponseEntity.ok(result);
+  }
+
+  @PatchMapping(value = "/{sku}/attributes", consumes = "application/merge-patch+json")
+  public final ResponseEntity mergePatchAttributes(@PathVariable final String sku,
+      @RequestBody final JsonNode patch) {
+    return patchAttributes(sku, patch, AttributePatch::mergePatch);
+  }
+
+  @PatchMapping(value = "/{sku}/attributes", consumes = "application/json-patch+json")
+  public final ResponseEntity jsonPatchAttributes(@PathVariable final String sku,
+      @RequestBody final JsonNode patch) {
+    return patchAttributes(sku, patch, AttributePatch::jsonPatch);
+  }
+
+  @PatchMapping("/attributes")
+  public final ResponseEntity<AttributePatchResult> patchAttributes(
+      @RequestBody final AttributePatchRequest request) {
+
+    final AttributePatch patch;
+    try {
+      if (request.getSkus() == null || request.getSkus().isEmpty()
+          || request.getSkus().size() > productPatchProperties.getMaxSkus()
+          || request.getSkus().contains(null)) {
+        throw new IllegalArgumentException("Missing SKUs or more than "
+            + productPatchProperties.getMaxSkus());
+      }
+      if ((request.getMergePatch() == null) == (request.getJsonPatch() == null)) {
+        throw new IllegalArgumentException("Not exactly one of merge patch and JSON patch given");
+      }
+      patch = request.getMergePatch() != null
+          ? AttributePatch.mergePatch(request.getMergePatch(),
+          productPatchProperties.getMaxOperations())
+          : AttributePatch.jsonPatch(request.getJsonPatch(),
+              productPatchProperties.getMaxOperations());
+    } catch (final IllegalArgumentException ex) {
+      LOGGER.debug("Rejected attribute patch: {}", ex.getMessage());
+      return ResponseEntity.badRequest().build();
+    }
+
+    final Map<String, Boolean> applied = productMetrics.getBatchUpdate()
+        .record(() -> productRepository.patchAttributes(request.getSkus(), patch));
+
+    final AttributePatchResult result = new AttributePatchResult();
+    for (final String sku : new LinkedHashSet<>(request.getSkus())) {
+      final Boolean patched = applied.get(sku);
+      if (patched == null) {
+        result.getNotFound().add(sku);
+      } else if (patched) {
+        result.getUpdated().add(sku);
+      } else {
+        result.getRejected().add(sku);
+      }
+    }
+    if (!result.getUpdated().isEmpty()) {
+      eventPublisher.publishEvent(new ProductsChangedEvent(result.getUpdated()));
+    }
+    return ResponseEntity.ok(result);
+  }
+
+  private ResponseEntity patchAttributes(final String sku, final JsonNode document,
+      final PatchReader patchReader) {
+    final AttributePatch patch;
+    try {
+      patch = patchReader.read(document, productPatchProperties.getMaxOperations());
+    } catch (final IllegalArgumentException ex) {
+      LOGGER.debug("Rejected attribute patch: {}", ex.getMessage());
+      return ResponseEntity.badRequest().build();
+    }
 
+    final Boolean applied = productMetrics.getSingleUpdate()
+        .record(() -> productRepository.patchAttributes(List.of(sku), patch)).get(sku);
+    if (applied == null) {
+      return ResponseEntity.notFound().build();
+    }
+    if (!applied) {
+      return ResponseEntity.status(HttpStatus.CONFLICT).build();
+    }
+    eventPublisher.publishEvent(new ProductsChangedEvent(List.of(sku)));
+    return ResponseEntity.noContent().build();
+  }
+
+  /**
+   * Rejected searches are bad requests, unless the same search may run once the load has gone
+   * down.
+   */
+  @ExceptionHandler(SearchRejectedException.class)
+  public final ResponseEntity<Void> rejectSearch(final SearchRejectedException ex) {
+    LOGGER.debug("Rejected search: {}", ex.getMessage());
+    if (ex.getReason().isTransient()) {
+      return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+          .header(HttpHeaders.RETRY_AFTER, "1").build();
+    }
+    return ResponseEntity.badRequest().build();
+  }
+
+  @FunctionalInterface
+  private interface PatchReader {
+
+    AttributePatch read(JsonNode document, int maxOperations);
+  }
+
+  private AttributeQuery readAttributeQuery(final String attributeSearchParameter,
+      final List<String> filters, final List<String> requiredKeys, final List<String> anyKeys,
+      final boolean allowEmpty) {
+    final long start = System.nanoTime();
+    try {
+      final JsonNode containment = attributeSearchParameter == null ? null
+          : jsonUtils.readObject(attributeSearchParameter, productSearchProperties.getDocument());
+
+      final List<String> filterParameters = filters == null ? List.of() : filters;
+      final List<String> requiredKeyParameters = requiredKeys == null ? List.of() : requiredKeys;
+      final List<String> anyKeyParameters = anyKeys == null ? List.of() : anyKeys;
+      if (filterParameters.size() + requiredKeyParameters.size() + anyKeyParameters.size()
+          > productSearchProperties.getMaxFilters()) {
+        throw new IllegalArgumentException(
+            "More than " + productSearchProperties.getMaxFilters() + " filters and keys");
+      }
+      if (requiredKeyParameters.contains("") || anyKeyParameters.contains("")) {
+        throw new IllegalArgumentException("Empty key");
+      }
+
+      final AttributeQuery query = new AttributeQuery(containment, filterParameters.stream()
+          .map(AttributeFilter::parse).collect(Collectors.toList()), requiredKeyParameters,
+          anyKeyParameters);
+      if (query.isEmpty() && !allowEmpty) {
+        throw new IllegalArgumentException("Neither search parameter nor filter given");
+      }
+      return query;
+    } catch (final IllegalArgumentException ex) {
+      LOGGER.debug("Rejected search parameter: {}", ex.getMessage());
+      return null;
+    } finally {
+      productMetrics.getValidation().record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+    }
   }
 }
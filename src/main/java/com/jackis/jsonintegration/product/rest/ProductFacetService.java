@@ -0,0 +1,124 @@
+package com.jackis.jsonintegration.product.rest;
+
+import com.jackis.jsonintegration.product.persistence.AttributeQuery;
+import com.jackis.jsonintegration.product.persistence.FacetCount;
+import com.jackis.jsonintegration.product.persistence.ProductRepository;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.stream.Collectors;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.stereotype.Service;
+
+/**
+ * Counts facet values in the database. Without search criteria the counts the database maintains
+ * are read, so only paths without maintained counts are counted over the whole catalog. Results
+ * are cached in the {@value #CACHE_NAME} cache under the catalog version of
+ * {@link ProductSearchService}, which makes them unreachable after every write. Counting over
+ * the matches of a query has to be admitted by {@link SearchAdmission} first.
+ */
+@Service
+public class ProductFacetService {
+
+  public static final String CACHE_NAME = "productFacets";
+
+  @Autowired
+  private ProductRepository productRepository;
+
+  @Autowired
+  private ProductSearchService productSearchService;
+
+  @Autowired
+  private ProductMetrics productMetrics;
+
+  @Autowired
+  private SearchAdmission searchAdmission;
+
+  private final Cache cache;
+
+  public ProductFacetService(final CacheManager cacheManager) {
+    this.cache = Objects.requireNonNull(cacheManager.getCache(CACHE_NAME));
+  }
+
+  /**
+   * Returns the {@code limit} most frequent values of each of the distinct {@code paths} over the
+   * products matching {@code query}, keyed by path in the order of {@code paths}.
+   */
+  @SuppressWarnings("unchecked")
+  public Map<String, List<FacetCount>> countFacets(final AttributeQuery query,
+      final List<String> paths, final int limit) {
+    final FacetKey key = new FacetKey(productSearchService.catalogVersion(),
+        productSearchService.canonicalize(query), paths, limit);
+    // loaded outside of the cache, as admission may wait
+    final Cache.ValueWrapper cached = cache.get(key);
+    if (cached != null) {
+      return (Map<String, List<FacetCount>>) cached.get();
+    }
+    final Map<String, List<FacetCount>> facets = load(query, key.query, paths, limit);
+    cache.put(key, facets);
+    return facets;
+  }
+
+  private Map<String, List<FacetCount>> load(final AttributeQuery query,
+      final CanonicalQuery canonicalQuery, final List<String> paths, final int limit) {
+    final Map<String, List<FacetCount>> maintained = query.isEmpty()
+        ? productMetrics.getMaintainedFacets()
+        .record(() -> productRepository.findMaintainedFacetCounts(paths, limit))
+        : Map.of();
+
+    final List<String> countedPaths = paths.stream()
+        .filter(path -> !maintained.containsKey(path))
+        .collect(Collectors.toList());
+    final Map<String, List<FacetCount>> counted;
+    if (countedPaths.isEmpty()) {
+      counted = Map.of();
+    } else {
+      try (SearchAdmission.Permit permit = searchAdmission.admitUnpaged(query, canonicalQuery)) {
+        counted = productMetrics.getScannedFacets().record(
+            () -> productRepository.countFacetsByAttributeQuery(query, countedPaths, limit));
+      }
+    }
+
+    final Map<String, List<FacetCount>> facets = new LinkedHashMap<>();
+    for (final String path : paths) {
+      facets.put(path, maintained.containsKey(path) ? maintained.get(path) : counted.get(path));
+    }
+    return facets;
+  }
+
+  private static final class FacetKey {
+
+    private final long catalogVersion;
+    private final CanonicalQuery query;
+    private final List<String> paths;
+    private final int limit;
+
+    private FacetKey(long catalogVersion, CanonicalQuery query, List<String> paths, int limit) {
+      this.catalogVersion = catalogVersion;
+      this.query = query;
+      this.paths = paths;
+      this.limit = limit;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (this == o) {
+        return true;
+      }
+      if (o == null || getClass() != o.getClass()) {
+        return false;
+      }
+      FacetKey that = (FacetKey) o;
+      return catalogVersion == that.catalogVersion && limit == that.limit
+          && query.equals(that.query) && paths.equals(that.paths);
+    }
+
+    @Override
+    public int hashCode() {
+      return Objects.hash(catalogVersion, query, paths, limit);
+    }
+  }
+}
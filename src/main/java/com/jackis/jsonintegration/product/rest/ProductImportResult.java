@@ -0,0 +1,75 @@
+package com.jackis.jsonintegration.product.rest;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+public class ProductImportResult {
+
+  public enum Reason {
+    DUPLICATE_SKU,
+    INVALID_PRODUCT,
+    MALFORMED_JSON
+  }
+
+  public static class Failure {
+
+    private final long index;
+    private final String sku;
+    private final Reason reason;
+
+    public Failure(long index, String sku, Reason reason) {
+      this.index = index;
+      this.sku = sku;
+      this.reason = reason;
+    }
+
+    public long getIndex() {
+      return index;
+    }
+
+    public String getSku() {
+      return sku;
+    }
+
+    public Reason getReason() {
+      return reason;
+    }
+  }
+
+  private long received;
+  private long created;
+  private final List<Failure> failures = new ArrayList<>();
+
+  public long getReceived() {
+    return received;
+  }
+
+  public long getCreated() {
+    return created;
+  }
+
+  public long getFailed() {
+    return failures.size();
+  }
+
+  public List<Failure> getFailures() {
+    return failures;
+  }
+
+  void received() {
+    received++;
+  }
+
+  void created() {
+    created++;
+  }
+
+  void failed(final long index, final String sku, final Reason reason) {
+    failures.add(new Failure(index, sku, reason));
+  }
+
+  void sortFailures() {
+    failures.sort(Comparator.comparingLong(Failure::getIndex));
+  }
+}
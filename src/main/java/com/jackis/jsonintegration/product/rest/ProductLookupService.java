@@ -0,0 +1,106 @@
+package com.jackis.jsonintegration.product.rest;
+
+import com.jackis.jsonintegration.product.ProductsChangedEvent;
+import com.jackis.jsonintegration.product.persistence.ProductRepository;
+import com.jackis.jsonintegration.product.persistence.ProductRow;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.Cache;
+import org.springframework.cache.Cache.ValueWrapper;
+import org.springframework.cache.CacheManager;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+/**
+ * Resolves products by SKU through the {@value #CACHE_NAME} cache, a near cache in front of the
+ * database. SKUs without a product are cached as well, so repeated lookups of unknown SKUs do not
+ * reach the database either. Writes evict the SKUs they touched. Loaded products are only cached
+ * if no eviction happened while they were loaded, so a lookup racing with a write can never
+ * cache what the write replaced.
+ *
+ * <p>A single missing SKU is loaded by its natural id, which the second level cache of Hibernate
+ * serves without a query once the product was read or written. Several missing SKUs are read
+ * with one query instead, bypassing that cache.
+ */
+@Service
+public class ProductLookupService {
+
+  public static final String CACHE_NAME = "productBySku";
+
+  @Autowired
+  private ProductRepository productRepository;
+
+  private final Cache cache;
+
+  private final AtomicLong evictions = new AtomicLong();
+
+  public ProductLookupService(final CacheManager cacheManager) {
+    this.cache = Objects.requireNonNull(cacheManager.getCache(CACHE_NAME));
+  }
+
+  public Optional<Product> findBySku(final String sku) {
+    return findBySkus(List.of(sku)).stream().findFirst();
+  }
+
+  /**
+   * Resolves all {@code skus}, the cached ones from the cache and the remaining ones with a single
+   * query. The result keeps the order of {@code skus} and leaves out SKUs without a product.
+   */
+  public List<Product> findBySkus(final Collection<String> skus) {
+    final Collection<String> distinctSkus = new LinkedHashSet<>(skus);
+    final Map<String, Product> products = new HashMap<>();
+    final List<String> missing = new ArrayList<>();
+    for (final String sku : distinctSkus) {
+      final ValueWrapper cached = cache.get(sku);
+      if (cached == null) {
+        missing.add(sku);
+      } else if (cached.get() != null) {
+        products.put(sku, (Product) cached.get());
+      }
+    }
+
+    if (!missing.isEmpty()) {
+      final long generation = evictions.get();
+      final Map<String, Product> loaded = load(missing);
+      products.putAll(loaded);
+      if (evictions.get() == generation) {
+        missing.forEach(sku -> cache.put(sku, loaded.get(sku)));
+      }
+    }
+
+    final List<Product> result = new ArrayList<>(products.size());
+    for (final String sku : distinctSkus) {
+      if (products.containsKey(sku)) {
+        result.add(products.get(sku));
+      }
+    }
+    return result;
+  }
+
+  private Map<String, Product> load(final List<String> skus) {
+    final Map<String, Product> loaded = new HashMap<>();
+    if (skus.size() == 1) {
+      productRepository.findBySku(skus.get(0))
+          .ifPresent(entity -> loaded.put(entity.getSku(), ProductMapper.toProduct(entity)));
+      return loaded;
+    }
+    for (final ProductRow row : productRepository.findRowsBySkus(skus)) {
+      loaded.put(row.getSku(), ProductMapper.toProduct(row));
+    }
+    return loaded;
+  }
+
+  @EventListener
+  public void onProductsChanged(final ProductsChangedEvent event) {
+    evictions.incrementAndGet();
+    event.getSkus().forEach(cache::evict);
+  }
+}
@@ -0,0 +1,42 @@
+package com.jackis.jsonintegration.product.rest;
+
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import com.fasterxml.jackson.databind.util.RawValue;
+import com.jackis.jsonintegration.product.persistence.PriceEntity;
+import com.jackis.jsonintegration.product.persistence.ProductEntity;
+import com.jackis.jsonintegration.product.persistence.ProductRow;
+
+final class ProductMapper {
+
+  private ProductMapper() {
+  }
+
+  static Product toProduct(final ProductEntity productEntity) {
+    return new Product(productEntity.getName(), productEntity.getSku(),
+        new Price(productEntity.getPriceEntity().getValue(),
+            productEntity.getPriceEntity().getCurrency()), productEntity.getAttributes());
+  }
+
+  /**
+   * Maps a row without parsing its attributes, they are written to responses as they are.
+   */
+  static Product toProduct(final ProductRow productRow) {
+    return new Product(productRow.getName(), productRow.getSku(),
+        new Price(productRow.getPrice(), productRow.getCurrency()),
+        productRow.getAttributes() == null ? null
+            : JsonNodeFactory.instance.rawValueNode(new RawValue(productRow.getAttributes())));
+  }
+
+  static ProductEntity toProductEntity(final Product product) {
+    final PriceEntity priceEntity = new PriceEntity();
+    priceEntity.setCurrency(product.getPrice().getCurrency());
+    priceEntity.setValue(product.getPrice().getValue());
+
+    final ProductEntity productEntity = new ProductEntity();
+    productEntity.setName(product.getName());
+    productEntity.setSku(product.getSku());
+    productEntity.setPriceEntity(priceEntity);
+    productEntity.setAttributes(product.getAttributes());
+    return productEntity;
+  }
+}
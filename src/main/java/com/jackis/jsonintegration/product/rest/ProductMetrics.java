@@ -0,0 +1,150 @@
+package com.jackis.jsonintegration.product.rest;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.stereotype.Component;
+
+/**
+ * Meters of the product REST interface. Searches are timed per phase: validating the request,
+ * executing the query, mapping the rows and serializing the response; a search answered from the
+ * cache has no database and mapping time. Searches sharing the execution of an equal, concurrent
+ * search are counted as coalesced, those finding too many requests waiting already as overflowed.
+ */
+@Component
+public class ProductMetrics {
+
+  private final Timer validation;
+  private final Timer database;
+  private final Timer mapping;
+  private final Timer serialization;
+  private final DistributionSummary pageResults;
+  private final DistributionSummary streamResults;
+  private final Counter coalesced;
+  private final Counter overflowed;
+  private final Timer singleInsert;
+  private final Timer bulkInsert;
+  private final Timer singleUpdate;
+  private final Timer batchUpdate;
+  private final Timer maintainedFacets;
+  private final Timer scannedFacets;
+
+  public ProductMetrics(final MeterRegistry meterRegistry) {
+    this.validation = searchPhase(meterRegistry, "validation");
+    this.database = searchPhase(meterRegistry, "database");
+    this.mapping = searchPhase(meterRegistry, "mapping");
+    this.serialization = searchPhase(meterRegistry, "serialization");
+    this.pageResults = searchResults(meterRegistry, "page");
+    this.streamResults = searchResults(meterRegistry, "stream");
+    this.coalesced = coalescing(meterRegistry, "coalesced");
+    this.overflowed = coalescing(meterRegistry, "overflowed");
+    this.singleInsert = insert(meterRegistry, "single");
+    this.bulkInsert = insert(meterRegistry, "bulk");
+    this.singleUpdate = update(meterRegistry, "single");
+    this.batchUpdate = update(meterRegistry, "batch");
+    this.maintainedFacets = facets(meterRegistry, "maintained");
+    this.scannedFacets = facets(meterRegistry, "scan");
+  }
+
+  private static Timer searchPhase(final MeterRegistry meterRegistry, final String phase) {
+    return Timer.builder("products.search")
+        .description("Time spent in a phase of product searches")
+        .tag("phase", phase)
+        .register(meterRegistry);
+  }
+
+  private static DistributionSummary searchResults(final MeterRegistry meterRegistry,
+      final String mode) {
+    return DistributionSummary.builder("products.search.results")
+        .description("Number of products returned by a search")
+        .baseUnit("products")
+        .tag("mode", mode)
+        .register(meterRegistry);
+  }
+
+  private static Counter coalescing(final MeterRegistry meterRegistry, final String outcome) {
+    return Counter.builder("products.search.coalescing")
+        .description("Searches arriving while an equal search was running")
+        .baseUnit("requests")
+        .tag("outcome", outcome)
+        .register(meterRegistry);
+  }
+
+  private static Timer insert(final MeterRegistry meterRegistry, final String mode) {
+    return Timer.builder("products.insert")
+        .description("Time spent inserting a product or a batch of imported products")
+        .tag("mode", mode)
+        .register(meterRegistry);
+  }
+
+  private static Timer update(final MeterRegistry meterRegistry, final String mode) {
+    return Timer.builder("products.update")
+        .description("Time spent patching the attributes of a product or a batch of products")
+        .tag("mode", mode)
+        .register(meterRegistry);
+  }
+
+  private static Timer facets(final MeterRegistry meterRegistry, final String source) {
+    return Timer.builder("products.facets")
+        .description("Time spent reading maintained facet counts or counting them over matches")
+        .tag("source", source)
+        .register(meterRegistry);
+  }
+
+  public Timer getValidation() {
+    return validation;
+  }
+
+  public Timer getDatabase() {
+    return database;
+  }
+
+  public Timer getMapping() {
+    return mapping;
+  }
+
+  public Timer getSerialization() {
+    return serialization;
+  }
+
+  public DistributionSummary getPageResults() {
+    return pageResults;
+  }
+
+  public DistributionSummary getStreamResults() {
+    return streamResults;
+  }
+
+  public Counter getCoalesced() {
+    return coalesced;
+  }
+
+  public Counter getOverflowed() {
+    return overflowed;
+  }
+
+  public Timer getSingleInsert() {
+    return singleInsert;
+  }
+
+  public Timer getBulkInsert() {
+    return bulkInsert;
+  }
+
+  public Timer getSingleUpdate() {
+    return singleUpdate;
+  }
+
+  public Timer getBatchUpdate() {
+    return batchUpdate;
+  }
+
+  public Timer getMaintainedFacets() {
+    return maintainedFacets;
+  }
+
+  public Timer getScannedFacets() {
+    return scannedFacets;
+  }
+}
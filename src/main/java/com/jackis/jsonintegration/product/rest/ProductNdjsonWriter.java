@@ -0,0 +1,75 @@
+package com.jackis.jsonintegration.product.rest;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.jackis.jsonintegration.product.ProductSearchProperties;
+import com.jackis.jsonintegration.product.persistence.AttributeQuery;
+import com.jackis.jsonintegration.product.persistence.ProductEntity;
+import com.jackis.jsonintegration.product.persistence.ProductRepository;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Iterator;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Stream;
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Writes search results as newline delimited JSON while they are read from a server side cursor.
+ * Rows with raw attributes are not managed by the persistence context, entities are detached once
+ * written so the persistence context does not grow with the result size.
+ */
+@Component
+public class ProductNdjsonWriter {
+
+  @Autowired
+  private ProductRepository productRepository;
+
+  @PersistenceContext
+  private EntityManager entityManager;
+
+  @Autowired
+  private ObjectMapper mapper;
+
+  @Autowired
+  private ProductSearchProperties productSearchProperties;
+
+  @Transactional(readOnly = true)
+  public long write(final AttributeQuery query, final OutputStream outputStream)
+      throws IOException {
+    if (productSearchProperties.isRawAttributes()) {
+      return write(productRepository.streamRowsByAttributeQuery(query), ProductMapper::toProduct,
+          productRow -> {
+          }, outputStream);
+    }
+    return write(productRepository.streamByAttributeQuery(query), ProductMapper::toProduct,
+        entityManager::detach, outputStream);
+  }
+
+  private <T> long write(final Stream<T> results, final Function<T, Product> toProduct,
+      final Consumer<T> afterWrite, final OutputStream outputStream) throws IOException {
+
+    final ObjectWriter writer = mapper.writerFor(Product.class);
+    long count = 0;
+
+    try (results; JsonGenerator generator = mapper.getFactory().createGenerator(outputStream)) {
+
+      generator.setRootValueSeparator(null);
+
+      final Iterator<T> iterator = results.iterator();
+      while (iterator.hasNext()) {
+        final T result = iterator.next();
+        writer.writeValue(generator, toProduct.apply(result));
+        generator.writeRaw('\n');
+        afterWrite.accept(result);
+        count++;
+      }
+    }
+    return count;
+  }
+}
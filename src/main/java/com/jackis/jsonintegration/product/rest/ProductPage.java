@@ -0,0 +1,26 @@
+package com.jackis.jsonintegration.product.rest;
+
+import java.util.List;
+
+/**
+ * One page of search results together with the id the next page continues after, which is
+ * {@code null} if this is the last page.
+ */
+public class ProductPage {
+
+  private final List<Product> products;
+  private final Long lastId;
+
+  public ProductPage(List<Product> products, Long lastId) {
+    this.products = products;
+    this.lastId = lastId;
+  }
+
+  public List<Product> getProducts() {
+    return products;
+  }
+
+  public Long getLastId() {
+    return lastId;
+  }
+}
@@ -0,0 +1,208 @@
+package com.jackis.jsonintegration.product.rest;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.jackis.jsonintegration.json.JSONUtils;
+import com.jackis.jsonintegration.product.ProductSearchProperties;
+import com.jackis.jsonintegration.product.ProductsChangedEvent;
+import com.jackis.jsonintegration.product.index.AttributeIndexAdvisor;
+import com.jackis.jsonintegration.product.persistence.AttributeQuery;
+import com.jackis.jsonintegration.product.persistence.ProductEntity;
+import com.jackis.jsonintegration.product.persistence.ProductRepository;
+import com.jackis.jsonintegration.product.persistence.ProductRow;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.function.ToLongFunction;
+import java.util.stream.Collectors;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+/**
+ * Runs attribute searches through the {@value #CACHE_NAME} cache. Cache keys contain the
+ * canonical form of the query, so equivalent queries share an entry, and the current
+ * catalog version, which is increased by every write. Entries cached before a write can
+ * therefore never be returned after it, even if the search was still running while the write
+ * happened.
+ *
+ * <p>{@link #searchSerialized(AttributeQuery, long, int)} also serializes the page. Equal
+ * searches arriving while one of them is running wait for it and share its response body instead
+ * of running their own query, up to {@code products.search.coalescing.max-waiters} of them and
+ * for at most {@code products.search.admission.queue-timeout}. This keeps a burst of equal
+ * searches for an uncached page from taking one connection each.
+ *
+ * <p>Pages not found in the cache are only read once {@link SearchAdmission} admits the query.
+ * Admission and read happen outside of the cache, a loader of the cache would hold a lock of the
+ * underlying map while waiting for admission and block other searches hashed to the same bin.
+ */
+@Service
+public class ProductSearchService {
+
+  public static final String CACHE_NAME = "productSearch";
+
+  @Autowired
+  private ProductRepository productRepository;
+
+  @Autowired
+  private JSONUtils jsonUtils;
+
+  @Autowired
+  private AttributeIndexAdvisor attributeIndexAdvisor;
+
+  @Autowired
+  private SearchAdmission searchAdmission;
+
+  private final ProductMetrics productMetrics;
+
+  private final ProductSearchProperties productSearchProperties;
+
+  private final ObjectWriter productListWriter;
+
+  private final Cache cache;
+
+  private final SingleFlight<SearchKey, SerializedProductPage> searchesInFlight;
+
+  private final AtomicLong catalogVersion = new AtomicLong();
+
+  public ProductSearchService(final CacheManager cacheManager, final ObjectMapper objectMapper,
+      final ProductMetrics productMetrics,
+      final ProductSearchProperties productSearchProperties) {
+    this.cache = Objects.requireNonNull(cacheManager.getCache(CACHE_NAME));
+    this.productListWriter = objectMapper.writerFor(new TypeReference<List<Product>>() {
+    });
+    this.productMetrics = productMetrics;
+    this.productSearchProperties = productSearchProperties;
+    this.searchesInFlight = new SingleFlight<>(
+        productSearchProperties.getCoalescing().getMaxWaiters(),
+        productSearchProperties.getAdmission().getQueueTimeout(),
+        productMetrics.getCoalesced(), productMetrics.getOverflowed());
+  }
+
+  public ProductPage search(final AttributeQuery query, final long afterId, final int limit) {
+    return search(new SearchKey(catalogVersion.get(), canonicalize(query), afterId, limit),
+        query);
+  }
+
+  /**
+   * Like {@link #search(AttributeQuery, long, int)}, but returns the page serialized as the body
+   * of the search response.
+   */
+  public SerializedProductPage searchSerialized(final AttributeQuery query, final long afterId,
+      final int limit) {
+    final SearchKey key = new SearchKey(catalogVersion.get(), canonicalize(query), afterId, limit);
+    if (!productSearchProperties.getCoalescing().isEnabled()) {
+      return serialize(search(key, query));
+    }
+    return searchesInFlight.execute(key, () -> serialize(search(key, query)));
+  }
+
+  private ProductPage search(final SearchKey key, final AttributeQuery query) {
+    final ProductPage cached = cache.get(key, ProductPage.class);
+    if (cached != null) {
+      return cached;
+    }
+    final ProductPage page;
+    try (SearchAdmission.Permit permit = searchAdmission.admitPage(query, key.query,
+        key.limit)) {
+      page = load(query, key.afterId, key.limit);
+    }
+    cache.put(key, page);
+    return page;
+  }
+
+  private SerializedProductPage serialize(final ProductPage page) {
+    final long start = System.nanoTime();
+    try {
+      return new SerializedProductPage(productListWriter.writeValueAsBytes(page.getProducts()),
+          page.getProducts().size(), page.getLastId());
+    } catch (final JsonProcessingException ex) {
+      throw new IllegalStateException(ex);
+    } finally {
+      productMetrics.getSerialization().record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+    }
+  }
+
+  @EventListener
+  public void onProductsChanged(final ProductsChangedEvent event) {
+    catalogVersion.incrementAndGet();
+  }
+
+  /**
+   * Returns the current catalog version, which changes with every write.
+   */
+  long catalogVersion() {
+    return catalogVersion.get();
+  }
+
+  /**
+   * Returns an equal key for equivalent queries.
+   */
+  CanonicalQuery canonicalize(final AttributeQuery query) {
+    return new CanonicalQuery(query.getContainment() == null ? null
+        : jsonUtils.canonicalize(query.getContainment()), query);
+  }
+
+  private ProductPage load(final AttributeQuery query, final long afterId, final int limit) {
+    if (productSearchProperties.isRawAttributes()) {
+      return load(query, () -> productRepository.findRowsByAttributeQuery(query, afterId, limit),
+          ProductRow::getId, ProductMapper::toProduct, limit);
+    }
+    return load(query, () -> productRepository.findByAttributeQuery(query, afterId, limit),
+        ProductEntity::getId, ProductMapper::toProduct, limit);
+  }
+
+  private <T> ProductPage load(final AttributeQuery query, final Supplier<List<T>> finder,
+      final ToLongFunction<T> id, final Function<T, Product> mapper, final int limit) {
+    final long start = System.nanoTime();
+    final List<T> results = finder.get();
+    final long databaseNanos = System.nanoTime() - start;
+    productMetrics.getDatabase().record(databaseNanos, TimeUnit.NANOSECONDS);
+    attributeIndexAdvisor.record(query, databaseNanos);
+
+    final Long lastId = results.size() == limit ? id.applyAsLong(results.get(limit - 1)) : null;
+    return productMetrics.getMapping().record(() -> new ProductPage(results.stream()
+        .map(mapper)
+        .collect(Collectors.toList()), lastId));
+  }
+
+  private static final class SearchKey {
+
+    private final long catalogVersion;
+    private final CanonicalQuery query;
+    private final long afterId;
+    private final int limit;
+
+    private SearchKey(long catalogVersion, CanonicalQuery query, long afterId, int limit) {
+      this.catalogVersion = catalogVersion;
+      this.query = query;
+      this.afterId = afterId;
+      this.limit = limit;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (this == o) {
+        return true;
+      }
+      if (o == null || getClass() != o.getClass()) {
+        return false;
+      }
+      SearchKey that = (SearchKey) o;
+      return catalogVersion == that.catalogVersion && afterId == that.afterId
+          && limit == that.limit && query.equals(that.query);
+    }
+
+    @Override
+    public int hashCode() {
+      return Objects.hash(catalogVersion, query, afterId, limit);
+    }
+  }
+}
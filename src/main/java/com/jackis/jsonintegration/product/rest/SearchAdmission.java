@@ -0,0 +1,180 @@
+package com.jackis.jsonintegration.product.rest;
+
+import com.jackis.jsonintegration.product.ProductSearchProperties;
+import com.jackis.jsonintegration.product.ProductSearchProperties.Admission;
+import com.jackis.jsonintegration.product.persistence.AttributeQuery;
+import com.jackis.jsonintegration.product.persistence.ProductRepository;
+import com.jackis.jsonintegration.product.persistence.QueryEstimate;
+import com.jackis.jsonintegration.product.rest.SearchRejectedException.Reason;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Objects;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.stereotype.Component;
+
+/**
+ * Decides whether a search may run by the cost and number of matches the planner estimates for
+ * it. Estimates are cached in the {@value #CACHE_NAME} cache per canonical query and limit, so
+ * the planner is asked once per query until the entry expires.
+ *
+ * <p>Searches expected to cost more than {@code max-cost} are rejected, as are streams and facet
+ * counts over more than {@code max-unpaged-rows} matches, which have to be paged or narrowed.
+ * Searches up to {@code expensive-cost} are cheap and limited to {@code max-concurrent-cheap} at
+ * a time, more expensive ones to {@code max-concurrent-expensive}. Expensive searches therefore
+ * queue behind each other while cheap, index supported ones keep running; only
+ * {@code max-queued-expensive} of them may wait at a time. A search waiting longer than
+ * {@code queue-timeout} is rejected.
+ */
+@Component
+public class SearchAdmission {
+
+  public static final String CACHE_NAME = "productSearchEstimates";
+
+  /**
+   * Allows a search to run until it is closed.
+   */
+  @FunctionalInterface
+  public interface Permit extends AutoCloseable {
+
+    Permit UNLIMITED = () -> {
+    };
+
+    @Override
+    void close();
+  }
+
+  private enum Outcome {
+    CHEAP, EXPENSIVE, PAGINATION_REQUIRED, TOO_EXPENSIVE, QUEUE_FULL, TIMED_OUT
+  }
+
+  @Autowired
+  private ProductRepository productRepository;
+
+  private final Admission admission;
+
+  private final Cache cache;
+
+  private final AdmissionQueue cheap;
+
+  private final AdmissionQueue expensive;
+
+  private final Map<Outcome, Counter> outcomes = new EnumMap<>(Outcome.class);
+
+  public SearchAdmission(final CacheManager cacheManager,
+      final ProductSearchProperties productSearchProperties, final MeterRegistry meterRegistry) {
+    this.admission = productSearchProperties.getAdmission();
+    this.cache = Objects.requireNonNull(cacheManager.getCache(CACHE_NAME));
+    this.cheap = new AdmissionQueue("cheap", admission.getMaxConcurrentCheap(),
+        Integer.MAX_VALUE, admission.getQueueTimeout());
+    this.expensive = new AdmissionQueue("expensive", admission.getMaxConcurrentExpensive(),
+        admission.getMaxQueuedExpensive(), admission.getQueueTimeout());
+
+    for (final Outcome outcome : Outcome.values()) {
+      outcomes.put(outcome, Counter.builder("products.search.admission")
+          .description("Searches admitted by their cost class or rejected by the reason")
+          .tag("outcome", outcome.name().toLowerCase())
+          .register(meterRegistry));
+    }
+    queueGauges(meterRegistry, "cheap", cheap);
+    queueGauges(meterRegistry, "expensive", expensive);
+  }
+
+  /**
+   * Admits the search for one page of at most {@code limit} matches.
+   */
+  public Permit admitPage(final AttributeQuery query, final CanonicalQuery canonicalQuery,
+      final int limit) {
+    return admit(query, canonicalQuery, limit);
+  }
+
+  /**
+   * Admits a search returning or counting all matches.
+   */
+  public Permit admitUnpaged(final AttributeQuery query, final CanonicalQuery canonicalQuery) {
+    return admit(query, canonicalQuery, null);
+  }
+
+  private Permit admit(final AttributeQuery query, final CanonicalQuery canonicalQuery,
+      final Integer limit) {
+    if (!admission.isEnabled()) {
+      return Permit.UNLIMITED;
+    }
+    final EstimateKey key = new EstimateKey(canonicalQuery, limit);
+    QueryEstimate estimate = cache.get(key, QueryEstimate.class);
+    if (estimate == null) {
+      // planned outside of the cache, a slow EXPLAIN must not block other entries
+      estimate = productRepository.estimateByAttributeQuery(query, limit);
+      cache.put(key, estimate);
+    }
+
+    if (limit == null && estimate.getRows() > admission.getMaxUnpagedRows()) {
+      throw reject(new SearchRejectedException(Reason.PAGINATION_REQUIRED,
+          "Expected " + estimate.getRows() + " matches, more than "
+              + admission.getMaxUnpagedRows()));
+    }
+    if (estimate.getCost() > admission.getMaxCost()) {
+      throw reject(new SearchRejectedException(Reason.TOO_EXPENSIVE,
+          "Expected cost " + estimate.getCost() + " exceeds " + admission.getMaxCost()));
+    }
+
+    final boolean isExpensive = estimate.getCost() > admission.getExpensiveCost();
+    final Permit permit;
+    try {
+      permit = (isExpensive ? expensive : cheap).acquire();
+    } catch (final SearchRejectedException ex) {
+      throw reject(ex);
+    }
+    outcomes.get(isExpensive ? Outcome.EXPENSIVE : Outcome.CHEAP).increment();
+    return permit;
+  }
+
+  private SearchRejectedException reject(final SearchRejectedException ex) {
+    outcomes.get(Outcome.valueOf(ex.getReason().name())).increment();
+    return ex;
+  }
+
+  private static void queueGauges(final MeterRegistry meterRegistry, final String costClass,
+      final AdmissionQueue queue) {
+    Gauge.builder("products.search.admission.running", queue, AdmissionQueue::running)
+        .description("Searches of a cost class running")
+        .tag("class", costClass)
+        .register(meterRegistry);
+    Gauge.builder("products.search.admission.queued", queue, AdmissionQueue::queued)
+        .description("Searches of a cost class waiting to run")
+        .tag("class", costClass)
+        .register(meterRegistry);
+  }
+
+  private static final class EstimateKey {
+
+    private final CanonicalQuery query;
+    private final Integer limit;
+
+    private EstimateKey(CanonicalQuery query, Integer limit) {
+      this.query = query;
+      this.limit = limit;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (this == o) {
+        return true;
+      }
+      if (o == null || getClass() != o.getClass()) {
+        return false;
+      }
+      EstimateKey that = (EstimateKey) o;
+      return query.equals(that.query) && Objects.equals(limit, that.limit);
+    }
+
+    @Override
+    public int hashCode() {
+      return Objects.hash(query, limit);
+    }
+  }
+}
@@ -0,0 +1,44 @@
+package com.jackis.jsonintegration.product.rest;
+
+/**
+ * Thrown when {@link SearchAdmission} does not let a search run.
+ */
+public class SearchRejectedException extends RuntimeException {
+
+  public enum Reason {
+    /**
+     * Too many matches to return or count them at once, the search has to be narrowed or paged.
+     */
+    PAGINATION_REQUIRED,
+    /**
+     * The estimated cost exceeds the limit for any search.
+     */
+    TOO_EXPENSIVE,
+    /**
+     * Too many searches of the same cost class are waiting already.
+     */
+    QUEUE_FULL,
+    /**
+     * The search waited too long for the searches of its cost class running before it.
+     */
+    TIMED_OUT;
+
+    /**
+     * Returns whether the same search may be admitted once the load has gone down.
+     */
+    public boolean isTransient() {
+      return this == QUEUE_FULL || this == TIMED_OUT;
+    }
+  }
+
+  private final Reason reason;
+
+  public SearchRejectedException(final Reason reason, final String message) {
+    super(message);
+    this.reason = reason;
+  }
+
+  public Reason getReason() {
+    return reason;
+  }
+}
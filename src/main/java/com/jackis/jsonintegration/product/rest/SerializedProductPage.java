@@ -0,0 +1,36 @@
+package com.jackis.jsonintegration.product.rest;
+
+/**
+ * A {@link ProductPage} serialized as the JSON body of the search response, shared between the
+ * responses of concurrent equal searches.
+ */
+public class SerializedProductPage {
+
+  private final byte[] body;
+  private final int size;
+  private final Long lastId;
+
+  public SerializedProductPage(byte[] body, int size, Long lastId) {
+    this.body = body;
+    this.size = size;
+    this.lastId = lastId;
+  }
+
+  /**
+   * Returns the JSON array of the products. Must not be modified, it is shared.
+   */
+  public byte[] getBody() {
+    return body;
+  }
+
+  /**
+   * Returns the number of products on the page.
+   */
+  public int getSize() {
+    return size;
+  }
+
+  public Long getLastId() {
+    return lastId;
+  }
+}
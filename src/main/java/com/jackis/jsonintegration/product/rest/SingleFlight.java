@@ -0,0 +1,97 @@
+package com.jackis.jsonintegration.product.rest;
+
+import com.jackis.jsonintegration.product.rest.SearchRejectedException.Reason;
+import io.micrometer.core.instrument.Counter;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Lets concurrent callers with equal keys share one execution. The first caller of a key runs
+ * the supplier, callers arriving while it runs wait for its result or failure instead. Once
+ * {@code maxWaiters} callers wait, further ones run the supplier on their own. A caller waiting
+ * longer than {@code maxWait} is rejected like a search waiting too long for admission. Callers
+ * after the execution finished run it again, results are not kept.
+ */
+class SingleFlight<K, V> {
+
+  private final int maxWaiters;
+  private final Duration maxWait;
+  private final Counter coalesced;
+  private final Counter overflowed;
+
+  private final ConcurrentMap<K, Flight<V>> flights = new ConcurrentHashMap<>();
+
+  SingleFlight(final int maxWaiters, final Duration maxWait, final Counter coalesced,
+      final Counter overflowed) {
+    this.maxWaiters = maxWaiters;
+    this.maxWait = maxWait;
+    this.coalesced = coalesced;
+    this.overflowed = overflowed;
+  }
+
+  V execute(final K key, final Supplier<V> supplier) {
+    final Flight<V> flight = new Flight<>();
+    final Flight<V> running = flights.putIfAbsent(key, flight);
+    if (running == null) {
+      try {
+        final V result = supplier.get();
+        flight.result.complete(result);
+        return result;
+      } catch (final RuntimeException | Error ex) {
+        flight.result.completeExceptionally(ex);
+        throw ex;
+      } finally {
+        flights.remove(key, flight);
+      }
+    }
+
+    if (running.waiters.incrementAndGet() > maxWaiters) {
+      running.waiters.decrementAndGet();
+      overflowed.increment();
+      return supplier.get();
+    }
+    coalesced.increment();
+    try {
+      return running.result.get(maxWait.toNanos(), TimeUnit.NANOSECONDS);
+    } catch (final TimeoutException ex) {
+      throw new SearchRejectedException(Reason.TIMED_OUT,
+          "Waited longer than " + maxWait.toMillis() + " ms for an equal search");
+    } catch (final InterruptedException ex) {
+      Thread.currentThread().interrupt();
+      throw new SearchRejectedException(Reason.TIMED_OUT,
+          "Interrupted while waiting for an equal search");
+    } catch (final ExecutionException ex) {
+      // the failure of the execution, thrown again in the waiting thread
+      if (ex.getCause() instanceof RuntimeException) {
+        throw (RuntimeException) ex.getCause();
+      }
+      if (ex.getCause() instanceof Error) {
+        throw (Error) ex.getCause();
+      }
+      throw new IllegalStateException(ex.getCause());
+    } finally {
+      running.waiters.decrementAndGet();
+    }
+  }
+
+  /**
+   * Returns the number of callers waiting for the running execution of {@code key}.
+   */
+  int waiters(final K key) {
+    final Flight<V> flight = flights.get(key);
+    return flight == null ? 0 : flight.waiters.get();
+  }
+
+  private static final class Flight<V> {
+
+    private final CompletableFuture<V> result = new CompletableFuture<>();
+    private final AtomicInteger waiters = new AtomicInteger();
+  }
+}
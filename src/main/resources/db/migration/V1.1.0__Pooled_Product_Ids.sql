@@ -0,0 +1,2 @@
+-- ids are handed out in blocks of 50 (pooled optimizer), which allows batching inserts
+ALTER SEQUENCE product_id_seq INCREMENT BY 50;
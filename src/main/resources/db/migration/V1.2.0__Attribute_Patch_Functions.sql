@@ -0,0 +1,62 @@
+-- JSON Patch (RFC 6902) operations on attribute documents, applied in the database by partial
+-- attribute updates. Every function returns NULL if its operation cannot be applied, which
+-- rejects the whole patch. Paths are arrays of keys and array indexes, an empty path denotes the
+-- whole document.
+
+CREATE FUNCTION jsonb_patch_add(doc JSONB, path TEXT[], value JSONB) RETURNS JSONB AS $$
+DECLARE
+  parent_path TEXT[] := path[1:cardinality(path) - 1];
+  parent JSONB := doc #> parent_path;
+  last_key TEXT := path[cardinality(path)];
+BEGIN
+  IF cardinality(path) = 0 THEN
+    RETURN value;
+  ELSIF jsonb_typeof(parent) = 'object' THEN
+    RETURN jsonb_set(doc, path, value);
+  ELSIF parent IS NULL OR jsonb_typeof(parent) <> 'array' THEN
+    RETURN NULL;
+  ELSIF last_key = '-' OR last_key = jsonb_array_length(parent)::TEXT THEN
+    IF cardinality(parent_path) = 0 THEN
+      RETURN parent || jsonb_build_array(value);
+    END IF;
+    RETURN jsonb_set(doc, parent_path, parent || jsonb_build_array(value));
+  ELSIF last_key ~ '^(0|[1-9][0-9]{0,8})$'
+      AND last_key::INTEGER < jsonb_array_length(parent) THEN
+    RETURN jsonb_insert(doc, path, value);
+  END IF;
+  RETURN NULL;
+END
+$$ LANGUAGE plpgsql IMMUTABLE STRICT;
+
+CREATE FUNCTION jsonb_patch_remove(doc JSONB, path TEXT[]) RETURNS JSONB AS $$
+  SELECT CASE WHEN cardinality(path) > 0 AND doc #> path IS NOT NULL THEN doc #- path END
+$$ LANGUAGE SQL IMMUTABLE STRICT;
+
+CREATE FUNCTION jsonb_patch_replace(doc JSONB, path TEXT[], value JSONB) RETURNS JSONB AS $$
+  SELECT CASE
+    WHEN cardinality(path) = 0 THEN value
+    WHEN doc #> path IS NOT NULL THEN jsonb_set(doc, path, value, false)
+  END
+$$ LANGUAGE SQL IMMUTABLE STRICT;
+
+CREATE FUNCTION jsonb_patch_move(doc JSONB, source TEXT[], path TEXT[]) RETURNS JSONB AS $$
+  SELECT CASE
+    WHEN source = path THEN CASE WHEN doc #> path IS NOT NULL THEN doc END
+    ELSE jsonb_patch_add(jsonb_patch_remove(doc, source), path, doc #> source)
+  END
+$$ LANGUAGE SQL IMMUTABLE STRICT;
+
+CREATE FUNCTION jsonb_patch_copy(doc JSONB, source TEXT[], path TEXT[]) RETURNS JSONB AS $$
+  SELECT jsonb_patch_add(doc, path, doc #> source)
+$$ LANGUAGE SQL IMMUTABLE STRICT;
+
+CREATE FUNCTION jsonb_patch_test(doc JSONB, path TEXT[], value JSONB) RETURNS JSONB AS $$
+  SELECT CASE WHEN doc #> path = value THEN doc END
+$$ LANGUAGE SQL IMMUTABLE STRICT;
+
+-- JSON Merge Patch (RFC 7396) of the object at path: its members are replaced by those of
+-- members, a value other than an object is replaced by members.
+CREATE FUNCTION jsonb_merge_at(doc JSONB, path TEXT[], members JSONB) RETURNS JSONB AS $$
+  SELECT jsonb_set(doc, path,
+    CASE WHEN jsonb_typeof(doc #> path) = 'object' THEN doc #> path ELSE '{}' END || members)
+$$ LANGUAGE SQL IMMUTABLE STRICT;
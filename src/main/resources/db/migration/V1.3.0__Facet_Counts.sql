@@ -0,0 +1,97 @@
+-- Facet counts: how many products have each value at an attribute path. The counts of the paths
+-- in facet_path are kept up to date by statement level triggers on product, so reading them does
+-- not depend on the size of the catalog. Paths are added and backfilled by the application.
+
+CREATE TABLE facet_path (
+  path TEXT NOT NULL PRIMARY KEY,
+  keys TEXT[] NOT NULL
+);
+
+CREATE TABLE facet_count (
+  path TEXT NOT NULL REFERENCES facet_path ON DELETE CASCADE,
+  value TEXT NOT NULL,
+  count BIGINT NOT NULL,
+  PRIMARY KEY (path, value)
+);
+
+-- Values a product is counted under for the value at a facet path: the value itself if it is a
+-- scalar, each distinct scalar element if it is an array. Objects and nulls are not counted.
+CREATE FUNCTION facet_values(value JSONB) RETURNS SETOF TEXT AS $$
+  SELECT DISTINCT element #>> '{}'
+  FROM jsonb_array_elements(
+    CASE WHEN jsonb_typeof(value) = 'array' THEN value ELSE jsonb_build_array(value) END) AS element
+  WHERE jsonb_typeof(element) IN ('string', 'number', 'boolean')
+$$ LANGUAGE SQL IMMUTABLE STRICT;
+
+-- Adds the facet values of the added attribute documents to the counts and subtracts those of
+-- the removed ones. Changes are summed up per value first, so a statement writing many products
+-- updates every count once. Counts are written in key order, which keeps concurrent statements
+-- from deadlocking on them. Counts dropping to zero are deleted.
+CREATE FUNCTION facet_count_apply(added JSONB[], removed JSONB[]) RETURNS VOID AS $$
+DECLARE
+  zeroed_paths TEXT[];
+  zeroed_values TEXT[];
+BEGIN
+  WITH changes AS (
+    SELECT doc, 1 AS delta FROM unnest(added) AS doc
+    UNION ALL
+    SELECT doc, -1 AS delta FROM unnest(removed) AS doc
+  ), deltas AS (
+    SELECT f.path, v.value, sum(c.delta) AS delta
+    FROM facet_path f
+    CROSS JOIN changes c
+    CROSS JOIN LATERAL facet_values(c.doc #> f.keys) AS v(value)
+    GROUP BY f.path, v.value
+    HAVING sum(c.delta) <> 0
+    ORDER BY f.path, v.value
+  ), upserted AS (
+    INSERT INTO facet_count AS fc (path, value, count)
+    SELECT path, value, delta FROM deltas
+    ON CONFLICT (path, value) DO UPDATE SET count = fc.count + EXCLUDED.count
+    RETURNING path, value, count
+  )
+  SELECT array_agg(path), array_agg(value) INTO zeroed_paths, zeroed_values
+  FROM upserted WHERE count = 0;
+
+  IF zeroed_paths IS NOT NULL THEN
+    DELETE FROM facet_count fc
+    USING unnest(zeroed_paths, zeroed_values) AS z(path, value)
+    WHERE fc.path = z.path AND fc.value = z.value AND fc.count = 0;
+  END IF;
+END
+$$ LANGUAGE plpgsql;
+
+-- Transition tables only exist for the event that fired, each branch reads the ones it has.
+CREATE FUNCTION facet_count_changes() RETURNS TRIGGER AS $$
+BEGIN
+  IF TG_OP = 'INSERT' THEN
+    PERFORM facet_count_apply(ARRAY(SELECT attributes FROM new_rows), NULL);
+  ELSIF TG_OP = 'UPDATE' THEN
+    PERFORM facet_count_apply(
+      ARRAY(SELECT n.attributes FROM new_rows n JOIN old_rows o ON o.id = n.id
+            WHERE n.attributes IS DISTINCT FROM o.attributes),
+      ARRAY(SELECT o.attributes FROM old_rows o JOIN new_rows n ON n.id = o.id
+            WHERE n.attributes IS DISTINCT FROM o.attributes));
+  ELSIF TG_OP = 'DELETE' THEN
+    PERFORM facet_count_apply(NULL, ARRAY(SELECT attributes FROM old_rows));
+  ELSE
+    DELETE FROM facet_count;
+  END IF;
+  RETURN NULL;
+END
+$$ LANGUAGE plpgsql;
+
+CREATE TRIGGER product_facet_count_insert AFTER INSERT ON product
+  REFERENCING NEW TABLE AS new_rows
+  FOR EACH STATEMENT EXECUTE PROCEDURE facet_count_changes();
+
+CREATE TRIGGER product_facet_count_update AFTER UPDATE ON product
+  REFERENCING OLD TABLE AS old_rows NEW TABLE AS new_rows
+  FOR EACH STATEMENT EXECUTE PROCEDURE facet_count_changes();
+
+CREATE TRIGGER product_facet_count_delete AFTER DELETE ON product
+  REFERENCING OLD TABLE AS old_rows
+  FOR EACH STATEMENT EXECUTE PROCEDURE facet_count_changes();
+
+CREATE TRIGGER product_facet_count_truncate AFTER TRUNCATE ON product
+  FOR EACH STATEMENT EXECUTE PROCEDURE facet_count_changes();
@@ -0,0 +1,31 @@
+-- Promoted attributes: values at attribute paths copied into typed columns of the product table
+-- on every write. The columns are added, backfilled and indexed by the application, which also
+-- replaces product_promote_attributes() with a function setting exactly those columns.
+
+CREATE TABLE promoted_attribute (
+  column_name TEXT NOT NULL PRIMARY KEY,
+  path TEXT NOT NULL,
+  value_type TEXT NOT NULL,
+  backfilled BOOLEAN NOT NULL DEFAULT FALSE,
+  UNIQUE (path, value_type)
+);
+
+-- Conversions of the text of a value to the column type. A value that cannot be converted is
+-- stored as NULL instead of failing the write, the cast in a filter would fail the search.
+CREATE FUNCTION promoted_integer(value TEXT) RETURNS INTEGER AS $$
+  SELECT CASE WHEN value ~ '^-?[0-9]{1,9}$' THEN CAST(value AS INTEGER) END
+$$ LANGUAGE SQL IMMUTABLE STRICT;
+
+CREATE FUNCTION promoted_numeric(value TEXT) RETURNS NUMERIC AS $$
+  SELECT CASE WHEN value ~ '^-?[0-9]+(\.[0-9]+)?([eE][-+]?[0-9]{1,3})?$'
+    THEN CAST(value AS NUMERIC) END
+$$ LANGUAGE SQL IMMUTABLE STRICT;
+
+CREATE FUNCTION product_promote_attributes() RETURNS TRIGGER AS $$
+BEGIN
+  RETURN NEW;
+END
+$$ LANGUAGE plpgsql;
+
+CREATE TRIGGER product_promote_attributes BEFORE INSERT OR UPDATE OF attributes ON product
+  FOR EACH ROW EXECUTE PROCEDURE product_promote_attributes();
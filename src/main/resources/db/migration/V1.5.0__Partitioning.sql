@@ -0,0 +1,27 @@
+-- Hash partitioning of the product table by SKU. The partitioned table product_partitioned is
+-- created, filled and swapped in by the application, see PartitionMigrator.
+
+-- Mirrors the writes to product into product_partitioned while existing rows are copied. The
+-- copy locks the rows of each batch, so a row is either copied before it is written or the
+-- write is mirrored after the copy.
+CREATE FUNCTION product_partition_mirror() RETURNS TRIGGER AS $$
+BEGIN
+  IF TG_OP = 'TRUNCATE' THEN
+    TRUNCATE product_partitioned;
+    RETURN NULL;
+  END IF;
+  IF TG_OP IN ('UPDATE', 'DELETE') THEN
+    DELETE FROM product_partitioned WHERE id = OLD.id AND sku = OLD.sku;
+  END IF;
+  IF TG_OP IN ('INSERT', 'UPDATE') THEN
+    INSERT INTO product_partitioned VALUES (NEW.*);
+  END IF;
+  RETURN NULL;
+END
+$$ LANGUAGE plpgsql;
+
+-- Functions are parallel unsafe unless declared otherwise, which keeps queries calling them
+-- from scanning the partitions, or a large table, with parallel workers.
+ALTER FUNCTION facet_values(JSONB) PARALLEL SAFE;
+ALTER FUNCTION promoted_integer(TEXT) PARALLEL SAFE;
+ALTER FUNCTION promoted_numeric(TEXT) PARALLEL SAFE;
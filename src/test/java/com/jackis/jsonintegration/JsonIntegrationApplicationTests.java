@@ -1,21 +1,44 @@
 package com.jackis.jsonintegration;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
 
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.jackis.jsonintegration.product.ProductSearchProperties;
+import com.jackis.jsonintegration.product.index.AttributeIndexAdvisor;
+import com.jackis.jsonintegration.product.index.GinIndex;
+import com.jackis.jsonintegration.product.index.GinIndexManager;
+import com.jackis.jsonintegration.product.index.GinIndexStrategy;
+import com.jackis.jsonintegration.product.index.GinOperatorClass;
+import com.jackis.jsonintegration.product.index.IndexAdvisorProperties;
+import com.jackis.jsonintegration.product.index.IndexRecommendation;
+import com.jackis.jsonintegration.product.persistence.AttributeFilter.ValueType;
+import com.jackis.jsonintegration.product.persistence.ProductEntity;
+import com.jackis.jsonintegration.product.persistence.ProductRepository;
+import com.jackis.jsonintegration.product.persistence.PromotedAttributeManager;
 import com.jackis.jsonintegration.product.rest.Price;
 import com.jackis.jsonintegration.product.rest.Product;
+import com.jackis.jsonintegration.product.rest.ProductSearchService;
+import io.micrometer.core.instrument.MeterRegistry;
 import java.math.BigDecimal;
 import java.net.URI;
 import java.net.URISyntaxException;
 import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpRequest.BodyPublishers;
+import java.net.http.HttpResponse;
+import java.net.http.HttpResponse.BodyHandlers;
 import java.nio.charset.StandardCharsets;
 import java.sql.Types;
+import java.time.Duration;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 import java.util.Random;
 import java.util.UUID;
 import java.util.stream.Collectors;
@@ -26,14 +49,17 @@ import org.junit.jupiter.api.Test;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.actuate.metrics.AutoConfigureMetrics;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.boot.test.util.TestPropertyValues;
 import org.springframework.boot.test.web.client.TestRestTemplate;
 import org.springframework.boot.web.server.LocalServerPort;
+import org.springframework.cache.CacheManager;
 import org.springframework.context.ApplicationContextInitializer;
 import org.springframework.context.ConfigurableApplicationContext;
 import org.springframework.http.HttpMethod;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
 import org.springframework.http.client.ClientHttpResponse;
 import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.test.context.ContextConfiguration;
@@ -42,6 +68,7 @@ import org.testcontainers.containers.PostgreSQLContainer;
 import org.testcontainers.shaded.org.apache.commons.io.IOUtils;
 import org.testcontainers.shaded.org.apache.commons.lang.RandomStringUtils;
 
+@AutoConfigureMetrics
 @SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
 @ContextConfiguration(initializers = JsonIntegrationApplicationTests.DatabaseInitializer.class)
 class JsonIntegrationApplicationTests {
@@ -71,7 +98,8 @@ class JsonIntegrationApplicationTests {
       TestPropertyValues.of(
           "spring.datasource.username=" + POSTGRE_SQL_CONTAINER.getUsername(),
           "spring.datasource.password=" + POSTGRE_SQL_CONTAINER.getPassword(),
-          "spring.datasource.url=" + POSTGRE_SQL_CONTAINER.getJdbcUrl())
+          "spring.datasource.url=" + POSTGRE_SQL_CONTAINER.getJdbcUrl(),
+          "products.jsonb.metrics-sample-rate=1")
           .applyTo(configurableApplicationContext);
     }
   }
@@ -85,6 +113,30 @@ class JsonIntegrationApplicationTests {
   @Autowired
   private ObjectMapper jacksonObjectMapper;
 
+  @Autowired
+  private MeterRegistry meterRegistry;
+
+  @Autowired
+  private AttributeIndexAdvisor attributeIndexAdvisor;
+
+  @Autowired
+  private IndexAdvisorProperties indexAdvisorProperties;
+
+  @Autowired
+  private GinIndexManager ginIndexManager;
+
+  @Autowired
+  private ProductRepository productRepository;
+
+  @Autowired
+  private ProductSearchProperties productSearchProperties;
+
+  @Autowired
+  private PromotedAttributeManager promotedAttributeManager;
+
+  @Autowired
+  private CacheManager cacheManager;
+
   @LocalServerPort
   private int port;
 
@@ -172,6 +224,541 @@ class JsonIntegrationApplicationTests {
 
   }
 
+  @Test
+  void searchProductsPageByPage() throws URISyntaxException {
+
+    final String searchUri = "http://localhost:" + port
+        + "/products?pageSize=1&attributeSearchParameter=" + URLEncoder
+        .encode("{\"colors\":[\"black\"]}", StandardCharsets.UTF_8);
+
+    final ResponseEntity<List<Product>> firstPage = searchProductPage(new URI(searchUri));
+    assertThat(firstPage.getBody()).hasSize(1);
+    assertThat(firstPage.getHeaders().getFirst("X-Continuation-Token")).isNotBlank();
+
+    final ResponseEntity<List<Product>> secondPage = searchProductPage(new URI(searchUri
+        + "&continuationToken=" + firstPage.getHeaders().getFirst("X-Continuation-Token")));
+    assertThat(secondPage.getBody()).hasSize(1);
+    assertThat(secondPage.getBody().get(0).getSku())
+        .isNotEqualTo(firstPage.getBody().get(0).getSku());
+
+    final ResponseEntity<List<Product>> lastPage = searchProductPage(new URI(searchUri
+        + "&continuationToken=" + secondPage.getHeaders().getFirst("X-Continuation-Token")));
+    assertThat(lastPage.getStatusCode()).isEqualTo(HttpStatus.NO_CONTENT);
+
+    final ResponseEntity<List<Product>> invalidToken =
+        searchProductPage(new URI(searchUri + "&continuationToken=invalid"));
+    assertThat(invalidToken.getStatusCode()).isEqualTo(HttpStatus.BAD_REQUEST);
+  }
+
+  @Test
+  void searchProductsByAttributeFilters() throws URISyntaxException {
+
+    final ResponseEntity<List<Product>> lighterThan43 = searchProductPage(new URI(
+        "http://localhost:" + port + "/products?filter=" + URLEncoder
+            .encode("weight.value<43", StandardCharsets.UTF_8)));
+    assertThat(lighterThan43.getBody()).extracting(Product::getName)
+        .containsExactly("Black Toast 2000");
+
+    final ResponseEntity<List<Product>> combined = searchProductPage(new URI(
+        "http://localhost:" + port + "/products?attributeSearchParameter=" + URLEncoder
+            .encode("{\"colors\":[\"black\"]}", StandardCharsets.UTF_8)
+            + "&filter=" + URLEncoder.encode("measures.height>=250", StandardCharsets.UTF_8)
+            + "&filter=" + URLEncoder.encode("measures.unit=mm", StandardCharsets.UTF_8)));
+    assertThat(combined.getBody()).hasSize(2);
+
+    final ResponseEntity<List<Product>> invalid = searchProductPage(new URI(
+        "http://localhost:" + port + "/products?filter=weight"));
+    assertThat(invalid.getStatusCode()).isEqualTo(HttpStatus.BAD_REQUEST);
+  }
+
+  @Test
+  void searchProductsByFiltersOnValuesOfMixedTypes() throws URISyntaxException {
+    // product_weight_idx rejects weights that are no integers, depths are not indexed
+    for (final ObjectNode measures : List.of(
+        jacksonObjectMapper.createObjectNode().put("depth", "deep"),
+        jacksonObjectMapper.createObjectNode().put("depth", new BigDecimal("200.5")),
+        jacksonObjectMapper.createObjectNode().put("depth", 9_999_999_999L))) {
+      final ObjectNode attributes = jacksonObjectMapper.createObjectNode();
+      attributes.set("measures", measures);
+      assertThat(insertProduct(new Product("Odd Toast " + measures.get("depth").asText(),
+          UUID.randomUUID().toString(), new Price(new BigDecimal(5), "EUR"), attributes)))
+          .isEqualTo(HttpStatus.CREATED);
+    }
+
+    // values that do not convert to the type of the filter never match instead of failing
+    assertThat(searchProductPage(new URI("http://localhost:" + port + "/products?filter="
+        + URLEncoder.encode("measures.depth<200", StandardCharsets.UTF_8))).getBody())
+        .extracting(Product::getName).containsExactly("Brown Toast 4000");
+    assertThat(searchProductPage(new URI("http://localhost:" + port + "/products?filter="
+        + URLEncoder.encode("measures.depth>=200", StandardCharsets.UTF_8))).getBody())
+        .extracting(Product::getName).containsExactly("Black Toast 2000");
+    assertThat(searchProductPage(new URI("http://localhost:" + port + "/products?filter="
+        + URLEncoder.encode("measures.depth<200.9", StandardCharsets.UTF_8))).getBody())
+        .extracting(Product::getName)
+        .containsExactlyInAnyOrder("Brown Toast 4000", "Odd Toast 200.5");
+    assertThat(searchProductPage(new URI("http://localhost:" + port + "/products?filter="
+        + URLEncoder.encode("measures.depth>=250.0", StandardCharsets.UTF_8))).getBody())
+        .extracting(Product::getName)
+        .containsExactlyInAnyOrder("Black Toast 2000", "Odd Toast 9999999999");
+  }
+
+  @Test
+  void rejectInvalidSearchDocuments() throws URISyntaxException {
+
+    for (String searchDocument : List.of("{\"colors\":", "[\"green\"]",
+        "{\"a\":{\"b\":{\"c\":{\"d\":{\"e\":{\"f\":{\"g\":{\"h\":{}}}}}}}}}")) {
+      final ResponseEntity<List<Product>> response = searchProductPage(new URI("http://localhost:"
+          + port + "/products?attributeSearchParameter=" + URLEncoder
+          .encode(searchDocument, StandardCharsets.UTF_8)));
+      assertThat(response.getStatusCode()).isEqualTo(HttpStatus.BAD_REQUEST);
+    }
+  }
+
+  @Test
+  void searchResultsAreCachedUntilProductsChange() throws URISyntaxException {
+
+    final URI uri = new URI("http://localhost:" + port + "/products?attributeSearchParameter="
+        + URLEncoder.encode("{\"colors\":[\"green\"],\"weight\":{\"unit\":\"g\"}}",
+        StandardCharsets.UTF_8));
+    final URI equivalentUri = new URI("http://localhost:" + port
+        + "/products?attributeSearchParameter=" + URLEncoder.encode(
+        "{ \"weight\" : { \"unit\" : \"g\" }, \"colors\" : [ \"green\" ] }",
+        StandardCharsets.UTF_8));
+
+    assertThat(searchProductPage(uri).getBody()).hasSize(1);
+
+    final double cacheHits = searchCacheHits();
+    assertThat(searchProductPage(equivalentUri).getBody()).hasSize(1);
+    assertThat(searchCacheHits()).isEqualTo(cacheHits + 1);
+
+    insertProduct(new Product("Green Toast 3000", UUID.randomUUID().toString(),
+        new Price(new BigDecimal(20), "EUR"),
+        jacksonObjectMapper.createObjectNode()
+            .<ObjectNode>set("colors", jacksonObjectMapper.createArrayNode().add("green"))
+            .set("weight", jacksonObjectMapper.createObjectNode().put("unit", "g"))));
+
+    assertThat(searchProductPage(uri).getBody()).hasSize(2);
+  }
+
+  @Test
+  void recordSearchMetrics() throws URISyntaxException {
+    final ResponseEntity<List<Product>> page = searchProductPage(new URI(
+        "http://localhost:" + port + "/products?filter=" + URLEncoder
+            .encode("measures.depth>=0", StandardCharsets.UTF_8)));
+    assertThat(page.getBody()).hasSize(2);
+
+    for (final String phase : List.of("validation", "database", "mapping", "serialization")) {
+      assertThat(meterRegistry.get("products.search").tag("phase", phase).timer().count())
+          .as(phase).isPositive();
+    }
+    assertThat(meterRegistry.get("products.search.results").tag("mode", "page").summary()
+        .max()).isGreaterThanOrEqualTo(2);
+    assertThat(meterRegistry.get("products.insert").tag("mode", "single").timer().count())
+        .isPositive();
+    assertThat(meterRegistry.get("products.jsonb.parse").timer().count()).isPositive();
+    assertThat(meterRegistry.get("products.jsonb.size").tag("operation", "write").summary()
+        .totalAmount()).isPositive();
+
+    final ResponseEntity<String> prometheus = restTemplate.getForEntity(
+        "http://localhost:" + port + "/actuator/prometheus", String.class);
+    assertThat(prometheus.getBody()).contains("products_search_seconds_bucket");
+  }
+
+  @Test
+  void rawAndParsedAttributesAreEquivalent() throws URISyntaxException {
+    final URI uri = new URI("http://localhost:" + port
+        + "/products/stream?attributeSearchParameter=" + URLEncoder
+        .encode("{\"colors\":[\"black\"]}", StandardCharsets.UTF_8));
+
+    final ResponseExtractor<List<JsonNode>> readLines = response -> {
+      final List<JsonNode> result = new ArrayList<>();
+      for (String line : IOUtils.readLines(response.getBody(), StandardCharsets.UTF_8)) {
+        result.add(jacksonObjectMapper.readTree(line));
+      }
+      return result;
+    };
+
+    final List<JsonNode> raw = searchProduct(uri, readLines);
+    productSearchProperties.setRawAttributes(false);
+    try {
+      assertThat(searchProduct(uri, readLines)).hasSize(2).isEqualTo(raw);
+    } finally {
+      productSearchProperties.setRawAttributes(true);
+    }
+  }
+
+  @Test
+  void lookupProductsThroughSecondLevelCache() throws URISyntaxException {
+    final String sku = UUID.randomUUID().toString();
+    insertProduct(new Product("Cached Toast 1", sku, new Price(new BigDecimal(5), "EUR"),
+        jacksonObjectMapper.createObjectNode().put("slots", 2)));
+
+    // the product written through Hibernate is resolved without a query
+    final double hitsBefore = secondLevelCacheHits();
+    final Product single = searchProduct(new URI("http://localhost:" + port + "/products/" + sku),
+        response -> jacksonObjectMapper.readValue(response.getBody(), Product.class));
+    assertThat(single.getName()).isEqualTo("Cached Toast 1");
+    assertThat(secondLevelCacheHits()).isGreaterThan(hitsBefore);
+
+    final double hitsBeforeRepository = secondLevelCacheHits();
+    final ProductEntity cached = productRepository.findBySku(sku).orElseThrow();
+    assertThat(cached.getAttributes().get("slots").asInt()).isEqualTo(2);
+    assertThat(secondLevelCacheHits()).isGreaterThan(hitsBeforeRepository);
+    assertThat(productRepository.findBySku("unknown")).isEmpty();
+
+    assertThat(meterRegistry.get("cache.size").tag("cacheManager", "hibernate")
+        .tag("cache", ProductEntity.class.getName()).gauge().value()).isPositive();
+  }
+
+  @Test
+  void searchPagesThroughQueryCache() throws URISyntaxException {
+    final URI uri = new URI("http://localhost:" + port + "/products?attributeSearchParameter="
+        + URLEncoder.encode("{\"colors\":[\"black\"]}", StandardCharsets.UTF_8));
+    productSearchProperties.setRawAttributes(false);
+    try {
+      assertThat(searchProductPage(uri).getBody()).hasSize(2);
+      cacheManager.getCache(ProductSearchService.CACHE_NAME).clear();
+
+      // the page is read from the query cache, its products from the entity region
+      final double hitsBefore = queryCacheHits();
+      assertThat(searchProductPage(uri).getBody()).hasSize(2);
+      assertThat(queryCacheHits()).isGreaterThan(hitsBefore);
+
+      // the bulk import writes with plain JDBC, which Hibernate does not notice by itself
+      final String ndjson = "{\"name\":\"Imported Toast\",\"sku\":\"" + UUID.randomUUID()
+          + "\",\"price\":{\"value\":3,\"currency\":\"EUR\"},"
+          + "\"attributes\":{\"colors\":[\"black\"]}}";
+      this.restTemplate.execute(new URI("http://localhost:" + port + "/products/bulk"),
+          HttpMethod.POST, request -> {
+            request.getHeaders().add("Content-Type", "application/x-ndjson");
+            request.getBody().write(ndjson.getBytes(StandardCharsets.UTF_8));
+          }, response -> null);
+      assertThat(searchProductPage(uri).getBody()).hasSize(3);
+    } finally {
+      productSearchProperties.setRawAttributes(true);
+    }
+  }
+
+  @Test
+  void lookupProductsBySku() throws URISyntaxException {
+    final String sku = UUID.randomUUID().toString();
+    final String laterSku = UUID.randomUUID().toString();
+    insertProduct(new Product("Lookup Toast 1", sku, new Price(new BigDecimal(5), "EUR"),
+        jacksonObjectMapper.createObjectNode().put("slots", 2)));
+
+    final Product single = searchProduct(new URI("http://localhost:" + port + "/products/" + sku),
+        response -> jacksonObjectMapper.readValue(response.getBody(), Product.class));
+    assertThat(single.getName()).isEqualTo("Lookup Toast 1");
+    assertThat(searchProduct(new URI("http://localhost:" + port + "/products/" + laterSku),
+        ClientHttpResponse::getStatusCode)).isEqualTo(HttpStatus.NOT_FOUND);
+
+    assertThat(lookupProducts(List.of(laterSku, sku, sku)))
+        .extracting(Product::getSku).containsExactly(sku);
+
+    insertProduct(new Product("Lookup Toast 2", laterSku, new Price(new BigDecimal(6), "EUR"),
+        jacksonObjectMapper.createObjectNode().put("slots", 4)));
+
+    final List<Product> products = lookupProducts(List.of(laterSku, "unknown", sku));
+    assertThat(products).extracting(Product::getSku).containsExactly(laterSku, sku);
+    assertThat(products.get(0).getAttributes().get("slots").asInt()).isEqualTo(4);
+    assertThat(meterRegistry.get("cache.gets").tag("cache", "productBySku").tag("result", "hit")
+        .functionCounter().count()).isPositive();
+  }
+
+  @Test
+  void patchProductAttributes() throws Exception {
+    final String sku = UUID.randomUUID().toString();
+    final String otherSku = UUID.randomUUID().toString();
+    insertProduct(new Product("Patched Toast 1", sku, new Price(new BigDecimal(5), "EUR"),
+        jacksonObjectMapper.readTree("{\"stock\": 5, \"colors\": [\"red\"], \"legacy\": true, "
+            + "\"weight\": {\"unit\": \"g\", \"value\": 43}}")));
+    insertProduct(new Product("Patched Toast 2", otherSku, new Price(new BigDecimal(6), "EUR"),
+        jacksonObjectMapper.createObjectNode().put("stock", 1)));
+    // fills the near cache and the second level cache with the unpatched attributes
+    assertThat(lookupProducts(List.of(sku))).hasSize(1);
+    assertThat(productRepository.findBySku(sku)).isPresent();
+
+    assertThat(patch("/products/" + sku + "/attributes", "application/merge-patch+json",
+        "{\"stock\": 4, \"weight\": {\"value\": 40}, \"legacy\": null}").statusCode())
+        .isEqualTo(HttpStatus.NO_CONTENT.value());
+    assertThat(lookupProducts(List.of(sku)).get(0).getAttributes()).isEqualTo(
+        jacksonObjectMapper.readTree("{\"stock\": 4, \"colors\": [\"red\"], "
+            + "\"weight\": {\"unit\": \"g\", \"value\": 40}}"));
+
+    assertThat(patch("/products/" + sku + "/attributes", "application/json-patch+json",
+        "[{\"op\": \"test\", \"path\": \"/stock\", \"value\": 4}, {\"op\": \"add\", "
+            + "\"path\": \"/colors/-\", \"value\": \"blue\"}, {\"op\": \"move\", "
+            + "\"from\": \"/weight/unit\", \"path\": \"/unit\"}]").statusCode())
+        .isEqualTo(HttpStatus.NO_CONTENT.value());
+    assertThat(productRepository.findBySku(sku).orElseThrow().getAttributes()).isEqualTo(
+        jacksonObjectMapper.readTree("{\"stock\": 4, \"colors\": [\"red\", \"blue\"], "
+            + "\"unit\": \"g\", \"weight\": {\"value\": 40}}"));
+
+    assertThat(patch("/products/" + sku + "/attributes", "application/json-patch+json",
+        "[{\"op\": \"test\", \"path\": \"/stock\", \"value\": 99}, {\"op\": \"remove\", "
+            + "\"path\": \"/stock\"}]").statusCode()).isEqualTo(HttpStatus.CONFLICT.value());
+    assertThat(patch("/products/unknown/attributes", "application/merge-patch+json",
+        "{\"stock\": 1}").statusCode()).isEqualTo(HttpStatus.NOT_FOUND.value());
+    assertThat(patch("/products/" + sku + "/attributes", "application/json-patch+json",
+        "[{\"op\": \"remove\", \"path\": \"stock\"}]").statusCode())
+        .isEqualTo(HttpStatus.BAD_REQUEST.value());
+
+    final HttpResponse<String> batch = patch("/products/attributes", "application/json",
+        jacksonObjectMapper.writeValueAsString(Map.of("skus", List.of(sku, otherSku, "unknown"),
+            "mergePatch", Map.of("discontinued", true))));
+    assertThat(batch.statusCode()).isEqualTo(HttpStatus.OK.value());
+    assertThat(jacksonObjectMapper.readTree(batch.body())).isEqualTo(jacksonObjectMapper
+        .readTree("{\"updated\": [\"" + sku + "\", \"" + otherSku + "\"], "
+            + "\"notFound\": [\"unknown\"], \"rejected\": []}"));
+    assertThat(lookupProducts(List.of(sku, otherSku))).allSatisfy(product ->
+        assertThat(product.getAttributes().get("discontinued").asBoolean()).isTrue());
+  }
+
+  @Test
+  void countAttributeFacets() throws URISyntaxException {
+
+    final double maintainedReads = facetReads("maintained");
+    final JsonNode catalog = facets("path=colors&path=measures.height");
+    assertThat(facetValues(catalog.get("colors"))).containsExactly("black=2", "blue=1", "green=1");
+    assertThat(facetValues(catalog.get("measures.height"))).containsExactly("250=1", "300=1");
+    assertThat(facetReads("maintained")).isEqualTo(maintainedReads + 1);
+
+    assertThat(facetValues(facets("path=colors&limit=1").get("colors")))
+        .containsExactly("black=2");
+    assertThat(facetValues(facets("path=colors&filter="
+        + URLEncoder.encode("weight.value<43", StandardCharsets.UTF_8)).get("colors")))
+        .containsExactly("black=1", "blue=1");
+
+    insertProduct(new Product("Red Toast 1000", UUID.randomUUID().toString(),
+        new Price(new BigDecimal(5), "EUR"),
+        jacksonObjectMapper.createObjectNode()
+            .set("colors", jacksonObjectMapper.createArrayNode().add("red").add("red"))));
+    assertThat(facetValues(facets("path=colors").get("colors")))
+        .containsExactly("black=2", "blue=1", "green=1", "red=1");
+
+    // the counts follow writes bypassing the application as well
+    jdbcTemplate.update("UPDATE product SET attributes = jsonb_set(attributes, '{colors}', "
+        + "'[\"white\"]') WHERE name = 'Brown Toast 4000'");
+    jdbcTemplate.update("DELETE FROM product WHERE name = 'Red Toast 1000'");
+    assertThat(jdbcTemplate.queryForList("SELECT value || '=' || count FROM facet_count "
+        + "WHERE path = 'colors' ORDER BY value", String.class))
+        .containsExactly("black=1", "blue=1", "white=1");
+
+    assertThat(searchProductPage(new URI("http://localhost:" + port
+        + "/products/facets?path=colors%27")).getStatusCode())
+        .isEqualTo(HttpStatus.BAD_REQUEST);
+    assertThat(searchProductPage(new URI("http://localhost:" + port
+        + "/products/facets")).getStatusCode()).isEqualTo(HttpStatus.BAD_REQUEST);
+  }
+
+  @Test
+  void admitSearchesByEstimatedCost() throws URISyntaxException {
+    final ProductSearchProperties.Admission admission = productSearchProperties.getAdmission();
+    final String products = "http://localhost:" + port + "/products";
+    final String allColored = "?attributeSearchParameter="
+        + URLEncoder.encode("{\"colors\":[]}", StandardCharsets.UTF_8);
+
+    admission.setMaxUnpagedRows(0);
+    try {
+      // pages are bounded, streams and facet counts of all matches are not
+      assertThat(searchProductPage(new URI(products + allColored)).getBody()).hasSize(2);
+      assertThat(searchProductPage(new URI(products + "/stream" + allColored)).getStatusCode())
+          .isEqualTo(HttpStatus.BAD_REQUEST);
+      assertThat(searchProductPage(new URI(products + "/facets" + allColored
+          + "&path=weight.unit")).getStatusCode()).isEqualTo(HttpStatus.BAD_REQUEST);
+
+      admission.setMaxUnpagedRows(100000);
+      admission.setMaxCost(0.001);
+      assertThat(searchProductPage(new URI(products + allColored + "&pageSize=1"))
+          .getStatusCode()).isEqualTo(HttpStatus.BAD_REQUEST);
+    } finally {
+      admission.setMaxUnpagedRows(100000);
+      admission.setMaxCost(1000000);
+    }
+
+    for (final String outcome : List.of("cheap", "pagination_required", "too_expensive")) {
+      assertThat(meterRegistry.get("products.search.admission").tag("outcome", outcome)
+          .counter().count()).isPositive();
+    }
+  }
+
+  @Test
+  void searchProductsByPromotedAttributes() throws URISyntaxException {
+    // a value the cast of a filter fails on is promoted as NULL
+    insertProduct(new Product("Tall Toast 1", UUID.randomUUID().toString(),
+        new Price(new BigDecimal(20), "EUR"), jacksonObjectMapper.createObjectNode()
+        .set("measures", jacksonObjectMapper.createObjectNode().put("height", "tall"))));
+    assertThat(jdbcTemplate.queryForList("SELECT attr_measures_height_integer FROM product "
+        + "ORDER BY name", Integer.class)).containsExactly(300, 250, null);
+
+    final URI uri = new URI("http://localhost:" + port + "/products?filter="
+        + URLEncoder.encode("measures.height>=300", StandardCharsets.UTF_8));
+    assertThat(searchProductPage(uri).getBody()).extracting(Product::getName)
+        .containsExactly("Black Toast 2000");
+
+    // rows written before the column existed are backfilled
+    jdbcTemplate.update("UPDATE product SET attr_measures_height_integer = NULL");
+    jdbcTemplate.update("UPDATE promoted_attribute SET backfilled = FALSE");
+    promotedAttributeManager.applyOnStartup();
+    assertThat(jdbcTemplate.queryForList("SELECT attr_measures_height_integer FROM product "
+        + "ORDER BY name", Integer.class)).containsExactly(300, 250, null);
+    assertThat(jdbcTemplate.queryForList("SELECT indexname FROM pg_indexes "
+        + "WHERE tablename = 'product'", String.class))
+        .contains("product_attr_measures_height_integer_idx");
+  }
+
+  @Test
+  void streamProductColors() throws URISyntaxException {
+
+    final URI uri = new URI("http://localhost:" + port
+        + "/products/stream?attributeSearchParameter=" + URLEncoder
+        .encode("{\"colors\":[\"black\"]}", StandardCharsets.UTF_8));
+
+    final List<Product> products = searchProduct(uri, response -> {
+      assertThat(response.getHeaders().getContentType())
+          .hasToString("application/x-ndjson");
+      final List<Product> result = new ArrayList<>();
+      for (String line : IOUtils.readLines(response.getBody(), StandardCharsets.UTF_8)) {
+        result.add(jacksonObjectMapper.readValue(line, Product.class));
+      }
+      return result;
+    });
+
+    assertThat(products).hasSize(2);
+    assertThat(products).extracting(Product::getName)
+        .containsExactlyInAnyOrder("Brown Toast 4000", "Black Toast 2000");
+  }
+
+  @Test
+  void importProductsInBulk() throws URISyntaxException {
+
+    final String duplicateSku = UUID.randomUUID().toString();
+    final String ndjson = String.join("\n",
+        "{\"name\":\"Red Toast 1000\",\"sku\":\"" + duplicateSku + "\","
+            + "\"price\":{\"value\":5,\"currency\":\"EUR\"},\"attributes\":{\"colors\":[\"red\"]}}",
+        "{\"name\":\"Red Toast 1001\",\"sku\":\"" + duplicateSku + "\","
+            + "\"price\":{\"value\":6,\"currency\":\"EUR\"},\"attributes\":{\"colors\":[\"red\"]}}",
+        "{\"name\":\"Nameless Toast\"}",
+        "{\"name\":\"Red Toast 1002\",\"sku\":\"" + UUID.randomUUID() + "\","
+            + "\"price\":{\"value\":7,\"currency\":\"EUR\"},\"attributes\":{\"colors\":[\"red\"]}}",
+        "{\"name\":\"" + "Red Toast ".repeat(26) + "\",\"sku\":\"" + UUID.randomUUID() + "\","
+            + "\"price\":{\"value\":7,\"currency\":\"EUR\"}}",
+        "{\"name\":\"Gold Toast\",\"sku\":\"" + UUID.randomUUID() + "\","
+            + "\"price\":{\"value\":123456789,\"currency\":\"EUR\"}}",
+        // product_weight_idx casts the weight, the database rejects the whole batch
+        "{\"name\":\"Heavy Toast\",\"sku\":\"" + UUID.randomUUID() + "\","
+            + "\"price\":{\"value\":7,\"currency\":\"EUR\"},"
+            + "\"attributes\":{\"colors\":[\"red\"],\"weight\":{\"value\":\"heavy\"}}}",
+        "{\"name\":\"Red Toast 1003\",\"sku\":\"" + UUID.randomUUID() + "\","
+            + "\"price\":{\"value\":7,\"currency\":\"EUR\"},"
+            + "\"attributes\":{\"colors\":[\"red\"]}}");
+
+    final JsonNode result = this.restTemplate.execute(new URI("http://localhost:" + port
+        + "/products/bulk"), HttpMethod.POST, request -> {
+      request.getHeaders().add("Content-Type", "application/x-ndjson");
+      request.getBody().write(ndjson.getBytes(StandardCharsets.UTF_8));
+    }, response -> jacksonObjectMapper.readTree(response.getBody()));
+
+    assertThat(result.get("received").asInt()).isEqualTo(8);
+    assertThat(result.get("created").asInt()).isEqualTo(3);
+    assertThat(result.get("failures")).extracting(failure -> failure.get("index").asInt())
+        .containsExactly(1, 2, 4, 5, 6);
+    assertThat(result.get("failures")).extracting(failure -> failure.get("reason").asText())
+        .containsExactly("DUPLICATE_SKU", "INVALID_PRODUCT", "INVALID_PRODUCT", "INVALID_PRODUCT",
+            "INVALID_PRODUCT");
+
+    final ResponseEntity<List<Product>> redProducts = searchProductPage(new URI("http://localhost:"
+        + port + "/products?attributeSearchParameter=" + URLEncoder
+        .encode("{\"colors\":[\"red\"]}", StandardCharsets.UTF_8)));
+    assertThat(redProducts.getBody()).extracting(Product::getName)
+        .containsExactlyInAnyOrder("Red Toast 1000", "Red Toast 1002", "Red Toast 1003");
+  }
+
+  @Test
+  void recommendIndexesForFrequentlyFilteredPaths() throws URISyntaxException {
+    indexAdvisorProperties.setMinQueries(3);
+    indexAdvisorProperties.setMinMeanLatency(Duration.ZERO);
+    try {
+      for (int i = 0; i < 3; i++) {
+        searchProductPage(new URI("http://localhost:" + port + "/products?filter="
+            + URLEncoder.encode("measures.width>" + i, StandardCharsets.UTF_8)));
+      }
+
+      assertThat(attributeIndexAdvisor.recommendations())
+          .extracting(IndexRecommendation::getPath, IndexRecommendation::getValueType)
+          .contains(tuple("measures.width", ValueType.INTEGER));
+
+      final String indexName =
+          attributeIndexAdvisor.createIndex("measures.width", ValueType.INTEGER);
+      try {
+        assertThat(attributeIndexAdvisor.managedIndexes()).contains(indexName);
+        assertThat(attributeIndexAdvisor.recommendations())
+            .extracting(IndexRecommendation::getPath)
+            .doesNotContain("measures.width");
+      } finally {
+        attributeIndexAdvisor.dropIndex(indexName);
+      }
+      assertThat(attributeIndexAdvisor.managedIndexes()).doesNotContain(indexName);
+    } finally {
+      indexAdvisorProperties.setMinQueries(100);
+      indexAdvisorProperties.setMinMeanLatency(Duration.ofMillis(20));
+    }
+  }
+
+  @Test
+  void searchProductsByKeyExistence() throws URISyntaxException {
+    final ObjectNode attributes = jacksonObjectMapper.createObjectNode().put("voltage", 230);
+    insertProduct(new Product("Electric Toast 1", UUID.randomUUID().toString(),
+        new Price(new BigDecimal(20), "EUR"), attributes));
+
+    final ResponseEntity<List<Product>> withVoltage = searchProductPage(new URI(
+        "http://localhost:" + port + "/products?hasKey=voltage"));
+    assertThat(withVoltage.getBody()).extracting(Product::getName)
+        .containsExactly("Electric Toast 1");
+
+    final ResponseEntity<List<Product>> withColorsAndWeight = searchProductPage(new URI(
+        "http://localhost:" + port + "/products?hasKey=colors&hasKey=weight"));
+    assertThat(withColorsAndWeight.getBody()).hasSize(2);
+
+    final ResponseEntity<List<Product>> withVoltageOrSize = searchProductPage(new URI(
+        "http://localhost:" + port + "/products?hasAnyKey=voltage&hasAnyKey=size"));
+    assertThat(withVoltageOrSize.getBody()).extracting(Product::getName)
+        .containsExactly("Electric Toast 1");
+  }
+
+  @Test
+  void routeSearchesByGinOperatorClass() {
+    insertHighNumberOfProducts();
+    jdbcTemplate.update("ANALYZE product;");
+
+    try {
+      assertThat(ginIndexManager.apply(GinIndexStrategy.BOTH))
+          .allSatisfy(index -> assertThat(index.getSizeBytes()).isPositive())
+          .extracting(GinIndex::getOperatorClass)
+          .containsExactlyInAnyOrder(GinOperatorClass.JSONB_OPS, GinOperatorClass.JSONB_PATH_OPS);
+      // read back from the comment of the index, the migration built the jsonb_ops index
+      assertThat(ginIndexManager.indexes())
+          .filteredOn(index -> index.getOperatorClass() == GinOperatorClass.JSONB_PATH_OPS)
+          .singleElement().extracting(GinIndex::getBuildTime).isNotNull();
+      jdbcTemplate.update("ANALYZE product;");
+
+      final String containment = String.join(" ", jdbcTemplate.queryForList(
+          "EXPLAIN (FORMAT JSON) SELECT * FROM product "
+              + "WHERE attributes @> CAST('{ \"colors\": [\"green\"] }' AS JSONB)",
+          String.class));
+      assertThat(containment).contains("product_attributes_path_ops_idx");
+
+      final String keyExistence = String.join(" ", jdbcTemplate.queryForList(
+          "EXPLAIN (FORMAT JSON) SELECT * FROM product WHERE attributes ?? ?",
+          String.class, "voltage"));
+      assertThat(keyExistence).contains("\"product_attributes_idx\"");
+    } finally {
+      assertThat(ginIndexManager.apply(GinIndexStrategy.JSONB_OPS))
+          .extracting(GinIndex::getOperatorClass)
+          .containsExactly(GinOperatorClass.JSONB_OPS);
+    }
+  }
+
   @Test
   void verifyUsageOfIndexes() {
 
@@ -210,6 +797,14 @@ class JsonIntegrationApplicationTests {
     final String concatenatedRangeWithIndex = String.join(" ", resultRangeWithIndex);
     LOGGER.info(concatenatedRangeWithIndex);
     assertThat(concatenatedRangeWithIndex).contains("product_weight_idx");
+
+    // the same predicate as the one compiled for the filter "weight.value<43"
+    final List<String> resultFilterWithIndex = jdbcTemplate.queryForList(
+        "EXPLAIN (FORMAT JSON) SELECT * FROM product "
+            + "WHERE CAST((attributes #> '{weight}' ->> 'value') AS INTEGER) < ?",
+        String.class, 43);
+
+    assertThat(String.join(" ", resultFilterWithIndex)).contains("product_weight_idx");
   }
 
   private HttpStatus insertProduct(final Product product) {
@@ -225,6 +820,41 @@ class JsonIntegrationApplicationTests {
     }
   }
 
+  private List<Product> lookupProducts(final List<String> skus) throws URISyntaxException {
+    return this.restTemplate.execute(new URI("http://localhost:" + port + "/products/lookup"),
+        HttpMethod.POST, request -> {
+          request.getHeaders().add("Content-Type", "application/json");
+          request.getBody().write(jacksonObjectMapper.writeValueAsBytes(skus));
+        }, response -> jacksonObjectMapper.readValue(response.getBody(),
+            new TypeReference<List<Product>>() {
+            }));
+  }
+
+  private HttpResponse<String> patch(final String path, final String contentType,
+      final String body) throws Exception {
+    return HttpClient.newHttpClient().send(HttpRequest.newBuilder()
+            .uri(new URI("http://localhost:" + port + path))
+            .header("Content-Type", contentType)
+            .method("PATCH", BodyPublishers.ofString(body))
+            .build(),
+        BodyHandlers.ofString());
+  }
+
+  private JsonNode facets(final String query) throws URISyntaxException {
+    return searchProduct(new URI("http://localhost:" + port + "/products/facets?" + query),
+        response -> jacksonObjectMapper.readTree(response.getBody()));
+  }
+
+  private static List<String> facetValues(final JsonNode counts) {
+    final List<String> values = new ArrayList<>();
+    counts.forEach(count -> values.add(count.get("value").asText() + "=" + count.get("count")));
+    return values;
+  }
+
+  private double facetReads(final String source) {
+    return meterRegistry.get("products.facets").tag("source", source).timer().count();
+  }
+
   private <T> T searchProduct(final URI uri, final ResponseExtractor<T> responseExtractor) {
     return this.restTemplate
         .execute(uri, HttpMethod.GET,
@@ -232,6 +862,36 @@ class JsonIntegrationApplicationTests {
             responseExtractor);
   }
 
+  private double secondLevelCacheHits() {
+    return meterRegistry.get("hibernate.second.level.cache.requests")
+        .tag("region", ProductEntity.class.getName()).tag("result", "hit")
+        .functionCounter().count();
+  }
+
+  private double queryCacheHits() {
+    return meterRegistry.get("hibernate.cache.query.requests").tag("result", "hit")
+        .functionCounter().count();
+  }
+
+  private double searchCacheHits() {
+    return meterRegistry.get("cache.gets").tag("cache", "productSearch").tag("result", "hit")
+        .functionCounter().count();
+  }
+
+  private ResponseEntity<List<Product>> searchProductPage(final URI uri) {
+    return searchProduct(uri, response -> {
+      if (response.getStatusCode().isError()) {
+        return new ResponseEntity<>(response.getStatusCode());
+      }
+      final String responseBody = IOUtils
+          .toString(response.getBody(), StandardCharsets.UTF_8.name());
+      final List<Product> products = responseBody.isEmpty() ? null
+          : jacksonObjectMapper.readValue(responseBody, new TypeReference<List<Product>>() {
+          });
+      return new ResponseEntity<>(products, response.getHeaders(), response.getStatusCode());
+    });
+  }
+
   private void insertHighNumberOfProducts() {
     final Random random = new Random();
 
@@ -0,0 +1,209 @@
+package com.jackis.jsonintegration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.jackis.jsonintegration.product.index.GinIndex;
+import com.jackis.jsonintegration.product.index.GinIndexManager;
+import com.jackis.jsonintegration.product.index.GinIndexStrategy;
+import com.jackis.jsonintegration.product.partition.PartitionMigrator;
+import com.jackis.jsonintegration.product.partition.PartitionStatus;
+import com.jackis.jsonintegration.product.rest.Price;
+import com.jackis.jsonintegration.product.rest.Product;
+import java.math.BigDecimal;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.util.TestPropertyValues;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.boot.web.server.LocalServerPort;
+import org.springframework.context.ApplicationContextInitializer;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.web.client.ResponseExtractor;
+import org.testcontainers.containers.PostgreSQLContainer;
+
+/**
+ * Migrates the product table to hash partitions while products are written, which requires
+ * PostgreSQL 11.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@ContextConfiguration(initializers = ProductPartitioningTests.DatabaseInitializer.class)
+class ProductPartitioningTests {
+
+  private static final PostgreSQLContainer POSTGRE_SQL_CONTAINER;
+
+  private static final int SEEDED_PRODUCTS = 2000;
+
+  static {
+    POSTGRE_SQL_CONTAINER = new PostgreSQLContainer("postgres:11.6");
+    POSTGRE_SQL_CONTAINER.start();
+  }
+
+  static class DatabaseInitializer implements
+      ApplicationContextInitializer<ConfigurableApplicationContext> {
+
+    public DatabaseInitializer() {
+    }
+
+    @Override
+    public void initialize(ConfigurableApplicationContext configurableApplicationContext) {
+      TestPropertyValues.of(
+          "spring.datasource.username=" + POSTGRE_SQL_CONTAINER.getUsername(),
+          "spring.datasource.password=" + POSTGRE_SQL_CONTAINER.getPassword(),
+          "spring.datasource.url=" + POSTGRE_SQL_CONTAINER.getJdbcUrl(),
+          "products.partitioning.batch-size=50")
+          .applyTo(configurableApplicationContext);
+    }
+  }
+
+  @Autowired
+  private JdbcTemplate jdbcTemplate;
+
+  @Autowired
+  private TestRestTemplate restTemplate;
+
+  @Autowired
+  private ObjectMapper jacksonObjectMapper;
+
+  @Autowired
+  private PartitionMigrator partitionMigrator;
+
+  @Autowired
+  private GinIndexManager ginIndexManager;
+
+  @LocalServerPort
+  private int port;
+
+  @Test
+  void migrateToHashPartitionsWhileWriting() throws Exception {
+    jdbcTemplate.batchUpdate("INSERT INTO product (name, sku, price, currency, attributes) "
+            + "VALUES (?, ?, 1, 'EUR', CAST(? AS JSONB))",
+        IntStream.range(0, SEEDED_PRODUCTS)
+            .mapToObj(index -> new Object[]{"Seeded Toast " + index, "seed-" + index,
+                attributes(0, index)})
+            .collect(Collectors.toList()));
+
+    // the latest version written per SKU, -1 for deleted products
+    final Map<String, Integer> versions = new ConcurrentHashMap<>();
+    final AtomicBoolean writing = new AtomicBoolean(true);
+    final AtomicReference<RuntimeException> writeFailure = new AtomicReference<>();
+    final Thread writer = new Thread(() -> {
+      final Random random = new Random(42);
+      for (int version = 1; writing.get() && writeFailure.get() == null; version++) {
+        final String sku = "seed-" + random.nextInt(SEEDED_PRODUCTS);
+        if (versions.getOrDefault(sku, 0) < 0) {
+          continue;
+        }
+        try {
+          if (version % 10 == 0) {
+            jdbcTemplate.update("DELETE FROM product WHERE sku = ?", sku);
+            versions.put(sku, -1);
+          } else {
+            jdbcTemplate.update("UPDATE product SET attributes = CAST(? AS JSONB) WHERE sku = ?",
+                attributes(version, version), sku);
+            versions.put(sku, version);
+          }
+          jdbcTemplate.update("INSERT INTO product (name, sku, price, currency, attributes) "
+                  + "VALUES ('Written Toast', ?, 1, 'EUR', CAST(? AS JSONB))", "new-" + version,
+              attributes(version, version));
+          versions.put("new-" + version, version);
+        } catch (final RuntimeException ex) {
+          writeFailure.set(ex);
+        }
+      }
+    });
+    writer.start();
+
+    final PartitionStatus status = partitionMigrator.migrate(4);
+    Thread.sleep(200);
+    writing.set(false);
+    writer.join();
+    assertThat(writeFailure.get()).isNull();
+
+    assertThat(status.isPartitioned()).isTrue();
+    assertThat(status.getPartitions()).isEqualTo(4);
+    assertThat(status.getCopiedRows()).isPositive();
+    assertThat(partitionMigrator.migrate(4).getCopiedRows()).isEqualTo(status.getCopiedRows());
+
+    final Map<String, Integer> written = jdbcTemplate.query(
+        "SELECT sku, CAST(attributes ->> 'version' AS INTEGER) AS version FROM product",
+        (resultSet, rowNum) -> Map.entry(resultSet.getString("sku"), resultSet.getInt("version")))
+        .stream().collect(Collectors.toMap(Map.Entry::getKey, Map.Entry::getValue));
+    versions.forEach((sku, version) -> {
+      if (version < 0) {
+        assertThat(written).doesNotContainKey(sku);
+      } else {
+        assertThat(written).containsEntry(sku, version);
+      }
+    });
+    assertThat(written).hasSize(SEEDED_PRODUCTS + (int) versions.entrySet().stream()
+        .filter(entry -> entry.getKey().startsWith("new-")).count()
+        - (int) versions.values().stream().filter(version -> version < 0).count());
+
+    // the triggers moved to the partitioned table
+    assertThat(jdbcTemplate.queryForList("SELECT value || '=' || count FROM facet_count "
+        + "WHERE path = 'colors' ORDER BY value", String.class)).isEqualTo(
+        jdbcTemplate.queryForList("SELECT value || '=' || count(*) FROM product "
+            + "CROSS JOIN LATERAL facet_values(attributes -> 'colors') AS v(value) "
+            + "GROUP BY value ORDER BY value", String.class));
+    assertThat(jdbcTemplate.queryForObject("SELECT count(*) FROM product "
+        + "WHERE attr_measures_height_integer IS DISTINCT FROM "
+        + "CAST(attributes #>> '{measures,height}' AS INTEGER)", Integer.class)).isZero();
+
+    assertThatThrownBy(() -> jdbcTemplate.update("INSERT INTO product "
+        + "(name, sku, price, currency, attributes) VALUES ('Copy', 'seed-1', 1, 'EUR', NULL)"))
+        .isInstanceOf(DuplicateKeyException.class);
+    assertThat(String.join(" ", jdbcTemplate.queryForList(
+        "EXPLAIN SELECT * FROM product WHERE sku = 'seed-1'", String.class)))
+        .containsOnlyOnce(" on product_p");
+
+    final String sku = "rest-1";
+    assertThat(restTemplate.postForEntity("http://localhost:" + port + "/products",
+        new Product("Partitioned Toast", sku, new Price(new BigDecimal(5), "EUR"),
+            jacksonObjectMapper.createObjectNode().put("slots", 6)), Void.class).getStatusCode())
+        .isEqualTo(HttpStatus.CREATED);
+    final Product product = get("/products/" + sku,
+        response -> jacksonObjectMapper.readValue(response.getBody(), Product.class));
+    assertThat(product.getName()).isEqualTo("Partitioned Toast");
+    final List<String> skus = get("/products?filter=slots%3D6",
+        response -> jacksonObjectMapper.readTree(response.getBody()).findValuesAsText("sku"));
+    assertThat(skus).containsExactly(sku);
+
+    assertThat(ginIndexManager.apply(GinIndexStrategy.BOTH)).hasSize(2)
+        .allSatisfy(index -> assertThat(index.getSizeBytes()).isPositive());
+    assertThat(ginIndexManager.apply(GinIndexStrategy.JSONB_OPS))
+        .extracting(GinIndex::getIndexName).containsExactly("product_attributes_idx");
+  }
+
+  private <T> T get(final String path, final ResponseExtractor<T> responseExtractor)
+      throws URISyntaxException {
+    return restTemplate.execute(new URI("http://localhost:" + port + path), HttpMethod.GET,
+        request -> request.getHeaders().add("Content-Type", "application/json"),
+        responseExtractor);
+  }
+
+  private String attributes(final int version, final int seed) {
+    final ObjectNode attributes = jacksonObjectMapper.createObjectNode().put("version", version);
+    attributes.set("colors", jacksonObjectMapper.createArrayNode()
+        .add(List.of("red", "green", "blue").get(seed % 3)).add("black"));
+    attributes.set("measures", jacksonObjectMapper.createObjectNode().put("height", seed % 500));
+    return attributes.toString();
+  }
+}
@@ -0,0 +1,145 @@
+package com.jackis.jsonintegration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.jackis.jsonintegration.product.rest.Price;
+import com.jackis.jsonintegration.product.rest.Product;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.math.BigDecimal;
+import java.net.URI;
+import java.util.List;
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.util.TestPropertyValues;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.boot.web.server.LocalServerPort;
+import org.springframework.context.ApplicationContextInitializer;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.test.context.ContextConfiguration;
+import org.testcontainers.containers.PostgreSQLContainer;
+
+/**
+ * Routes searches to a second, independently written PostgreSQL instance standing in for a
+ * replica, next to one that cannot be reached.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@ContextConfiguration(initializers = ReplicaRoutingTests.DatabaseInitializer.class)
+class ReplicaRoutingTests {
+
+  private static final PostgreSQLContainer PRIMARY_CONTAINER;
+
+  private static final PostgreSQLContainer REPLICA_CONTAINER;
+
+  static {
+    PRIMARY_CONTAINER = new PostgreSQLContainer("postgres:10.11");
+    PRIMARY_CONTAINER.start();
+    REPLICA_CONTAINER = new PostgreSQLContainer("postgres:10.11");
+    REPLICA_CONTAINER.start();
+  }
+
+  static class DatabaseInitializer implements
+      ApplicationContextInitializer<ConfigurableApplicationContext> {
+
+    public DatabaseInitializer() {
+    }
+
+    @Override
+    public void initialize(ConfigurableApplicationContext configurableApplicationContext) {
+      // Flyway only migrates the primary
+      Flyway.configure()
+          .dataSource(REPLICA_CONTAINER.getJdbcUrl(), REPLICA_CONTAINER.getUsername(),
+              REPLICA_CONTAINER.getPassword())
+          .load().migrate();
+      TestPropertyValues.of(
+          "spring.datasource.username=" + PRIMARY_CONTAINER.getUsername(),
+          "spring.datasource.password=" + PRIMARY_CONTAINER.getPassword(),
+          "spring.datasource.url=" + PRIMARY_CONTAINER.getJdbcUrl(),
+          "products.replicas.enabled=true",
+          "products.replicas.urls=" + REPLICA_CONTAINER.getJdbcUrl()
+              + ",jdbc:postgresql://localhost:1/postgres",
+          "products.replicas.username=" + REPLICA_CONTAINER.getUsername(),
+          "products.replicas.password=" + REPLICA_CONTAINER.getPassword(),
+          "products.replicas.connection-timeout=250ms",
+          "products.replicas.health-check-interval=100ms",
+          "products.replicas.read-your-writes-window=1m")
+          .applyTo(configurableApplicationContext);
+    }
+  }
+
+  @Autowired
+  private TestRestTemplate restTemplate;
+
+  @Autowired
+  private ObjectMapper jacksonObjectMapper;
+
+  @Autowired
+  private MeterRegistry meterRegistry;
+
+  @LocalServerPort
+  private int port;
+
+  @Test
+  void searchesReadFromHealthyReplicasUnlessTheClientWrote() throws Exception {
+    new JdbcTemplate(new DriverManagerDataSource(REPLICA_CONTAINER.getJdbcUrl(),
+        REPLICA_CONTAINER.getUsername(), REPLICA_CONTAINER.getPassword()))
+        .update("INSERT INTO product (name, sku, price, currency, attributes) "
+            + "VALUES ('Replicated Toast', 'replica-1', 1, 'EUR', '{\"origin\": \"test\"}')");
+    waitForHealthChecks();
+
+    assertThat(meterRegistry.get("products.replica.healthy").tag("replica", "replica-0")
+        .gauge().value()).isEqualTo(1);
+    assertThat(meterRegistry.get("products.replica.healthy").tag("replica", "replica-1")
+        .gauge().value()).isZero();
+    // every search is served by the reachable replica, none by the primary
+    for (int pageSize = 1; pageSize <= 4; pageSize++) {
+      assertThat(search(pageSize, null)).containsExactly("replica-1");
+    }
+
+    final ResponseEntity<Void> created = restTemplate.postForEntity(
+        "http://localhost:" + port + "/products",
+        new Product("Primary Toast", "primary-1", new Price(new BigDecimal(2), "EUR"),
+            jacksonObjectMapper.createObjectNode().put("origin", "test")), Void.class);
+    assertThat(created.getStatusCode()).isEqualTo(HttpStatus.CREATED);
+    final String cookie = created.getHeaders().getFirst(HttpHeaders.SET_COOKIE);
+    assertThat(cookie).startsWith("products-primary-reads-until=");
+
+    assertThat(search(5, cookie.substring(0, cookie.indexOf(';'))))
+        .containsExactly("primary-1");
+    assertThat(search(6, null)).containsExactly("replica-1");
+  }
+
+  private void waitForHealthChecks() throws InterruptedException {
+    for (int attempt = 0; attempt < 50; attempt++) {
+      if (meterRegistry.find("products.replica.healthy").tag("replica", "replica-0").gauge()
+          .value() > 0) {
+        return;
+      }
+      Thread.sleep(100);
+    }
+  }
+
+  /**
+   * Searches with a distinct page size each, so no result comes from the search cache.
+   */
+  private List<String> search(final int pageSize, final String cookie) throws Exception {
+    return restTemplate.execute(
+        new URI("http://localhost:" + port + "/products?filter=origin%3Dtest&pageSize=" + pageSize),
+        HttpMethod.GET,
+        request -> {
+          request.getHeaders().add("Content-Type", "application/json");
+          if (cookie != null) {
+            request.getHeaders().add(HttpHeaders.COOKIE, cookie);
+          }
+        },
+        response -> jacksonObjectMapper.readTree(response.getBody()).findValuesAsText("sku"));
+  }
+}
@@ -0,0 +1,158 @@
+package com.jackis.jsonintegration.hibernate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.nio.charset.StandardCharsets;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Types;
+import org.junit.jupiter.api.Test;
+
+class JsonNodeTypeTest {
+
+  private final ObjectMapper mapper = new ObjectMapper();
+
+  private final JsonNodeType jsonNodeType = new JsonNodeType();
+
+  private ObjectNode createAttributes() {
+    final ObjectNode attributes = mapper.createObjectNode();
+    attributes.set("colors", mapper.createArrayNode().add("green").add("black"));
+    attributes.set("weight", mapper.createObjectNode().put("unit", "g").put("value", 43));
+    return attributes;
+  }
+
+  @Test
+  void nullSafeGetParsesColumnContent() throws SQLException {
+    final ResultSet resultSet = mock(ResultSet.class);
+    when(resultSet.getBytes("attributes")).thenReturn(
+        "{\"weight\":{\"unit\":\"g\",\"value\":43}}".getBytes(StandardCharsets.UTF_8));
+
+    final Object attributes =
+        jsonNodeType.nullSafeGet(resultSet, new String[]{"attributes"}, null, null);
+
+    assertThat(attributes).isInstanceOf(JsonNode.class);
+    assertThat(((JsonNode) attributes).get("weight").get("value").asInt()).isEqualTo(43);
+  }
+
+  @Test
+  void nullSafeGetReturnsNullForNullColumn() throws SQLException {
+    final ResultSet resultSet = mock(ResultSet.class);
+
+    assertThat(jsonNodeType.nullSafeGet(resultSet, new String[]{"attributes"}, null, null))
+        .isNull();
+  }
+
+  @Test
+  void nullSafeSetBindsSerializedDocument() throws SQLException {
+    final PreparedStatement preparedStatement = mock(PreparedStatement.class);
+
+    jsonNodeType.nullSafeSet(preparedStatement, createAttributes(), 1, null);
+
+    verify(preparedStatement).setObject(1,
+        "{\"colors\":[\"green\",\"black\"],\"weight\":{\"unit\":\"g\",\"value\":43}}",
+        Types.OTHER);
+  }
+
+  @Test
+  void nullSafeSetBindsNull() throws SQLException {
+    final PreparedStatement preparedStatement = mock(PreparedStatement.class);
+
+    jsonNodeType.nullSafeSet(preparedStatement, null, 1, null);
+
+    verify(preparedStatement).setNull(1, Types.OTHER);
+  }
+
+  @Test
+  void utf8LengthMatchesEncodedLength() {
+    for (final String value : new String[]{"", "{\"unit\":\"g\"}", "Größe", "€ 10", "\uD83C\uDF5E"}) {
+      assertThat(JsonNodeType.utf8Length(value))
+          .isEqualTo(value.getBytes(StandardCharsets.UTF_8).length);
+    }
+  }
+
+  @Test
+  void deepCopyIsEqualButIndependent() {
+    final ObjectNode attributes = createAttributes();
+
+    final JsonNode copy = (JsonNode) jsonNodeType.deepCopy(attributes);
+
+    assertThat(copy).isEqualTo(attributes).isNotSameAs(attributes);
+    assertThat(copy.get("weight")).isNotSameAs(attributes.get("weight"));
+
+    ((ObjectNode) attributes.get("weight")).put("value", 44);
+    assertThat(copy.get("weight").get("value").asInt()).isEqualTo(43);
+    assertThat(jsonNodeType.equals(attributes, copy)).isFalse();
+  }
+
+  @Test
+  void deepCopyOfNullIsNull() {
+    assertThat(jsonNodeType.deepCopy(null)).isNull();
+  }
+
+  @Test
+  void disassembleAndAssembleRoundTrip() {
+    final ObjectNode attributes = createAttributes();
+
+    final Serializable cached = jsonNodeType.disassemble(attributes);
+    final Object assembled = jsonNodeType.assemble(cached, null);
+
+    assertThat(assembled).isEqualTo(attributes).isNotSameAs(cached);
+  }
+
+  @Test
+  void disassembleToCompactBinary() throws IOException {
+    final ObjectNode attributes = createAttributes();
+
+    final Serializable cached = jsonNodeType.disassemble(attributes);
+
+    final ByteArrayOutputStream serializedTree = new ByteArrayOutputStream();
+    try (ObjectOutputStream out = new ObjectOutputStream(serializedTree)) {
+      out.writeObject(attributes);
+    }
+    assertThat(cached).isInstanceOf(byte[].class);
+    assertThat(((byte[]) cached).length).isLessThan(serializedTree.size() / 2)
+        .isLessThan(mapper.writeValueAsBytes(attributes).length);
+  }
+
+  @Test
+  void disassembleOfNullIsNull() {
+    assertThat(jsonNodeType.disassemble(null)).isNull();
+    assertThat(jsonNodeType.assemble(null, null)).isNull();
+  }
+
+  @Test
+  void deduplicateValuesAcrossDocuments() throws SQLException {
+    final JsonNodeType deduplicating = new JsonNodeType(
+        new JsonNodeCodec(mapper, new DeduplicatingJsonNodeFactory(8, 64)));
+    final ResultSet resultSet = mock(ResultSet.class);
+    when(resultSet.getBytes("attributes")).thenReturn(
+        "{\"weight\":{\"unit\":\"g\",\"value\":43},\"name\":\"Brown Toast 4000\"}"
+            .getBytes(StandardCharsets.UTF_8));
+
+    final JsonNode first = (JsonNode) deduplicating.nullSafeGet(resultSet,
+        new String[]{"attributes"}, null, null);
+    final JsonNode second = (JsonNode) deduplicating.nullSafeGet(resultSet,
+        new String[]{"attributes"}, null, null);
+    final JsonNode cached = (JsonNode) deduplicating.assemble(deduplicating.disassemble(first),
+        null);
+
+    assertThat(second.get("weight").get("unit")).isSameAs(first.get("weight").get("unit"))
+        .isSameAs(cached.get("weight").get("unit"));
+    assertThat(second.get("weight").get("value")).isSameAs(first.get("weight").get("value"));
+    // longer than the maximum length
+    assertThat(second.get("name")).isNotSameAs(first.get("name")).isEqualTo(first.get("name"));
+    assertThat(second).isNotSameAs(first).isEqualTo(first);
+  }
+}
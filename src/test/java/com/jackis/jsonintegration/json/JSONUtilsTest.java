@@ -0,0 +1,77 @@
+package com.jackis.jsonintegration.json;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+class JSONUtilsTest {
+
+  private final JSONUtils jsonUtils = new JSONUtils();
+
+  @BeforeEach
+  void injectMapper() {
+    ReflectionTestUtils.setField(jsonUtils, "mapper", new ObjectMapper());
+  }
+
+  private static JsonLimits limits(int maxLength, int maxDepth, int maxKeys) {
+    return new JsonLimits() {
+      @Override
+      public int getMaxLength() {
+        return maxLength;
+      }
+
+      @Override
+      public int getMaxDepth() {
+        return maxDepth;
+      }
+
+      @Override
+      public int getMaxKeys() {
+        return maxKeys;
+      }
+    };
+  }
+
+  @Test
+  void readObjectParsesDocumentWithinLimits() {
+    final JsonNode document = jsonUtils.readObject("{\"weight\": {\"value\": 42}}",
+        limits(100, 2, 2));
+
+    assertThat(document.get("weight").get("value").asInt()).isEqualTo(42);
+  }
+
+  @Test
+  void readObjectRejectsDocumentsExceedingLimits() {
+    final String document = "{\"weight\": {\"value\": 42, \"unit\": \"g\"}}";
+
+    assertThatThrownBy(() -> jsonUtils.readObject(document, limits(10, 2, 3)))
+        .isInstanceOf(IllegalArgumentException.class).hasMessageContaining("longer");
+    assertThatThrownBy(() -> jsonUtils.readObject(document, limits(100, 1, 3)))
+        .isInstanceOf(IllegalArgumentException.class).hasMessageContaining("deeper");
+    assertThatThrownBy(() -> jsonUtils.readObject(document, limits(100, 2, 2)))
+        .isInstanceOf(IllegalArgumentException.class).hasMessageContaining("keys");
+  }
+
+  @Test
+  void readObjectRejectsInvalidDocumentsAndNonObjects() {
+    assertThatThrownBy(() -> jsonUtils.readObject("{\"colors\": [", limits(100, 2, 2)))
+        .isInstanceOf(IllegalArgumentException.class);
+    assertThatThrownBy(() -> jsonUtils.readObject("[\"green\"]", limits(100, 2, 2)))
+        .isInstanceOf(IllegalArgumentException.class);
+    assertThatThrownBy(() -> jsonUtils.readObject("", limits(100, 2, 2)))
+        .isInstanceOf(IllegalArgumentException.class);
+  }
+
+  @Test
+  void canonicalizeSortsKeysAndRemovesWhitespace() throws Exception {
+    assertThat(jsonUtils.canonicalize(new ObjectMapper().readTree(
+        "{ \"weight\": { \"value\": 42, \"unit\": \"g\" },\n"
+            + " \"colors\": [\"green\", \"black\"] }")))
+        .isEqualTo("{\"colors\":[\"green\",\"black\"],\"weight\":{\"unit\":\"g\",\"value\":42}}");
+  }
+}
@@ -0,0 +1,29 @@
+package com.jackis.jsonintegration.product.index;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.jackis.jsonintegration.product.persistence.AttributeFilter.ValueType;
+import org.junit.jupiter.api.Test;
+
+class AttributeIndexAdvisorTest {
+
+  @Test
+  void nameIndexesAfterThePath() {
+    assertThat(AttributeIndexAdvisor.indexName("weight.value", ValueType.INTEGER))
+        .isEqualTo("product_attr_weight_value_integer_idx");
+  }
+
+  @Test
+  void keepPathsDifferingInSeparatorsOrCaseApart() {
+    final String dotFirst = AttributeIndexAdvisor.indexName("a.b_c", ValueType.INTEGER);
+    final String underscoreFirst = AttributeIndexAdvisor.indexName("a_b.c", ValueType.INTEGER);
+    assertThat(dotFirst).startsWith("product_attr_a_b_c_integer_idx_")
+        .isNotEqualTo(underscoreFirst);
+    assertThat(underscoreFirst).startsWith("product_attr_a_b_c_integer_idx_");
+    assertThat(AttributeIndexAdvisor.indexName("a_b_c", ValueType.INTEGER))
+        .isNotIn(dotFirst, underscoreFirst);
+
+    assertThat(AttributeIndexAdvisor.indexName("Color", ValueType.TEXT))
+        .isNotEqualTo(AttributeIndexAdvisor.indexName("color", ValueType.TEXT));
+  }
+}
@@ -0,0 +1,78 @@
+package com.jackis.jsonintegration.product.persistence;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.tuple;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.jackis.jsonintegration.product.persistence.AttributePatch.Operation;
+import com.jackis.jsonintegration.product.persistence.AttributePatch.Type;
+import com.jackis.jsonintegration.product.persistence.AttributePatchCompiler.CompiledPatch;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+class AttributePatchCompilerTest {
+
+  private final ObjectMapper mapper = new ObjectMapper();
+
+  @Test
+  void compileTopLevelMergePatch() throws Exception {
+    final CompiledPatch compiledPatch = AttributePatchCompiler.compile(AttributePatch.mergePatch(
+        mapper.readTree("{\"stock\": 12, \"colors\": [\"red\"], \"discontinued\": null}"), 64));
+
+    assertThat(compiledPatch.getExpression()).isEqualTo("((CASE WHEN jsonb_typeof(attributes) "
+        + "= 'object' THEN attributes ELSE '{}' END || CAST(? AS JSONB)) #- ?)");
+    assertThat(compiledPatch.getParameters()).hasSize(2);
+    assertThat(mapper.readTree((String) compiledPatch.getParameters().get(0)))
+        .isEqualTo(mapper.readTree("{\"stock\": 12, \"colors\": [\"red\"]}"));
+    assertThat((String[]) compiledPatch.getParameters().get(1)).containsExactly("discontinued");
+  }
+
+  @Test
+  void mergeNestedObjectsTopDown() throws Exception {
+    final AttributePatch patch = AttributePatch.mergePatch(
+        mapper.readTree("{\"weight\": {\"value\": 40, \"unit\": null}, \"size\": {}}"), 64);
+
+    assertThat(patch.getOperations()).extracting(Operation::getType, Operation::getPath)
+        .containsExactly(tuple(Type.MERGE, List.of("weight")),
+            tuple(Type.REMOVE_IF_PRESENT, List.of("weight", "unit")),
+            tuple(Type.MERGE, List.of("size")));
+    assertThat(AttributePatchCompiler.compile(patch).getExpression())
+        .startsWith("jsonb_merge_at((jsonb_merge_at(CASE");
+  }
+
+  @Test
+  void compileJsonPatch() throws Exception {
+    final JsonNode patch = mapper.readTree("[{\"op\": \"test\", \"path\": \"/stock\", "
+        + "\"value\": 12}, {\"op\": \"replace\", \"path\": \"/stock\", \"value\": 11}, "
+        + "{\"op\": \"move\", \"from\": \"/a~1b\", \"path\": \"/c~0d/0\"}]");
+    final CompiledPatch compiledPatch = AttributePatchCompiler.compile(
+        AttributePatch.jsonPatch(patch, 64));
+
+    assertThat(compiledPatch.getExpression()).isEqualTo("jsonb_patch_move(jsonb_patch_replace("
+        + "jsonb_patch_test(COALESCE(attributes, '{}'), ?, CAST(? AS JSONB)), ?, "
+        + "CAST(? AS JSONB)), ?, ?)");
+    assertThat((String[]) compiledPatch.getParameters().get(4)).containsExactly("a/b");
+    assertThat((String[]) compiledPatch.getParameters().get(5)).containsExactly("c~d", "0");
+  }
+
+  @Test
+  void rejectInvalidJsonPatches() {
+    for (final String patch : new String[]{"{\"op\": \"add\"}", "[{\"op\": \"merge\", "
+        + "\"path\": \"/a\"}]", "[{\"op\": \"add\", \"path\": \"/a\"}]",
+        "[{\"op\": \"remove\", \"path\": \"a\"}]", "[{\"op\": \"remove\", \"path\": \"\"}]",
+        "[{\"op\": \"move\", \"from\": \"/a\", \"path\": \"/a/b\"}]",
+        "[{\"op\": \"remove\", \"path\": \"/a~2\"}]"}) {
+      assertThatThrownBy(() -> AttributePatch.jsonPatch(mapper.readTree(patch), 64))
+          .as(patch).isInstanceOf(IllegalArgumentException.class);
+    }
+  }
+
+  @Test
+  void limitNumberOfOperations() {
+    assertThatThrownBy(() -> AttributePatch.mergePatch(
+        mapper.readTree("{\"a\": {\"b\": {\"c\": {}}}}"), 2))
+        .isInstanceOf(IllegalArgumentException.class);
+  }
+}
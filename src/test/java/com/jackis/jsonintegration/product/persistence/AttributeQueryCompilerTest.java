@@ -0,0 +1,118 @@
+package com.jackis.jsonintegration.product.persistence;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.jackis.jsonintegration.product.persistence.AttributeFilter.Operator;
+import com.jackis.jsonintegration.product.persistence.AttributeFilter.ValueType;
+import com.jackis.jsonintegration.product.persistence.AttributeQueryCompiler.CompiledQuery;
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Map;
+import org.hibernate.jpa.TypedParameterValue;
+import org.junit.jupiter.api.Test;
+
+class AttributeQueryCompilerTest {
+
+  @Test
+  void parseFilters() {
+    final AttributeFilter integerFilter = AttributeFilter.parse("weight.value < 43");
+    assertThat(integerFilter.getPath()).containsExactly("weight", "value");
+    assertThat(integerFilter.getOperator()).isEqualTo(Operator.LESS_THAN);
+    assertThat(integerFilter.getValue()).isEqualTo(43);
+
+    assertThat(AttributeFilter.parse("measures.height>=2.5").getValue())
+        .isEqualTo(new BigDecimal("2.5"));
+    assertThat(AttributeFilter.parse("weight.unit=g").getValue()).isEqualTo("g");
+    assertThat(AttributeFilter.parse("sku!=\"42\"").getValue()).isEqualTo("42");
+  }
+
+  @Test
+  void rejectInvalidFilters() {
+    assertThatThrownBy(() -> AttributeFilter.parse("weight.value"))
+        .isInstanceOf(IllegalArgumentException.class);
+    assertThatThrownBy(() -> AttributeFilter.parse("weight' OR 1=1 --.value<1"))
+        .isInstanceOf(IllegalArgumentException.class);
+  }
+
+  @Test
+  void parsePaths() {
+    assertThat(AttributeFilter.parsePath("weight.value")).containsExactly("weight", "value");
+    assertThatThrownBy(() -> AttributeFilter.parsePath("weight.value<43"))
+        .isInstanceOf(IllegalArgumentException.class);
+    assertThatThrownBy(() -> AttributeFilter.parsePath("colors}', NULL) --"))
+        .isInstanceOf(IllegalArgumentException.class);
+  }
+
+  @Test
+  void integerFilterMatchesWeightIndexExpression() {
+    // product_weight_idx in V1.0.0__Create_Tables.sql as PostgreSQL normalizes it
+    final IndexedCasts indexedCasts = IndexedCasts.of(List.of("CREATE INDEX product_weight_idx ON "
+        + "public.product USING btree (((((attributes #> '{weight}'::text[]) ->> 'value'::text))"
+        + "::integer))"));
+    final CompiledQuery compiledQuery = AttributeQueryCompiler.compile(new AttributeQuery(null,
+        List.of(AttributeFilter.parse("weight.value<43"),
+            AttributeFilter.parse("weight.value<4.5"))), PromotedColumns.NONE, indexedCasts);
+
+    assertThat(compiledQuery.getWhere())
+        .isEqualTo("CAST((attributes #> '{weight}' ->> 'value') AS INTEGER) < :filter0"
+            + " AND promoted_numeric((attributes #> '{weight}' ->> 'value')) < :filter1");
+    assertThat(compiledQuery.getParameters()).containsEntry("filter0", 43);
+  }
+
+  @Test
+  void guardFiltersOnPathsWithoutCastIndex() {
+    // a partial index does not keep all values of the path castable
+    final IndexedCasts indexedCasts = IndexedCasts.of(List.of("CREATE INDEX weight_idx ON "
+        + "public.product USING btree ((((attributes ->> 'weight'::text))::integer)) WHERE "
+        + "(((attributes ->> 'weight'::text))::integer > 0)"));
+    final CompiledQuery compiledQuery = AttributeQueryCompiler.compile(new AttributeQuery(null,
+        List.of(AttributeFilter.parse("weight<43"))), PromotedColumns.NONE, indexedCasts);
+
+    assertThat(compiledQuery.getWhere())
+        .isEqualTo("promoted_integer((attributes ->> 'weight')) < :filter0");
+  }
+
+  @Test
+  void combineContainmentAndFilters() {
+    final CompiledQuery compiledQuery = AttributeQueryCompiler.compile(new AttributeQuery(
+        new ObjectMapper().createObjectNode().put("color", "green"),
+        List.of(AttributeFilter.parse("measures.height>=2.5"),
+            AttributeFilter.parse("unit=mm"))));
+
+    assertThat(compiledQuery.getWhere()).isEqualTo("attributes @> :containment"
+        + " AND promoted_numeric((attributes #> '{measures}' ->> 'height')) >= :filter1"
+        + " AND (attributes ->> 'unit') = :filter2");
+    assertThat(compiledQuery.getParameters().get("containment"))
+        .isInstanceOf(TypedParameterValue.class);
+  }
+
+  @Test
+  void compileFiltersOnPromotedColumns() {
+    final PromotedColumns promotedColumns = new PromotedColumns(Map.of(
+        PromotedColumns.key("measures.height", ValueType.INTEGER), "attr_measures_height_integer",
+        PromotedColumns.key("weight.value", ValueType.NUMERIC), "attr_weight_value_numeric"));
+    final CompiledQuery compiledQuery = AttributeQueryCompiler.compile(new AttributeQuery(null,
+        List.of(AttributeFilter.parse("measures.height>=250"),
+            AttributeFilter.parse("measures.height<2.5"),
+            AttributeFilter.parse("weight.value<43"))), promotedColumns);
+
+    // a numeric filter on an integer column would miss rows whose value is not an integer
+    assertThat(compiledQuery.getWhere()).isEqualTo("attr_measures_height_integer >= :filter0"
+        + " AND promoted_numeric((attributes #> '{measures}' ->> 'height')) < :filter1"
+        + " AND attr_weight_value_numeric < :filter2");
+  }
+
+  @Test
+  void compileKeyExistence() {
+    final CompiledQuery compiledQuery = AttributeQueryCompiler.compile(new AttributeQuery(null,
+        List.of(), List.of("colors", "weight"), List.of("size")));
+
+    // reaches the database as ?& and ?, which only the jsonb_ops GIN index supports
+    assertThat(compiledQuery.getWhere()).isEqualTo(
+        "attributes \\?\\?& ARRAY[:key0, :key1] AND attributes \\?\\? :key2");
+    assertThat(compiledQuery.getParameters()).containsEntry("key0", "colors")
+        .containsEntry("key1", "weight").containsEntry("key2", "size");
+  }
+}
@@ -0,0 +1,31 @@
+package com.jackis.jsonintegration.product.persistence;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.jackis.jsonintegration.product.persistence.AttributeFilter.ValueType;
+import org.junit.jupiter.api.Test;
+
+class PromotedAttributeManagerTest {
+
+  @Test
+  void nameColumnsAfterThePath() {
+    assertThat(PromotedAttributeManager.columnName("measures.height", ValueType.INTEGER))
+        .isEqualTo("attr_measures_height_integer");
+    assertThat(PromotedAttributeManager.columnName("weight.value", ValueType.NUMERIC))
+        .isEqualTo("attr_weight_value_numeric");
+  }
+
+  @Test
+  void keepPathsDifferingInSeparatorsOrCaseApart() {
+    final String dotFirst = PromotedAttributeManager.columnName("a.b_c", ValueType.INTEGER);
+    final String underscoreFirst =
+        PromotedAttributeManager.columnName("a_b.c", ValueType.INTEGER);
+    assertThat(dotFirst).startsWith("attr_a_b_c_integer_").isNotEqualTo(underscoreFirst);
+    assertThat(underscoreFirst).startsWith("attr_a_b_c_integer_");
+    assertThat(PromotedAttributeManager.columnName("a_b_c", ValueType.INTEGER))
+        .isNotIn(dotFirst, underscoreFirst);
+
+    assertThat(PromotedAttributeManager.columnName("Color", ValueType.TEXT))
+        .isNotEqualTo(PromotedAttributeManager.columnName("color", ValueType.TEXT));
+  }
+}
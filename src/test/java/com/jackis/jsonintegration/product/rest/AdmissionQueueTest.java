@@ -0,0 +1,64 @@
+package com.jackis.jsonintegration.product.rest;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import com.jackis.jsonintegration.product.rest.SearchRejectedException.Reason;
+import java.time.Duration;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+class AdmissionQueueTest {
+
+  private final ExecutorService executor = Executors.newCachedThreadPool();
+
+  @AfterEach
+  void shutdownExecutor() {
+    executor.shutdownNow();
+  }
+
+  @Test
+  void admitWaitingSearchOnceARunningOneFinished() throws Exception {
+    final AdmissionQueue queue = new AdmissionQueue("expensive", 1, 1, Duration.ofSeconds(5));
+    final SearchAdmission.Permit running = queue.acquire();
+    assertThat(queue.running()).isEqualTo(1);
+
+    final Future<SearchAdmission.Permit> waiting = executor.submit(queue::acquire);
+    awaitQueued(queue, 1);
+    assertThatThrownBy(queue::acquire)
+        .isInstanceOf(SearchRejectedException.class)
+        .extracting(ex -> ((SearchRejectedException) ex).getReason())
+        .isEqualTo(Reason.QUEUE_FULL);
+
+    running.close();
+    waiting.get(5, TimeUnit.SECONDS).close();
+    assertThat(queue.queued()).isZero();
+    assertThat(queue.running()).isZero();
+  }
+
+  @Test
+  void rejectSearchWaitingTooLong() {
+    final AdmissionQueue queue = new AdmissionQueue("expensive", 1, 1, Duration.ofMillis(50));
+    final SearchAdmission.Permit running = queue.acquire();
+
+    assertThatThrownBy(queue::acquire)
+        .isInstanceOf(SearchRejectedException.class)
+        .extracting(ex -> ((SearchRejectedException) ex).getReason())
+        .isEqualTo(Reason.TIMED_OUT);
+    assertThat(queue.queued()).isZero();
+
+    running.close();
+    queue.acquire().close();
+  }
+
+  private static void awaitQueued(final AdmissionQueue queue, final int count)
+      throws InterruptedException {
+    while (queue.queued() < count) {
+      Thread.sleep(5);
+    }
+  }
+}
@@ -0,0 +1,44 @@
+package com.jackis.jsonintegration.product.rest;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.jackis.jsonintegration.product.persistence.AttributeFilter;
+import com.jackis.jsonintegration.product.persistence.AttributeQuery;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+class CanonicalQueryTest {
+
+  @Test
+  void equivalentQueriesAreEqual() {
+    final CanonicalQuery query = new CanonicalQuery("{\"a\":1}", new AttributeQuery(null,
+        List.of(AttributeFilter.parse("b=1"), AttributeFilter.parse("c<2")),
+        List.of("x", "y"), List.of()));
+    final CanonicalQuery reordered = new CanonicalQuery("{\"a\":1}", new AttributeQuery(null,
+        List.of(AttributeFilter.parse("c < 2"), AttributeFilter.parse("b=1"),
+            AttributeFilter.parse("b=1")), List.of("y", "x"), List.of()));
+
+    assertThat(reordered).isEqualTo(query).hasSameHashCodeAs(query);
+  }
+
+  @Test
+  void keysCannotPassForOtherParts() {
+    final CanonicalQuery keyWithSeparator = new CanonicalQuery(null,
+        new AttributeQuery(null, List.of(), List.of("a&b=1"), List.of()));
+    final CanonicalQuery keyAndFilter = new CanonicalQuery(null,
+        new AttributeQuery(null, List.of(AttributeFilter.parse("b=1")), List.of("a"), List.of()));
+    assertThat(keyWithSeparator).isNotEqualTo(keyAndFilter);
+
+    final CanonicalQuery requiredKey = new CanonicalQuery(null,
+        new AttributeQuery(null, List.of(), List.of("a"), List.of()));
+    final CanonicalQuery anyKey = new CanonicalQuery(null,
+        new AttributeQuery(null, List.of(), List.of(), List.of("a")));
+    assertThat(requiredKey).isNotEqualTo(anyKey);
+
+    final CanonicalQuery containment = new CanonicalQuery("{\"b\":\"1\"}",
+        new AttributeQuery(null, List.of()));
+    final CanonicalQuery filter = new CanonicalQuery(null,
+        new AttributeQuery(null, List.of(AttributeFilter.parse("b=\"1\""))));
+    assertThat(containment).isNotEqualTo(filter);
+  }
+}
@@ -0,0 +1,156 @@
+package com.jackis.jsonintegration.product.rest;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import com.jackis.jsonintegration.product.rest.SearchRejectedException.Reason;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+class SingleFlightTest {
+
+  private static final Duration MAX_WAIT = Duration.ofSeconds(5);
+
+  private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+  private final Counter coalesced = meterRegistry.counter("coalesced");
+
+  private final Counter overflowed = meterRegistry.counter("overflowed");
+
+  private final ExecutorService executor = Executors.newCachedThreadPool();
+
+  private final CountDownLatch release = new CountDownLatch(1);
+
+  private final AtomicInteger executions = new AtomicInteger();
+
+  @AfterEach
+  void shutdownExecutor() {
+    release.countDown();
+    executor.shutdownNow();
+  }
+
+  @Test
+  void shareTheRunningExecution() throws Exception {
+    final SingleFlight<String, String> singleFlight = new SingleFlight<>(8, MAX_WAIT, coalesced, overflowed);
+    final Future<String> first = executor.submit(() -> singleFlight.execute("key", this::slow));
+    awaitExecutions(1);
+    final List<Future<String>> waiting = new ArrayList<>();
+    for (int i = 0; i < 5; i++) {
+      waiting.add(executor.submit(() -> singleFlight.execute("key", this::slow)));
+    }
+    awaitWaiters(singleFlight, "key", 5);
+    final Future<String> other = executor.submit(() -> singleFlight.execute("other", () -> "b"));
+
+    assertThat(other.get(5, TimeUnit.SECONDS)).isEqualTo("b");
+    release.countDown();
+    assertThat(first.get(5, TimeUnit.SECONDS)).isEqualTo("result 1");
+    for (final Future<String> future : waiting) {
+      assertThat(future.get(5, TimeUnit.SECONDS)).isEqualTo("result 1");
+    }
+    assertThat(executions).hasValue(1);
+    assertThat(coalesced.count()).isEqualTo(5);
+    assertThat(overflowed.count()).isZero();
+
+    // finished executions are not kept
+    assertThat(singleFlight.execute("key", this::slow)).isEqualTo("result 2");
+  }
+
+  @Test
+  void runOnTheirOwnBeyondMaxWaiters() throws Exception {
+    final SingleFlight<String, String> singleFlight = new SingleFlight<>(2, MAX_WAIT, coalesced, overflowed);
+    final Future<String> first = executor.submit(() -> singleFlight.execute("key", this::slow));
+    awaitExecutions(1);
+    final List<Future<String>> waiting = new ArrayList<>();
+    for (int i = 0; i < 2; i++) {
+      waiting.add(executor.submit(() -> singleFlight.execute("key", this::slow)));
+    }
+    awaitWaiters(singleFlight, "key", 2);
+
+    assertThat(singleFlight.execute("key", () -> "own")).isEqualTo("own");
+    assertThat(overflowed.count()).isEqualTo(1);
+    release.countDown();
+    assertThat(first.get(5, TimeUnit.SECONDS)).isEqualTo("result 1");
+    for (final Future<String> future : waiting) {
+      assertThat(future.get(5, TimeUnit.SECONDS)).isEqualTo("result 1");
+    }
+    assertThat(coalesced.count()).isEqualTo(2);
+  }
+
+  @Test
+  void failWaitersWithTheFailureOfTheExecution() throws Exception {
+    final SingleFlight<String, String> singleFlight = new SingleFlight<>(8, MAX_WAIT, coalesced, overflowed);
+    final Future<String> first = executor.submit(() -> singleFlight.execute("key", () -> {
+      slow();
+      throw new IllegalStateException("failed");
+    }));
+    awaitExecutions(1);
+    final Future<String> waiting = executor.submit(() -> {
+      try {
+        return singleFlight.execute("key", this::slow);
+      } catch (final IllegalStateException ex) {
+        return ex.getMessage();
+      }
+    });
+    awaitWaiters(singleFlight, "key", 1);
+
+    release.countDown();
+    assertThat(waiting.get(5, TimeUnit.SECONDS)).isEqualTo("failed");
+    assertThatThrownBy(() -> first.get(5, TimeUnit.SECONDS))
+        .hasCauseInstanceOf(IllegalStateException.class);
+    assertThat(executions).hasValue(1);
+  }
+
+  @Test
+  void rejectWaitersWaitingTooLong() throws Exception {
+    final SingleFlight<String, String> singleFlight =
+        new SingleFlight<>(1, Duration.ofMillis(50), coalesced, overflowed);
+    final Future<String> first = executor.submit(() -> singleFlight.execute("key", this::slow));
+    awaitExecutions(1);
+
+    assertThatThrownBy(() -> singleFlight.execute("key", this::slow))
+        .isInstanceOf(SearchRejectedException.class)
+        .extracting(ex -> ((SearchRejectedException) ex).getReason())
+        .isEqualTo(Reason.TIMED_OUT);
+    // the caller gave up waiting, so the next one may wait again
+    assertThat(singleFlight.waiters("key")).isZero();
+    assertThat(overflowed.count()).isZero();
+
+    release.countDown();
+    assertThat(first.get(5, TimeUnit.SECONDS)).isEqualTo("result 1");
+    assertThat(executions).hasValue(1);
+  }
+
+  private String slow() {
+    final int execution = executions.incrementAndGet();
+    try {
+      release.await();
+    } catch (final InterruptedException ex) {
+      Thread.currentThread().interrupt();
+    }
+    return "result " + execution;
+  }
+
+  private void awaitExecutions(final int count) throws InterruptedException {
+    while (executions.get() < count) {
+      Thread.sleep(5);
+    }
+  }
+
+  private static void awaitWaiters(final SingleFlight<String, String> singleFlight,
+      final String key, final int count) throws InterruptedException {
+    while (singleFlight.waiters(key) < count) {
+      Thread.sleep(5);
+    }
+  }
+}